@@ -0,0 +1,57 @@
+package com.freightfox.dispatchoptimizer.benchmark;
+
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building one vehicle's route with DispatchPlanDto.assignOrder: a
+ * haversine call and list append per order. The distance string is formatted
+ * once, when the plan is serialized, so it is not part of this.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssignOrderBenchmark {
+
+    @Param({ "100", "10000" })
+    public int routeLength;
+
+    @Param({ "50", "1000" })
+    public double spreadKm;
+
+    private SyntheticFleet fleet;
+    private List<Order> route;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fleet = SyntheticFleet.generate(routeLength, 1, spreadKm, 42);
+        route = fleet.orders();
+    }
+
+    @Benchmark
+    public DispatchPlanDto assignRoute() {
+        DispatchPlanDto plan = new DispatchPlanDto(fleet.vehicles().get(0));
+        for (Order order : route) {
+            plan.assignOrder(order);
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,93 @@
+package com.freightfox.dispatchoptimizer.benchmark;
+
+import com.freightfox.dispatchoptimizer.util.DistanceCalculator;
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the distance kernels: the original degree-based haversine, the
+ * cached-trigonometry overload, and the batch scorer for each ranking metric.
+ * Every benchmark scores one query against {@code points} candidates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceCalculatorBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int points;
+
+    @Param({ "50", "1000" })
+    public double spreadKm;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private GeoPoints candidates;
+    private GeoPoints query;
+    private double[] scores;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double spreadDegrees = spreadKm / 111.32;
+        latitudes = new double[points];
+        longitudes = new double[points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = 12.97 + (random.nextDouble() * 2 - 1) * spreadDegrees;
+            longitudes[i] = 77.59 + (random.nextDouble() * 2 - 1) * spreadDegrees;
+        }
+        candidates = GeoPoints.of(latitudes, longitudes);
+        query = GeoPoints.of(new double[] { 12.97 }, new double[] { 77.59 });
+        scores = new double[points];
+    }
+
+    @Benchmark
+    public void calculate(Blackhole blackhole) {
+        for (int i = 0; i < points; i++) {
+            blackhole.consume(DistanceCalculator.calculate(12.97, 77.59, latitudes[i], longitudes[i]));
+        }
+    }
+
+    @Benchmark
+    public void calculateCached(Blackhole blackhole) {
+        for (int i = 0; i < points; i++) {
+            blackhole.consume(DistanceCalculator.calculate(candidates, i, query, 0));
+        }
+    }
+
+    @Benchmark
+    public double[] scoreHaversine() {
+        DistanceCalculator.score(DistanceMetric.HAVERSINE, candidates, points, query, 0, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public double[] scoreEquirectangular() {
+        DistanceCalculator.score(DistanceMetric.EQUIRECTANGULAR, candidates, points, query, 0, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public double[] scoreSquaredChord() {
+        DistanceCalculator.score(DistanceMetric.SQUARED_CHORD, candidates, points, query, 0, scores);
+        return scores;
+    }
+}
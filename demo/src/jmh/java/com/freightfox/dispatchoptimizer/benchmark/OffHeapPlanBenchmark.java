@@ -0,0 +1,104 @@
+package com.freightfox.dispatchoptimizer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.dto.PlanView;
+import com.freightfox.dispatchoptimizer.planner.PartitionedPlanner;
+import com.freightfox.dispatchoptimizer.service.DispatchService;
+import com.freightfox.dispatchoptimizer.service.FleetStore;
+import com.freightfox.dispatchoptimizer.service.IncrementalPlanner;
+import com.freightfox.dispatchoptimizer.service.OffHeapOrderStore;
+import com.freightfox.dispatchoptimizer.service.OrderQueue;
+import com.freightfox.dispatchoptimizer.service.PlanCache;
+import com.freightfox.dispatchoptimizer.service.PlanMetrics;
+import com.freightfox.dispatchoptimizer.service.PlanSnapshotStore;
+import com.freightfox.dispatchoptimizer.service.TravelMatrixProvider;
+import com.freightfox.dispatchoptimizer.service.VehiclePositions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full plan of a large backlog in a 2 GB heap, streamed out one vehicle at a
+ * time as {@code GET /plan/stream} does. The plan cache is dropped before each
+ * run, as a saved order would, so every run solves. With the off-heap order store the
+ * orders are never held as objects; without it, they are loaded as a list on
+ * every plan. The first plan, which fills the store, and the heap in use after
+ * it are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class OffHeapPlanBenchmark {
+
+    @Param({ "1000000", "10000000" })
+    public int orders;
+
+    @Param({ "1000" })
+    public int vehicles;
+
+    @Param({ "true" })
+    public boolean offHeap;
+
+    private DispatchService dispatchService;
+    private PlanCache planCache;
+    private PartitionedPlanner partitionedPlanner;
+    private OffHeapOrderStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticFleet fleet = offHeap ? SyntheticFleet.streaming(orders, vehicles, 50, 42)
+                : SyntheticFleet.generate(orders, vehicles, 50, 42);
+
+        DispatchProperties properties = new DispatchProperties();
+        properties.getPlanner().getOffHeap().setEnabled(offHeap);
+        partitionedPlanner = new PartitionedPlanner(properties);
+        store = new OffHeapOrderStore(properties);
+        planCache = new PlanCache(properties, new ObjectMapper());
+
+        dispatchService = new DispatchService(fleet.orderRepository(), fleet.vehicleRepository(), properties,
+                partitionedPlanner, new IncrementalPlanner(properties), planCache,
+                new OrderQueue(properties), new PlanMetrics(new SimpleMeterRegistry()),
+                new PlanSnapshotStore(properties), new TravelMatrixProvider(properties), new FleetStore(),
+                new VehiclePositions(), store);
+
+        long started = System.nanoTime();
+        int[] assigned = new int[1];
+        dispatchService.getStreamedDispatchPlan(null, null, PlanView.FULL)
+                .forEach(plan -> assigned[0] += plan.getAssignedOrders().size());
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.gc();
+        long heapMb = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20;
+        System.out.printf("%nFirst plan in %.1f s, %d of %d orders assigned, %d MB heap in use afterwards%n",
+                seconds, assigned[0], orders, heapMb);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        partitionedPlanner.shutdown();
+        store.close();
+    }
+
+    @Benchmark
+    public void streamDispatchPlan(Blackhole blackhole) {
+        planCache.invalidate();
+        dispatchService.getStreamedDispatchPlan(null, null, PlanView.FULL).forEach(blackhole::consume);
+    }
+}
@@ -0,0 +1,99 @@
+package com.freightfox.dispatchoptimizer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.planner.PartitionedPlanner;
+import com.freightfox.dispatchoptimizer.planner.Solver;
+import com.freightfox.dispatchoptimizer.service.DispatchService;
+import com.freightfox.dispatchoptimizer.service.FleetStore;
+import com.freightfox.dispatchoptimizer.service.OffHeapOrderStore;
+import com.freightfox.dispatchoptimizer.service.IncrementalPlanner;
+import com.freightfox.dispatchoptimizer.service.OrderQueue;
+import com.freightfox.dispatchoptimizer.service.PlanCache;
+import com.freightfox.dispatchoptimizer.service.PlanMetrics;
+import com.freightfox.dispatchoptimizer.service.PlanSnapshotStore;
+import com.freightfox.dispatchoptimizer.service.TravelMatrixProvider;
+import com.freightfox.dispatchoptimizer.service.VehiclePositions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Greedy against matching on the same synthetic fleet. JMH measures the wall
+ * time of a full plan; the total distance and the number of orders each solver
+ * leaves unassigned are printed once per trial, since that is the other half
+ * of the trade.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class SolverBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int orders;
+
+    @Param({ "100", "1000" })
+    public int vehicles;
+
+    @Param({ "50" })
+    public double spreadKm;
+
+    @Param({ "GREEDY", "MATCHING" })
+    public Solver solver;
+
+    private DispatchService dispatchService;
+    private PartitionedPlanner partitionedPlanner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticFleet fleet = SyntheticFleet.generate(orders, vehicles, spreadKm, 42);
+
+        DispatchProperties properties = new DispatchProperties();
+        properties.getPlanner().setSolver(solver);
+        partitionedPlanner = new PartitionedPlanner(properties);
+
+        dispatchService = new DispatchService(fleet.orderRepository(), fleet.vehicleRepository(), properties,
+                partitionedPlanner, new IncrementalPlanner(properties), new PlanCache(properties, new ObjectMapper()),
+                new OrderQueue(properties), new PlanMetrics(new SimpleMeterRegistry()),
+                new PlanSnapshotStore(properties), new TravelMatrixProvider(properties), new FleetStore(),
+                new VehiclePositions(), new OffHeapOrderStore(properties));
+
+        List<DispatchPlanDto> plan = dispatchService.generateDispatchPlan();
+        double totalKm = 0;
+        int assigned = 0;
+        for (DispatchPlanDto vehiclePlan : plan) {
+            totalKm += vehiclePlan.getTotalDistanceKm();
+            assigned += vehiclePlan.getAssignedOrders().size();
+        }
+        System.out.printf("%n%s: %.1f km driven, %d of %d orders unassigned%n", solver, totalKm, orders - assigned,
+                orders);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        partitionedPlanner.shutdown();
+    }
+
+    @Benchmark
+    public List<DispatchPlanDto> generateDispatchPlan() {
+        return dispatchService.generateDispatchPlan();
+    }
+}
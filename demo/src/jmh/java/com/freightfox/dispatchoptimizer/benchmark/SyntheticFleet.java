@@ -0,0 +1,157 @@
+package com.freightfox.dispatchoptimizer.benchmark;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.repository.OrderRepository;
+import com.freightfox.dispatchoptimizer.repository.VehicleRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Generates reproducible orders and vehicles scattered around a depot, so the
+ * benchmarks can scale the problem without any fixture files or database.
+ */
+public final class SyntheticFleet {
+
+    // Bengaluru, as the centre of every generated fleet.
+    private static final double DEPOT_LATITUDE = 12.9716;
+    private static final double DEPOT_LONGITUDE = 77.5946;
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final String ORDER_PREFIX = "ORD";
+    private static final String ADDRESS_PREFIX = "Synthetic address ";
+
+    // Total fleet capacity relative to total order weight. Slightly above 1 so
+    // late orders still have to hunt for a vehicle with room.
+    private static final double CAPACITY_HEADROOM = 1.2;
+
+    private final List<Order> orders;
+    private final List<Vehicle> vehicles;
+    private final Consumer<Consumer<Order>> orderStream;
+
+    private SyntheticFleet(List<Order> orders, List<Vehicle> vehicles, Consumer<Consumer<Order>> orderStream) {
+        this.orders = orders;
+        this.vehicles = vehicles;
+        this.orderStream = orderStream;
+    }
+
+    /**
+     * @param orderCount   How many orders to generate.
+     * @param vehicleCount How many vehicles to generate.
+     * @param spreadKm     Orders and vehicles fall within this distance of the depot.
+     * @param seed         Seed for the random generator; same seed, same fleet.
+     */
+    public static SyntheticFleet generate(int orderCount, int vehicleCount, double spreadKm, long seed) {
+        List<Order> orders = new ArrayList<>(orderCount);
+        List<Vehicle> vehicles = generate(orderCount, vehicleCount, spreadKm, seed, orders::add);
+        return new SyntheticFleet(orders, vehicles, orders::forEach);
+    }
+
+    /**
+     * Same fleet as {@link #generate}, without holding the orders: they are
+     * generated again, one at a time, whenever the order repository's
+     * forEachForPlanning() is called, and {@link #orders()} is empty.
+     */
+    public static SyntheticFleet streaming(int orderCount, int vehicleCount, double spreadKm, long seed) {
+        List<Vehicle> vehicles = generate(orderCount, vehicleCount, spreadKm, seed, order -> {
+        });
+        return new SyntheticFleet(List.of(), vehicles,
+                consumer -> generate(orderCount, 0, spreadKm, seed, consumer));
+    }
+
+    // Hands the orders to the consumer and returns the vehicles.
+    private static List<Vehicle> generate(int orderCount, int vehicleCount, double spreadKm, long seed,
+            Consumer<Order> orders) {
+        Random random = new Random(seed);
+        double spreadDegrees = spreadKm / KM_PER_DEGREE;
+        Priority[] priorities = Priority.values();
+
+        double totalWeight = 0;
+        for (int i = 0; i < orderCount; i++) {
+            Order order = new Order();
+            order.setOrderId(ORDER_PREFIX + i);
+            order.setLatitude(DEPOT_LATITUDE + (random.nextDouble() * 2 - 1) * spreadDegrees);
+            order.setLongitude(DEPOT_LONGITUDE + (random.nextDouble() * 2 - 1) * spreadDegrees);
+            order.setAddress(ADDRESS_PREFIX + i);
+            order.setPackageWeight(1 + random.nextDouble() * 49);
+            order.setPriority(priorities[random.nextInt(priorities.length)]);
+            totalWeight += order.getPackageWeight();
+            orders.accept(order);
+        }
+
+        double meanCapacity = Math.max(50, totalWeight * CAPACITY_HEADROOM / Math.max(1, vehicleCount));
+        List<Vehicle> vehicles = new ArrayList<>(vehicleCount);
+        for (int i = 0; i < vehicleCount; i++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleId("VEH" + i);
+            vehicle.setCapacity(meanCapacity * (0.5 + random.nextDouble()));
+            vehicle.setCurrentLatitude(DEPOT_LATITUDE + (random.nextDouble() * 2 - 1) * spreadDegrees);
+            vehicle.setCurrentLongitude(DEPOT_LONGITUDE + (random.nextDouble() * 2 - 1) * spreadDegrees);
+            vehicle.setCurrentAddress("Synthetic depot " + i);
+            vehicles.add(vehicle);
+        }
+        return vehicles;
+    }
+
+    public List<Order> orders() {
+        return orders;
+    }
+
+    public List<Vehicle> vehicles() {
+        return vehicles;
+    }
+
+    /**
+     * An in-memory OrderRepository whose findAllForPlanning() returns this fleet's
+     * orders, forEachForPlanning() hands them over one at a time, and
+     * findAddresses() answers with their addresses. Every other repository
+     * method is unsupported.
+     */
+    public OrderRepository orderRepository() {
+        return repository(OrderRepository.class, orders, orderStream);
+    }
+
+    /**
+     * An in-memory VehicleRepository whose findAllForPlanning() returns this fleet's vehicles.
+     * Every other repository method is unsupported.
+     */
+    public VehicleRepository vehicleRepository() {
+        return repository(VehicleRepository.class, vehicles, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R, T> R repository(Class<R> type, List<T> rows, Consumer<Consumer<T>> stream) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (self, method, args) -> {
+            if (method.getName().equals("findAllForPlanning")) {
+                return rows;
+            }
+            if (method.getName().equals("forEachForPlanning") && stream != null) {
+                stream.accept((Consumer<T>) args[0]);
+                return null;
+            }
+            if (method.getName().equals("findAddresses")) {
+                // Generated orders and their addresses share a number, so streamed fleets can answer too.
+                Map<String, String> addresses = new HashMap<>();
+                for (String orderId : (List<String>) args[0]) {
+                    addresses.put(orderId, ADDRESS_PREFIX + orderId.substring(ORDER_PREFIX.length()));
+                }
+                return addresses;
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> type.getSimpleName() + " (synthetic)";
+                };
+            }
+            throw new UnsupportedOperationException(method.getName() + " is not available on a synthetic fleet");
+        });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,94 @@
+package com.freightfox.dispatchoptimizer.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.dispatchoptimizer.config.WireFormatConfig;
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the wire formats the API negotiates: writing a plan response and
+ * reading an order upload, as JSON, Smile or CBOR, with the same mappers the
+ * application uses. The size of both payloads is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    public enum Format {
+        JSON, SMILE, CBOR
+    }
+
+    private static final TypeReference<Map<String, List<Order>>> ORDER_UPLOAD = new TypeReference<>() {
+    };
+
+    @Param({ "10000" })
+    public int orders;
+
+    @Param({ "100" })
+    public int vehicles;
+
+    @Param({ "JSON", "SMILE", "CBOR" })
+    public Format format;
+
+    private ObjectMapper mapper;
+    private Map<String, List<DispatchPlanDto>> plan;
+    private byte[] upload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        WireFormatConfig config = new WireFormatConfig();
+        mapper = switch (format) {
+            case JSON -> Jackson2ObjectMapperBuilder.json().build();
+            case SMILE -> config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+            case CBOR -> config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+        };
+
+        SyntheticFleet fleet = SyntheticFleet.generate(orders, vehicles, 50, 42);
+        List<DispatchPlanDto> vehiclePlans = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles; v++) {
+            vehiclePlans.add(new DispatchPlanDto(fleet.vehicles().get(v)));
+        }
+        for (int i = 0; i < orders; i++) {
+            vehiclePlans.get(i % vehicles).assignOrder(fleet.orders().get(i));
+        }
+        plan = Map.of("dispatchPlan", vehiclePlans);
+        upload = mapper.writeValueAsBytes(Map.of("orders", fleet.orders()));
+
+        System.out.printf("%n%s: plan %d bytes, order upload %d bytes%n", format, writePlan().length,
+                upload.length);
+    }
+
+    @Benchmark
+    public byte[] writePlan() throws IOException {
+        return mapper.writeValueAsBytes(plan);
+    }
+
+    @Benchmark
+    public Map<String, List<Order>> readOrders() throws IOException {
+        return mapper.readValue(upload, ORDER_UPLOAD);
+    }
+}
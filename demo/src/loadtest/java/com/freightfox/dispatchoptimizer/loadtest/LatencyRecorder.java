@@ -0,0 +1,65 @@
+package com.freightfox.dispatchoptimizer.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the outcome of every measured request to one endpoint. Latencies
+ * are kept exactly, which is fine for the few hundred thousand requests of a
+ * load test run, and percentiles are taken from the sorted values at the end.
+ */
+final class LatencyRecorder {
+
+    /**
+     * @param requests      Requests completed, including failed ones.
+     * @param errors        Requests that failed or got a 4xx/5xx response.
+     * @param throughput    Completed requests per second of measured time.
+     * @param p50Ms         Median latency of successful requests.
+     * @param p99Ms         99th percentile latency of successful requests.
+     * @param maxMs         Slowest successful request.
+     * @param errorsByCause Failed requests by HTTP status or exception type.
+     */
+    record Summary(String endpoint, long requests, long errors, double throughput, double p50Ms, double p99Ms,
+            double maxMs, Map<String, Long> errorsByCause) {
+    }
+
+    private final String endpoint;
+    private long[] latenciesNanos = new long[1024];
+    private int count;
+    private long errors;
+    private final Map<String, Long> errorsByCause = new TreeMap<>();
+
+    LatencyRecorder(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    synchronized void success(long latencyNanos) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+        latenciesNanos[count++] = latencyNanos;
+    }
+
+    synchronized void error(String cause) {
+        errors++;
+        errorsByCause.merge(cause, 1L, Long::sum);
+    }
+
+    synchronized Summary summary(double measuredSeconds) {
+        long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+        long requests = count + errors;
+        return new Summary(endpoint, requests, errors, requests / measuredSeconds, percentileMs(sorted, 0.50),
+                percentileMs(sorted, 0.99), count == 0 ? 0 : sorted[count - 1] / 1e6, new TreeMap<>(errorsByCause));
+    }
+
+    // Nearest-rank percentile.
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,287 @@
+package com.freightfox.dispatchoptimizer.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.freightfox.dispatchoptimizer.DispatchOptimizerApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replays mixed traffic against the REST API at fixed rates and reports
+ * throughput, latency percentiles and errors per endpoint.
+ *
+ * By default the application is started in this JVM on a random port with its
+ * embedded H2 database, so a run needs nothing else. Pass {@code target=URL}
+ * to load an instance that is already running instead.
+ *
+ * Three streams run side by side, each at its own rate: batches of new orders
+ * posted to {@code /orders}, vehicles re-posted from new positions to
+ * {@code /vehicles}, and clients polling {@code /plan} with the ETag of the
+ * last plan they saw. Requests are sent on schedule whether or not earlier
+ * ones have finished, and latency is measured from the scheduled send time,
+ * so a slow server shows up as latency rather than as a lower request rate.
+ *
+ * Arguments are {@code key=value} pairs; see {@link Options}. Any
+ * {@code dispatch.*} or {@code spring.*} pair is passed on to the embedded
+ * application, to compare configurations under the same load.
+ */
+public final class LoadTest {
+
+    private static final String API = "/api/dispatch";
+
+    /**
+     * @param target         Base URL of a running instance; empty to start one in-process.
+     * @param duration       How long traffic is measured, after the warmup.
+     * @param warmup         Traffic sent before measuring starts, to warm the JIT and caches.
+     * @param initialOrders  Orders posted before the run starts.
+     * @param vehicles       Vehicles posted before the run starts.
+     * @param orderRate      Order batches posted per second.
+     * @param orderBatch     Orders per batch.
+     * @param vehicleRate    Vehicle position updates posted per second.
+     * @param vehicleBatch   Vehicles per update.
+     * @param planRate       Plan requests per second.
+     * @param concurrency    Requests that may be in flight at once.
+     * @param spreadKm       Orders and vehicles fall within this distance of the depot.
+     * @param seed           Seed for the generated traffic.
+     * @param out            Where the JSON report is written; empty for none.
+     * @param appProperties  Properties passed on to the embedded application.
+     */
+    record Options(String target, Duration duration, Duration warmup, int initialOrders, int vehicles,
+            double orderRate, int orderBatch, double vehicleRate, int vehicleBatch, double planRate, int concurrency,
+            double spreadKm, long seed, String out, Map<String, String> appProperties) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            Map<String, String> appProperties = new LinkedHashMap<>();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+                }
+                String key = arg.substring(0, eq).replaceFirst("^--", "");
+                (key.startsWith("dispatch.") || key.startsWith("spring.") ? appProperties : values)
+                        .put(key, arg.substring(eq + 1));
+            }
+            Options options = new Options(values.getOrDefault("target", ""),
+                    duration(values.getOrDefault("duration", "60s")),
+                    duration(values.getOrDefault("warmup", "10s")),
+                    Integer.parseInt(values.getOrDefault("initialOrders", "10000")),
+                    Integer.parseInt(values.getOrDefault("vehicles", "200")),
+                    Double.parseDouble(values.getOrDefault("orderRate", "10")),
+                    Integer.parseInt(values.getOrDefault("orderBatch", "50")),
+                    Double.parseDouble(values.getOrDefault("vehicleRate", "2")),
+                    Integer.parseInt(values.getOrDefault("vehicleBatch", "10")),
+                    Double.parseDouble(values.getOrDefault("planRate", "5")),
+                    Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                    Double.parseDouble(values.getOrDefault("spreadKm", "50")),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    values.getOrDefault("out", "target/loadtest-result.json"),
+                    appProperties);
+            values.keySet().removeAll(List.of("target", "duration", "warmup", "initialOrders", "vehicles",
+                    "orderRate", "orderBatch", "vehicleRate", "vehicleBatch", "planRate", "concurrency", "spreadKm",
+                    "seed", "out"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options " + values.keySet());
+            }
+            return options;
+        }
+
+        // "90s", "2m", "500ms", or plain seconds.
+        private static Duration duration(String value) {
+            String v = value.trim().toLowerCase(Locale.ROOT);
+            if (v.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+            } else if (v.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+            } else if (v.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+            }
+            return Duration.ofSeconds(Long.parseLong(v));
+        }
+    }
+
+    private final Options options;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final SyntheticTraffic traffic;
+    private final AtomicReference<String> lastPlanETag = new AtomicReference<>();
+    private String baseUrl;
+    private volatile long measureFrom;
+
+    private LoadTest(Options options) {
+        this.options = options;
+        this.traffic = new SyntheticTraffic(options.spreadKm(), options.seed());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        ConfigurableApplicationContext app = options.target().isEmpty() ? startApplication(options) : null;
+        try {
+            LoadTest test = new LoadTest(options);
+            test.baseUrl = app == null ? options.target().replaceAll("/+$", "")
+                    : "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+            test.run();
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(Options options) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0", "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN", "--spring.devtools.restart.enabled=false"));
+        options.appProperties().forEach((key, value) -> args.add("--" + key + "=" + value));
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return SpringApplication.run(DispatchOptimizerApplication.class, args.toArray(new String[0]));
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Loading %s: %d vehicles and %d orders%n", baseUrl, options.vehicles(),
+                options.initialOrders());
+        seed();
+
+        LatencyRecorder orders = new LatencyRecorder("POST " + API + "/orders");
+        LatencyRecorder vehicles = new LatencyRecorder("POST " + API + "/vehicles");
+        LatencyRecorder plans = new LatencyRecorder("GET " + API + "/plan");
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency());
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        measureFrom = start + options.warmup().toNanos();
+        schedule(scheduler, workers, options.orderRate(), orders,
+                () -> post("/orders", Map.of("orders", traffic.orders(options.orderBatch()))));
+        schedule(scheduler, workers, options.vehicleRate(), vehicles,
+                () -> post("/vehicles", Map.of("vehicles", traffic.movedVehicles(options.vehicleBatch()))));
+        schedule(scheduler, workers, options.planRate(), plans, this::pollPlan);
+
+        System.out.printf("Warming up for %ds, then measuring for %ds%n", options.warmup().toSeconds(),
+                options.duration().toSeconds());
+        Thread.sleep(options.warmup().plus(options.duration()).toMillis());
+        scheduler.shutdownNow();
+        long measuredNanos = System.nanoTime() - measureFrom;
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            workers.shutdownNow();
+        }
+
+        double seconds = measuredNanos / 1e9;
+        report(List.of(orders.summary(seconds), vehicles.summary(seconds), plans.summary(seconds)));
+    }
+
+    // Posts the initial fleet and backlog in chunks, outside the measurement.
+    private void seed() throws Exception {
+        double capacity = Math.max(50, 25.0 * options.initialOrders() * 1.2 / Math.max(1, options.vehicles()));
+        for (int posted = 0; posted < options.vehicles(); posted += 1000) {
+            int count = Math.min(1000, options.vehicles() - posted);
+            check(post("/vehicles", Map.of("vehicles", traffic.vehicles(count, capacity))), "seed vehicles");
+        }
+        for (int posted = 0; posted < options.initialOrders(); posted += 1000) {
+            int count = Math.min(1000, options.initialOrders() - posted);
+            check(post("/orders", Map.of("orders", traffic.orders(count))), "seed orders");
+        }
+    }
+
+    private interface Call {
+        HttpResponse<?> send() throws Exception;
+    }
+
+    private void schedule(ScheduledExecutorService scheduler, ExecutorService workers, double perSecond,
+            LatencyRecorder recorder, Call call) {
+        if (perSecond <= 0) {
+            return;
+        }
+        long periodNanos = (long) (1e9 / perSecond);
+        scheduler.scheduleAtFixedRate(() -> {
+            long scheduled = System.nanoTime();
+            workers.execute(() -> {
+                try {
+                    HttpResponse<?> response = call.send();
+                    long latency = System.nanoTime() - scheduled;
+                    if (scheduled < measureFrom) {
+                        return;
+                    }
+                    if (response.statusCode() >= 400) {
+                        recorder.error("HTTP " + response.statusCode());
+                    } else {
+                        recorder.success(latency);
+                    }
+                } catch (Exception e) {
+                    if (scheduled >= measureFrom) {
+                        recorder.error(e.getClass().getSimpleName());
+                    }
+                }
+            });
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private HttpResponse<Void> post(String path, Object body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + API + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    // Like a dashboard that re-fetches the plan only when it has changed.
+    private HttpResponse<Void> pollPlan() throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + API + "/plan"))
+                .timeout(Duration.ofSeconds(60))
+                .GET();
+        String etag = lastPlanETag.get();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        HttpResponse<Void> response = http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        response.headers().firstValue("ETag").ifPresent(lastPlanETag::set);
+        return response;
+    }
+
+    private static void check(HttpResponse<?> response, String step) {
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(step + " failed with HTTP " + response.statusCode());
+        }
+    }
+
+    private void report(List<LatencyRecorder.Summary> summaries) throws IOException {
+        System.out.printf("%n%-28s %9s %7s %10s %9s %9s %9s%n", "Endpoint", "Requests", "Errors", "Req/s",
+                "p50 ms", "p99 ms", "Max ms");
+        for (LatencyRecorder.Summary s : summaries) {
+            System.out.printf("%-28s %9d %7d %10.1f %9.1f %9.1f %9.1f%n", s.endpoint(), s.requests(), s.errors(),
+                    s.throughput(), s.p50Ms(), s.p99Ms(), s.maxMs());
+            s.errorsByCause().forEach((cause, count) -> System.out.printf("    %s: %d%n", cause, count));
+        }
+
+        if (!options.out().isEmpty()) {
+            Path out = Path.of(options.out());
+            if (out.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(out.toAbsolutePath().getParent());
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("options", options);
+            result.put("endpoints", summaries);
+            objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), result);
+            System.out.printf("%nWrote %s%n", out);
+        }
+    }
+}
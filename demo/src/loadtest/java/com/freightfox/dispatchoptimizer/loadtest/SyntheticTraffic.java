@@ -0,0 +1,108 @@
+package com.freightfox.dispatchoptimizer.loadtest;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible orders and vehicles around a depot for the load test:
+ * an initial fleet, then a stream of new orders and of vehicles reporting new
+ * positions. The same seed gives the same traffic, up to the interleaving of
+ * concurrent requests.
+ */
+final class SyntheticTraffic {
+
+    // Bengaluru, like the benchmarks' synthetic fleets.
+    private static final double DEPOT_LATITUDE = 12.9716;
+    private static final double DEPOT_LONGITUDE = 77.5946;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    // How far a vehicle moves between two position reports.
+    private static final double MOVE_KM = 2;
+
+    private final Random random;
+    private final double spreadDegrees;
+    private final List<Vehicle> fleet = new ArrayList<>();
+    private long nextOrder;
+
+    /**
+     * @param spreadKm Orders and vehicles fall within this distance of the depot.
+     * @param seed     Seed for the random generator.
+     */
+    SyntheticTraffic(double spreadKm, long seed) {
+        this.random = new Random(seed);
+        this.spreadDegrees = spreadKm / KM_PER_DEGREE;
+    }
+
+    /**
+     * Generates the fleet that later position reports refer to.
+     *
+     * @param capacity Mean vehicle capacity; each vehicle gets 50% to 150% of it.
+     */
+    synchronized List<Vehicle> vehicles(int count, double capacity) {
+        for (int i = 0; i < count; i++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleId("LT-VEH" + fleet.size());
+            vehicle.setCapacity(capacity * (0.5 + random.nextDouble()));
+            vehicle.setCurrentLatitude(DEPOT_LATITUDE + offset(spreadDegrees));
+            vehicle.setCurrentLongitude(DEPOT_LONGITUDE + offset(spreadDegrees));
+            vehicle.setCurrentAddress("Load test depot " + fleet.size());
+            fleet.add(vehicle);
+        }
+        return copies(fleet.subList(fleet.size() - count, fleet.size()));
+    }
+
+    /**
+     * @return New orders with ids never used before.
+     */
+    synchronized List<Order> orders(int count) {
+        Priority[] priorities = Priority.values();
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setOrderId("LT-ORD" + nextOrder++);
+            order.setLatitude(DEPOT_LATITUDE + offset(spreadDegrees));
+            order.setLongitude(DEPOT_LONGITUDE + offset(spreadDegrees));
+            order.setAddress("Load test address " + order.getOrderId());
+            order.setPackageWeight(1 + random.nextDouble() * 49);
+            order.setPriority(priorities[random.nextInt(priorities.length)]);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * Moves randomly chosen vehicles of the fleet a short way, as if they had
+     * reported new positions.
+     *
+     * @return The moved vehicles, to be re-posted under their existing ids.
+     */
+    synchronized List<Vehicle> movedVehicles(int count) {
+        List<Vehicle> moved = new ArrayList<>(count);
+        double moveDegrees = MOVE_KM / KM_PER_DEGREE;
+        for (int i = 0; i < count && !fleet.isEmpty(); i++) {
+            Vehicle vehicle = fleet.get(random.nextInt(fleet.size()));
+            vehicle.setCurrentLatitude(vehicle.getCurrentLatitude() + offset(moveDegrees));
+            vehicle.setCurrentLongitude(vehicle.getCurrentLongitude() + offset(moveDegrees));
+            moved.add(vehicle);
+        }
+        return copies(moved);
+    }
+
+    private double offset(double maxDegrees) {
+        return (random.nextDouble() * 2 - 1) * maxDegrees;
+    }
+
+    // Requests are serialized outside the lock, so never hand out the live fleet.
+    private static List<Vehicle> copies(List<Vehicle> vehicles) {
+        List<Vehicle> copies = new ArrayList<>(vehicles.size());
+        for (Vehicle v : vehicles) {
+            copies.add(new Vehicle(v));
+        }
+        return copies;
+    }
+}
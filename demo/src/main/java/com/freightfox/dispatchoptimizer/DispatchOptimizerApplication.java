@@ -2,9 +2,12 @@ package com.freightfox.dispatchoptimizer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 // This annotation is crucial. It turns this class into a Spring Boot application launcher.
 @SpringBootApplication
+// Runs @Scheduled methods, such as the periodic flush of tracker positions, on Spring's task scheduler.
+@EnableScheduling
 public class DispatchOptimizerApplication {
 
     // This is the main entry point for the Java application.
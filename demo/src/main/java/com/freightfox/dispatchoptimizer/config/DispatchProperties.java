@@ -0,0 +1,266 @@
+package com.freightfox.dispatchoptimizer.config;
+
+import com.freightfox.dispatchoptimizer.planner.OrderSequence;
+import com.freightfox.dispatchoptimizer.planner.Solver;
+import com.freightfox.dispatchoptimizer.planner.VehicleIndexType;
+import com.freightfox.dispatchoptimizer.repository.IngestMode;
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+
+// Binds every "dispatch.*" entry from application.properties into one typed object,
+// so the service layer never has to read raw property strings.
+@Data
+@Component
+@ConfigurationProperties(prefix = "dispatch")
+public class DispatchProperties {
+
+    private final Planner planner = new Planner();
+
+    private final Cache cache = new Cache();
+
+    private final Ingest ingest = new Ingest();
+
+    private final Jobs jobs = new Jobs();
+
+    private final Snapshot snapshot = new Snapshot();
+
+    private final Travel travel = new Travel();
+
+    private final Telemetry telemetry = new Telemetry();
+
+    @Data
+    public static class Planner {
+
+        /**
+         * How the planner finds the nearest vehicle for an order.
+         * BRUTE_FORCE scans every vehicle, KD_TREE uses a spatial index.
+         */
+        private VehicleIndexType vehicleIndex = VehicleIndexType.KD_TREE;
+
+        /**
+         * Cheap metric the brute-force lookup ranks candidate vehicles with.
+         * The exact haversine distance is only computed for the chosen vehicle.
+         */
+        private DistanceMetric rankingMetric = DistanceMetric.SQUARED_CHORD;
+
+        private final Parallel parallel = new Parallel();
+
+        /** How orders of the same priority are sequenced for the greedy pass. */
+        private OrderSequence orderSequence = OrderSequence.ARRIVAL;
+
+        /** How orders are handed to vehicles, unless a request asks for another solver. */
+        private Solver solver = Solver.GREEDY;
+
+        private final Matching matching = new Matching();
+
+        /**
+         * Whether to keep pending orders in memory, already in planning
+         * sequence, instead of loading and ordering them on every plan.
+         */
+        private boolean orderQueue = false;
+
+        /**
+         * Whether to keep every order and vehicle in memory as immutable,
+         * versioned snapshots that plans read instead of the database.
+         */
+        private boolean fleetStore = false;
+
+        private final Incremental incremental = new Incremental();
+
+        private final OffHeap offHeap = new OffHeap();
+
+        private final Improvement improvement = new Improvement();
+
+        /** Rows the JDBC driver fetches per round trip when plans load orders and vehicles. */
+        private int fetchSize = 1000;
+    }
+
+    @Data
+    public static class Parallel {
+
+        /**
+         * Whether to split the fleet into geographic clusters and plan them
+         * concurrently on a fork-join pool.
+         */
+        private boolean enabled = false;
+
+        /** Worker threads for parallel planning; 0 means one per available core. */
+        private int parallelism = 0;
+
+        /** Clusters are split until they hold at most this many vehicles. */
+        private int maxVehiclesPerPartition = 256;
+    }
+
+    @Data
+    public static class Matching {
+
+        /** Orders of the same priority matched to vehicles together, at most. */
+        private int windowSize = 128;
+
+        /** Nearest feasible vehicles considered for each order. */
+        private int candidates = 8;
+
+        /**
+         * How much farther than its nearest candidate an order may be sent in
+         * one round, as a fraction of that distance. An order whose cheaper
+         * vehicles went to other orders waits for the next round instead.
+         */
+        private double maxDetour = 0.25;
+    }
+
+    @Data
+    public static class Incremental {
+
+        /**
+         * Whether to keep the plan in memory and patch it as orders and vehicles
+         * are saved, instead of re-solving on every request.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Re-solve from scratch once orders added incrementally exceed this
+         * fraction of the orders in the last full solve.
+         */
+        private double replanThreshold = 0.25;
+
+        /**
+         * Small plans are never re-solved for drift before this many orders have
+         * been added incrementally.
+         */
+        private int minReplanOrders = 1000;
+    }
+
+    @Data
+    public static class OffHeap {
+
+        /**
+         * Whether to keep the orders to plan in memory-mapped files outside
+         * the Java heap, instead of loading them as objects for every plan.
+         */
+        private boolean enabled = false;
+
+        /** Where the mapped files are created; blank means java.io.tmpdir. */
+        private String directory = "";
+    }
+
+    @Data
+    public static class Improvement {
+
+        /** Whether to shorten the greedy routes with local search (2-opt, relocate, swap). */
+        private boolean enabled = false;
+
+        /** Time the search may take per plan, in milliseconds. 0 means no limit. */
+        private long timeBudgetMs = 1000;
+
+        /** Maximum sweeps over all routes. 0 means no limit. */
+        private int maxPasses = 0;
+
+        /** Nearest orders considered when moving an order to another vehicle. */
+        private int neighbors = 8;
+    }
+
+    @Data
+    public static class Cache {
+
+        /** Whether to serve the last computed plan until orders or vehicles change. */
+        private boolean enabled = true;
+
+        /**
+         * Whether to also keep the plan pre-rendered as JSON bytes, so repeat
+         * responses skip serialization entirely.
+         */
+        private boolean preSerialize = false;
+    }
+
+    @Data
+    public static class Ingest {
+
+        /**
+         * Records saved per transaction by the streaming upload endpoints. Also
+         * used as Hibernate's JDBC batch size.
+         */
+        private int batchSize = 1000;
+
+        /** Rejected records reported back in detail; the rest are only counted. */
+        private int maxReportedErrors = 100;
+
+        /** How saved orders and vehicles are written: through JPA, or with a batched MERGE. */
+        private IngestMode mode = IngestMode.JPA;
+    }
+
+    @Data
+    public static class Jobs {
+
+        /** Plan jobs that may run at the same time. */
+        private int maxConcurrent = 2;
+
+        /** Plan jobs that may wait for a free slot before submissions are rejected. */
+        private int queueCapacity = 16;
+
+        /** Whether to run plan jobs on virtual threads when the JVM supports them (Java 21+). */
+        private boolean virtualThreads = true;
+
+        /**
+         * Time budget for the solve when a job does not ask for one, in
+         * milliseconds. 0 means no limit.
+         */
+        private long defaultTimeBudgetMs = 0;
+
+        /** Finished jobs kept for polling; older ones are forgotten. */
+        private int retainedJobs = 100;
+    }
+
+    @Data
+    public static class Snapshot {
+
+        /**
+         * Whether to write every full plan to a snapshot file and, after a
+         * restart, start the first plan from it instead of from zero.
+         */
+        private boolean enabled = false;
+
+        /** Where the snapshot file is written. */
+        private String path = "plan-snapshot.bin";
+    }
+
+    @Data
+    public static class Travel {
+
+        /** When vehicles set off. Delivery windows are measured from here. */
+        private LocalTime shiftStart = LocalTime.of(8, 0);
+
+        /** Average speed of vehicles that do not set their own, in km/h. */
+        private double defaultSpeedKmh = 30;
+
+        /**
+         * Optional CSV file of road distances, one
+         * {@code fromLatitude,fromLongitude,toLatitude,toLongitude,distanceKm}
+         * leg per line. Legs it does not cover use great-circle distance.
+         */
+        private String roadTable;
+
+        /** Road legs kept in the in-memory cache, shared by every plan. */
+        private int cacheSize = 100_000;
+    }
+
+    @Data
+    public static class Telemetry {
+
+        /**
+         * How often the latest tracker position of each moved vehicle is
+         * written to the database, in milliseconds.
+         */
+        private long flushIntervalMs = 5000;
+
+        /**
+         * How far a vehicle must have moved, in km, since the cached plan was
+         * last dropped for a flush to drop it again. 0 drops it on every
+         * flush that moved a vehicle.
+         */
+        private double replanDistanceKm = 0;
+    }
+}
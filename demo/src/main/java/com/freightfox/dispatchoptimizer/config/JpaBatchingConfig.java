@@ -0,0 +1,29 @@
+package com.freightfox.dispatchoptimizer.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on JDBC batching in Hibernate with the same batch size as streaming
+ * ingest, so each ingest batch is written with a handful of batched statements
+ * instead of one round trip per row. Reads are fetched in chunks of
+ * {@code dispatch.planner.fetch-size} rows for the same reason.
+ */
+@Configuration
+public class JpaBatchingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(DispatchProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE,
+                    properties.getIngest().getBatchSize());
+            // Groups inserts by table so batches are not broken up.
+            hibernateProperties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            hibernateProperties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_FETCH_SIZE,
+                    properties.getPlanner().getFetchSize());
+        };
+    }
+}
@@ -1,19 +1,41 @@
 package com.freightfox.dispatchoptimizer.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.freightfox.dispatchoptimizer.config.WireFormatConfig;
 import com.freightfox.dispatchoptimizer.dto.ApiResponseDto;
-import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.dto.CompactDispatchPlanDto;
+import com.freightfox.dispatchoptimizer.dto.IngestResultDto;
 import com.freightfox.dispatchoptimizer.model.Order;
 import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.planner.Solver;
+import com.freightfox.dispatchoptimizer.service.BulkIngestService;
 import com.freightfox.dispatchoptimizer.service.DispatchService;
+import com.freightfox.dispatchoptimizer.service.PlanCache;
+import com.freightfox.dispatchoptimizer.service.TelemetryService;
 import com.freightfox.dispatchoptimizer.dto.OrderRequestDto;
+import com.freightfox.dispatchoptimizer.dto.PlanView;
+import com.freightfox.dispatchoptimizer.dto.PositionRequestDto;
 import com.freightfox.dispatchoptimizer.dto.VehicleRequestDto;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 // @RestController combines @Controller and @ResponseBody, telling Spring this class
@@ -27,11 +49,17 @@ public class DispatchController {
 
     // Inject our service layer. The controller's job is to delegate to the service.
     private final DispatchService dispatchService;
+    private final BulkIngestService bulkIngestService;
+    private final TelemetryService telemetryService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Endpoint to accept and store a list of delivery orders.
      * Handles POST requests to /api/dispatch/orders.
      * 
+     * Like /vehicles and /plan, it also takes Smile and CBOR bodies; see
+     * {@link WireFormatConfig}.
+     * 
      * @param request A map where the key is "orders" and the value is a list of
      *                Order objects.
      * @return A standard success response.
@@ -62,17 +90,202 @@ public class DispatchController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Endpoint for tracker pings: moves vehicles without re-posting them.
+     * Handles POST requests to /api/dispatch/vehicles/positions.
+     * 
+     * Pings are kept in memory, where plans read them straight away, and only
+     * each vehicle's latest position is written to the database periodically.
+     * Pings for unknown vehicles are dropped at that point.
+     * 
+     * @param request The batch of positions.
+     * @return 202 Accepted, with how many pings moved a vehicle.
+     */
+    @PostMapping("/vehicles/positions")
+    public ResponseEntity<ApiResponseDto> reportPositions(@Valid @RequestBody PositionRequestDto request) {
+        int accepted = telemetryService.report(request.getPositions());
+        ApiResponseDto response = new ApiResponseDto("success", accepted + " of "
+                + request.getPositions().size() + " positions accepted.");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Endpoint to upload a large number of delivery orders in one request.
+     * Handles POST requests to /api/dispatch/orders/stream.
+     * 
+     * The body is read incrementally and saved in batches, so memory use does
+     * not grow with the size of the upload. Invalid records are skipped and
+     * reported instead of failing the whole upload.
+     * 
+     * @param body Newline-delimited JSON (one order per line) or a JSON array
+     *             of orders.
+     * @return Counts of saved and rejected orders.
+     */
+    @PostMapping(path = "/orders/stream", consumes = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<IngestResultDto> streamOrders(InputStream body) {
+        return ingestResponse(bulkIngestService.ingestOrders(body));
+    }
+
+    /**
+     * Endpoint to upload a large number of vehicles in one request.
+     * Handles POST requests to /api/dispatch/vehicles/stream.
+     * 
+     * @param body Newline-delimited JSON or a JSON array of vehicles.
+     * @return Counts of saved and rejected vehicles.
+     */
+    @PostMapping(path = "/vehicles/stream", consumes = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<IngestResultDto> streamVehicles(InputStream body) {
+        return ingestResponse(bulkIngestService.ingestVehicles(body));
+    }
+
     /**
      * Endpoint to retrieve the optimized dispatch plan.
      * Handles GET requests to /api/dispatch/plan.
      * 
+     * The plan carries an ETag tied to the current orders and vehicles. A client
+     * that sends it back in If-None-Match gets 304 Not Modified until the data
+     * changes, without the plan being recomputed or re-sent.
+     * 
+     * The plan is JSON unless Accept prefers Smile or CBOR. Each format has
+     * its own ETag, since the bodies differ.
+     * 
+     * @param region  Optional. Plans only this region, loading nothing else.
+     * @param solver  Optional. "greedy" or "matching"; defaults to the configured solver.
+     * @param accept  Optional. The Accept header, which picks the format.
+     * @param request The current request, used to check If-None-Match.
      * @return A map containing the dispatch plan.
      */
     @GetMapping("/plan")
-    public ResponseEntity<Map<String, List<DispatchPlanDto>>> getDispatchPlan() {
-        List<DispatchPlanDto> plan = dispatchService.generateDispatchPlan();
+    public ResponseEntity<?> getDispatchPlan(@RequestParam(required = false) String region,
+            @RequestParam(required = false) String solver,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept, WebRequest request) {
+        Solver chosen = parseSolver(solver);
+        MediaType binary = binaryFormat(accept);
+        if (request.checkNotModified(etag(dispatchService.currentPlanETag(), binary))) {
+            return null; // Spring has already set 304 Not Modified.
+        }
+
+        PlanCache.CachedPlan plan = dispatchService.getCachedDispatchPlan(region, chosen);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag(plan.etag(), binary))
+                .varyBy(HttpHeaders.ACCEPT);
+        if (plan.json() != null && binary == null) {
+            // Already rendered when it was cached, so skip serialization entirely.
+            return response.contentType(MediaType.APPLICATION_JSON).body(plan.json());
+        }
         // We wrap the list in a Map to match the exact output format {"dispatchPlan":
         // [...]}
-        return ResponseEntity.ok(Map.of("dispatchPlan", plan));
+        return response.body(Map.of("dispatchPlan", plan.plan()));
+    }
+
+    /**
+     * Endpoint to stream the optimized dispatch plan as newline-delimited JSON,
+     * one vehicle per line. Each vehicle's plan is serialized and written on its
+     * own, so the response never exists in memory as a whole.
+     * Handles GET requests to /api/dispatch/plan/stream.
+     * 
+     * The plan is the one /plan serves, from the same cache. The full view has
+     * /plan's ETag and the compact view its own, so If-None-Match gets 304 Not
+     * Modified until the data changes.
+     * 
+     * @param region  Optional. Plans only this region, loading nothing else.
+     * @param solver  Optional. "greedy" or "matching"; defaults to the configured solver.
+     * @param view    "full" for the same vehicle plans as /plan, or "compact" for
+     *                totals and order ids only.
+     * @param request The current request, used to check If-None-Match.
+     * @return The streamed plan.
+     */
+    @GetMapping(path = "/plan/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDispatchPlan(@RequestParam(required = false) String region,
+            @RequestParam(required = false) String solver, @RequestParam(defaultValue = "full") String view,
+            WebRequest request) {
+        Solver chosen = parseSolver(solver);
+        PlanView planView = parseView(view);
+        if (request.checkNotModified(etag(dispatchService.currentPlanETag(), planView))) {
+            return null; // Spring has already set 304 Not Modified.
+        }
+        // Solved (or taken from the cache) before the response starts, so the ETag is known.
+        DispatchService.StreamedPlan streamed = dispatchService.getStreamedDispatchPlan(region, chosen, planView);
+        ObjectWriter writer = objectMapper.writer();
+
+        StreamingResponseBody body = out -> streamed.forEach(plan -> {
+            try {
+                Object line = planView == PlanView.COMPACT ? CompactDispatchPlanDto.of(plan) : plan;
+                out.write(writer.writeValueAsBytes(line));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Typically the client went away.
+            }
+        });
+        return ResponseEntity.ok().eTag(etag(streamed.etag(), planView)).contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Smile or CBOR if the Accept header ranks one of them above JSON, null for JSON.
+    static MediaType binaryFormat(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (IllegalArgumentException e) {
+            return null; // Spring answers 406 for a malformed header when it writes the body.
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return null;
+            }
+            if (type.isCompatibleWith(WireFormatConfig.SMILE)) {
+                return WireFormatConfig.SMILE;
+            }
+            if (type.isCompatibleWith(WireFormatConfig.CBOR)) {
+                return WireFormatConfig.CBOR;
+            }
+        }
+        return null;
+    }
+
+    // The plan's ETag for a format: JSON keeps the plain one.
+    private static String etag(String planETag, MediaType binary) {
+        return binary == null ? planETag : etag(planETag, binary.getSubtype());
+    }
+
+    // The plan's ETag for a streamed view: the full view keeps the plain one.
+    private static String etag(String planETag, PlanView view) {
+        return view == PlanView.FULL ? planETag : etag(planETag, view.name().toLowerCase(Locale.ROOT));
+    }
+
+    private static String etag(String planETag, String variant) {
+        return planETag.substring(0, planETag.length() - 1) + "-" + variant + "\"";
+    }
+
+    // Null when the request leaves the solver to the configuration.
+    static Solver parseSolver(String solver) {
+        if (solver == null || solver.isBlank()) {
+            return null;
+        }
+        try {
+            return Solver.of(solver);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static PlanView parseView(String view) {
+        try {
+            return PlanView.valueOf(view.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "view must be 'full' or 'compact'");
+        }
+    }
+
+    private ResponseEntity<IngestResultDto> ingestResponse(IngestResultDto result) {
+        // A malformed body is a bad request even though the records before it were saved.
+        if ("error".equals(result.status())) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+}
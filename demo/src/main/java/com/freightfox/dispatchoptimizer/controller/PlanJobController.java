@@ -0,0 +1,86 @@
+package com.freightfox.dispatchoptimizer.controller;
+
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.dto.PlanJobDto;
+import com.freightfox.dispatchoptimizer.service.PlanJobService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+// Asynchronous counterpart of GET /api/dispatch/plan for plans that take too
+// long to compute within a single HTTP request.
+@RestController
+@RequestMapping("/api/dispatch/plan-jobs")
+@RequiredArgsConstructor
+public class PlanJobController {
+
+    private final PlanJobService planJobService;
+
+    /**
+     * Endpoint to start computing a dispatch plan in the background.
+     * Handles POST requests to /api/dispatch/plan-jobs.
+     * 
+     * @param timeBudgetMs Optional limit on the solve time in milliseconds. When it
+     *                     runs out, the job succeeds with the plan built so far.
+     * @param solver       Optional. "greedy" or "matching"; defaults to the configured solver.
+     * @return 202 Accepted with the job's status and its URL in Location.
+     */
+    @PostMapping
+    public ResponseEntity<PlanJobDto> submit(@RequestParam(required = false) Long timeBudgetMs,
+            @RequestParam(required = false) String solver) {
+        PlanJobDto job;
+        try {
+            job = planJobService.submit(timeBudgetMs, DispatchController.parseSolver(solver));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity
+                .accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.jobId())
+                        .toUri())
+                .body(job);
+    }
+
+    /**
+     * Endpoint to poll a job's state and progress.
+     * Handles GET requests to /api/dispatch/plan-jobs/{id}.
+     */
+    @GetMapping("/{id}")
+    public PlanJobDto status(@PathVariable String id) {
+        return planJobService.status(id).orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Endpoint to fetch the plan of a finished job, in the same format as GET
+     * /api/dispatch/plan. Answers 409 Conflict while the job has no result.
+     * Handles GET requests to /api/dispatch/plan-jobs/{id}/result.
+     */
+    @GetMapping("/{id}/result")
+    public Map<String, List<DispatchPlanDto>> result(@PathVariable String id) {
+        PlanJobDto job = status(id);
+        List<DispatchPlanDto> plan = planJobService.result(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Plan job " + id + " has no result (state " + job.state() + ")"));
+        return Map.of("dispatchPlan", plan);
+    }
+
+    /**
+     * Endpoint to cancel a queued or running job.
+     * Handles DELETE requests to /api/dispatch/plan-jobs/{id}.
+     */
+    @DeleteMapping("/{id}")
+    public PlanJobDto cancel(@PathVariable String id) {
+        return planJobService.cancel(id).orElseThrow(() -> notFound(id));
+    }
+
+    private static ResponseStatusException notFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown plan job " + id);
+    }
+}
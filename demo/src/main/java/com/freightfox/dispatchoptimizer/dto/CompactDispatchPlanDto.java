@@ -0,0 +1,17 @@
+package com.freightfox.dispatchoptimizer.dto;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+
+import java.util.List;
+
+/**
+ * A vehicle's plan with orders reduced to their ids, for large responses.
+ */
+public record CompactDispatchPlanDto(String vehicleId, double totalLoad, String totalDistance,
+        List<String> orderIds) {
+
+    public static CompactDispatchPlanDto of(DispatchPlanDto plan) {
+        return new CompactDispatchPlanDto(plan.getVehicleId(), plan.getTotalLoad(), plan.getTotalDistance(),
+                plan.getAssignedOrders().stream().map(Order::getOrderId).toList());
+    }
+}
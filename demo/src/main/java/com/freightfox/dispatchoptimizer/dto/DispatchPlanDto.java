@@ -12,7 +12,8 @@ import java.util.List;
 public class DispatchPlanDto {
     private String vehicleId;
     private double totalLoad = 0;
-    private String totalDistance; // We will format this as "X.XX km"
+    // "X.XX km", formatted from totalDistanceKm when first read, not on every assignment.
+    private String totalDistance;
     private List<Order> assignedOrders = new ArrayList<>();
 
     // Internal fields for calculation, not exposed in final JSON thanks to @Getter
@@ -25,8 +26,38 @@ public class DispatchPlanDto {
         this.vehicleId = vehicle.getVehicleId();
         this.currentLatitude = vehicle.getCurrentLatitude();
         this.currentLongitude = vehicle.getCurrentLongitude();
-        // Set initial distance to 0
-        this.totalDistance = "0.00 km";
+    }
+
+    /**
+     * Creates a finished plan from values the planner has already computed.
+     *
+     * @param vehicle          The vehicle this plan belongs to.
+     * @param assignedOrders   The orders in drop-off sequence.
+     * @param totalLoad        The combined weight of the assigned orders.
+     * @param totalDistanceKm  The distance driven to complete the route.
+     * @param currentLatitude  The vehicle's latitude after the last drop-off.
+     * @param currentLongitude The vehicle's longitude after the last drop-off.
+     */
+    public DispatchPlanDto(Vehicle vehicle, List<Order> assignedOrders, double totalLoad, double totalDistanceKm,
+            double currentLatitude, double currentLongitude) {
+        this.vehicleId = vehicle.getVehicleId();
+        this.assignedOrders = assignedOrders;
+        this.totalLoad = totalLoad;
+        this.totalDistanceKm = totalDistanceKm;
+        this.currentLatitude = currentLatitude;
+        this.currentLongitude = currentLongitude;
+    }
+
+    /**
+     * The total distance for the API response, as "X.XX km". It is formatted
+     * when first read, typically while the plan is serialized, and kept until
+     * the next order is assigned.
+     */
+    public String getTotalDistance() {
+        if (totalDistance == null) {
+            totalDistance = String.format("%.2f km", totalDistanceKm);
+        }
+        return totalDistance;
     }
 
     /**
@@ -49,7 +80,7 @@ public class DispatchPlanDto {
         this.currentLatitude = order.getLatitude();
         this.currentLongitude = order.getLongitude();
 
-        // Update the formatted string for the final API response
-        this.totalDistance = String.format("%.2f km", this.totalDistanceKm);
+        // The formatted distance is out of date; it is formatted again when read.
+        this.totalDistance = null;
     }
 }
\ No newline at end of file
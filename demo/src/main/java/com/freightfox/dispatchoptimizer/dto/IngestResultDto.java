@@ -0,0 +1,35 @@
+package com.freightfox.dispatchoptimizer.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a streaming bulk upload.
+ *
+ * @param status   "success" if every record was saved, "partial" if some were
+ *                 rejected, "error" if the body could not be parsed.
+ * @param message  A human-readable summary.
+ * @param accepted Records saved.
+ * @param rejected Records skipped because they failed validation.
+ * @param errors   Details for the first rejected records (see
+ *                 {@code dispatch.ingest.max-reported-errors}).
+ * @param batches  One entry per saved batch, in the order they were saved.
+ */
+public record IngestResultDto(String status, String message, long accepted, long rejected,
+        List<RecordError> errors, List<BatchResult> batches) {
+
+    /**
+     * @param record The zero-based position of the record in the upload.
+     * @param errors Field name to error message.
+     */
+    public record RecordError(long record, Map<String, String> errors) {
+    }
+
+    /**
+     * @param batch     The zero-based batch number.
+     * @param saved     Records saved by the batch.
+     * @param elapsedMs Time to write and commit the batch.
+     */
+    public record BatchResult(long batch, int saved, long elapsedMs) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.freightfox.dispatchoptimizer.dto;
+
+import java.time.Instant;
+
+/**
+ * Status of an asynchronous plan job.
+ *
+ * @param jobId           The job id.
+ * @param state           QUEUED, RUNNING, SUCCEEDED, FAILED or CANCELLED.
+ * @param ordersTotal     Orders being planned, once the job has loaded them.
+ * @param ordersAssigned  Orders assigned to a vehicle so far.
+ * @param budgetExhausted Whether the time budget ran out, in which case the
+ *                        result is the partial plan built until then.
+ * @param submittedAt     When the job was submitted.
+ * @param startedAt       When it started running, or null.
+ * @param finishedAt      When it finished, or null.
+ * @param error           Why it failed, or null.
+ */
+public record PlanJobDto(String jobId, String state, int ordersTotal, int ordersAssigned, boolean budgetExhausted,
+        Instant submittedAt, Instant startedAt, Instant finishedAt, String error) {
+}
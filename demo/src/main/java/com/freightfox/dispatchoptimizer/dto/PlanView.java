@@ -0,0 +1,13 @@
+package com.freightfox.dispatchoptimizer.dto;
+
+/**
+ * How much of each vehicle's plan a streamed response includes.
+ */
+public enum PlanView {
+
+    /** Everything GET /api/dispatch/plan returns, full orders included. */
+    FULL,
+
+    /** Vehicle totals and the assigned order ids only. */
+    COMPACT
+}
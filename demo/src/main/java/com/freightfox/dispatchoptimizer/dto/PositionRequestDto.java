@@ -0,0 +1,15 @@
+package com.freightfox.dispatchoptimizer.dto;
+
+import com.freightfox.dispatchoptimizer.model.VehiclePosition;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class PositionRequestDto {
+
+    @NotEmpty(message = "Positions list cannot be empty")
+    @Valid
+    private List<VehiclePosition> positions;
+}
@@ -12,6 +12,7 @@ import jakarta.validation.ConstraintViolationException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 // @ControllerAdvice makes this class a global handler for exceptions across all controllers.
 @ControllerAdvice
@@ -58,4 +59,14 @@ public class GlobalExceptionHandler {
 
         return new ResponseEntity<>(responseBody, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    // Thrown when the plan job queue is full.
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRejectedExecutionException(RejectedExecutionException ex) {
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("status", "error");
+        responseBody.put("message", "Too many plan jobs are queued, try again later");
+
+        return new ResponseEntity<>(responseBody, HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -4,13 +4,17 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalTime;
+
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 @Entity
-@Table(name = "delivery_orders")
+@Table(name = "delivery_orders", indexes = @Index(name = "idx_order_region", columnList = "region"))
 public class Order {
 
     @Id
@@ -33,4 +37,41 @@ public class Order {
     @NotNull(message = "priority is required")
     @Enumerated(EnumType.STRING)
     private Priority priority;
+
+    @NotBlank(message = "region cannot be blank")
+    @Column(nullable = false)
+    private String region = Region.DEFAULT;
+
+    // Optional delivery window, e.g. "09:00" to "12:30". Without an end the
+    // order can arrive at any time; without a start it can arrive early.
+    private LocalTime windowStart;
+
+    private LocalTime windowEnd;
+
+    /**
+     * An order with only the fields the planner reads, as the planning query
+     * loads it. Written out rather than generated, so reordering or adding
+     * fields can never shift which column lands in which parameter.
+     */
+    public Order(String orderId, Double latitude, Double longitude, Double packageWeight, Priority priority,
+            String region, LocalTime windowStart, LocalTime windowEnd) {
+        this.orderId = orderId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.packageWeight = packageWeight;
+        this.priority = priority;
+        this.region = region;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+    }
+
+    /**
+     * A detached copy, so a plan or a snapshot can keep an order that the
+     * request or persistence context it came from may still change.
+     */
+    public Order(Order order) {
+        this(order.orderId, order.latitude, order.longitude, order.packageWeight, order.priority, order.region,
+                order.windowStart, order.windowEnd);
+        this.address = order.address;
+    }
 }
\ No newline at end of file
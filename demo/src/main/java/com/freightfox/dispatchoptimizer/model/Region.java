@@ -0,0 +1,14 @@
+package com.freightfox.dispatchoptimizer.model;
+
+/**
+ * Orders and vehicles belong to a region (typically a depot). Regions are
+ * planned independently: an order only ever goes to a vehicle of its own region.
+ */
+public final class Region {
+
+    /** The region of orders and vehicles posted without one. */
+    public static final String DEFAULT = "default";
+
+    private Region() {
+    }
+}
@@ -1,16 +1,22 @@
 package com.freightfox.dispatchoptimizer.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_vehicle_region", columnList = "region"))
 public class Vehicle {
 
     @Id
@@ -29,4 +35,37 @@ public class Vehicle {
 
     @NotBlank(message = "currentAddress cannot be blank")
     private String currentAddress;
+
+    @NotBlank(message = "region cannot be blank")
+    @Column(nullable = false)
+    private String region = Region.DEFAULT;
+
+    // Average driving speed for arrival times; the configured default if unset.
+    @Positive(message = "speedKmh must be a positive number")
+    private Double speedKmh;
+
+    /**
+     * A vehicle with only the fields the planner reads, as the planning query
+     * loads it. Written out rather than generated, so reordering or adding
+     * fields can never shift which column lands in which parameter.
+     */
+    public Vehicle(String vehicleId, Double capacity, Double currentLatitude, Double currentLongitude, String region,
+            Double speedKmh) {
+        this.vehicleId = vehicleId;
+        this.capacity = capacity;
+        this.currentLatitude = currentLatitude;
+        this.currentLongitude = currentLongitude;
+        this.region = region;
+        this.speedKmh = speedKmh;
+    }
+
+    /**
+     * A detached copy, so a plan or a snapshot can keep a vehicle that the
+     * request or persistence context it came from may still change.
+     */
+    public Vehicle(Vehicle vehicle) {
+        this(vehicle.vehicleId, vehicle.capacity, vehicle.currentLatitude, vehicle.currentLongitude, vehicle.region,
+                vehicle.speedKmh);
+        this.currentAddress = vehicle.currentAddress;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.freightfox.dispatchoptimizer.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Instant;
+
+/**
+ * A position reported by a vehicle's tracker. Only moves the vehicle; its
+ * other details are left as they were last posted.
+ *
+ * @param reportedAt When the position was taken. Pings may arrive out of
+ *                   order, and an older one never replaces a newer one.
+ *                   Defaults to the time it is received.
+ */
+public record VehiclePosition(
+        @NotBlank(message = "vehicleId cannot be blank") String vehicleId,
+        @NotNull(message = "latitude is required") Double latitude,
+        @NotNull(message = "longitude is required") Double longitude,
+        Instant reportedAt) {
+
+    public VehiclePosition {
+        if (reportedAt == null) {
+            reportedAt = Instant.now();
+        }
+    }
+
+    /** @return Whichever of the two was reported last, or {@code next} on a tie. */
+    public static VehiclePosition latest(VehiclePosition known, VehiclePosition next) {
+        return next.reportedAt().isBefore(known.reportedAt()) ? known : next;
+    }
+}
@@ -0,0 +1,94 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import java.util.Arrays;
+
+/**
+ * Solves a sparse min-cost assignment with Bertsekas' auction algorithm: each
+ * bidder (order) gets at most one object (vehicle), each object at most one
+ * bidder, and the total cost of the pairs is minimal.
+ *
+ * Unassigned bidders bid for the object that is cheapest for them at current
+ * prices, raising its price by how much better it is than their second choice
+ * plus {@code epsilon}, and outbidding its holder. Every bidder can also stay
+ * unmatched at its own {@code unmatchedCost}, so bidders whose candidates are
+ * all taken drop out instead of bidding prices up forever. The result is within
+ * {@code bidders * epsilon} of the optimum.
+ *
+ * There is no epsilon scaling: prices carried over from a coarser phase can
+ * leave an object priced above what any bidder will pay, which is only sound
+ * when every object must be assigned. Here bidders may stay unmatched, so
+ * every object without an owner has to keep a price of zero.
+ *
+ * Arcs are given in compressed rows: bidder {@code i}'s arcs are
+ * {@code arcStart[i]} up to {@code arcStart[i + 1]}.
+ */
+final class AuctionMatcher {
+
+    private AuctionMatcher() {
+    }
+
+    /**
+     * @param bidders       Number of bidders.
+     * @param objects       Number of objects; arcs refer to them as 0..objects-1.
+     * @param arcStart      Offset of each bidder's first arc, plus the total at the end.
+     * @param arcObject     The object each arc leads to.
+     * @param arcCost       The cost of each arc.
+     * @param unmatchedCost What it costs to leave each bidder without an object.
+     * @param epsilon       Largest acceptable loss per bidder versus the optimum.
+     * @return The object of each bidder, or -1 if it stays unmatched.
+     */
+    static int[] solve(int bidders, int objects, int[] arcStart, int[] arcObject, double[] arcCost,
+            double[] unmatchedCost, double epsilon) {
+        double[] price = new double[objects];
+        int[] owner = new int[objects];
+        int[] assigned = new int[bidders];
+        Arrays.fill(owner, -1);
+        Arrays.fill(assigned, -1);
+
+        // Bidders waiting to bid, as a stack; a bidder that is outbid goes back on it.
+        int[] queue = new int[bidders];
+        for (int i = 0; i < bidders; i++) {
+            queue[i] = bidders - 1 - i;
+        }
+        int queued = bidders;
+        while (queued > 0) {
+            int bidder = queue[--queued];
+            int outbid = bid(bidder, arcStart, arcObject, arcCost, unmatchedCost, epsilon, price, owner, assigned);
+            if (outbid >= 0) {
+                queue[queued++] = outbid;
+            }
+        }
+        return assigned;
+    }
+
+    // One bid. Returns the bidder that lost its object to it, or -1.
+    private static int bid(int bidder, int[] arcStart, int[] arcObject, double[] arcCost, double[] unmatchedCost,
+            double epsilon, double[] price, int[] owner, int[] assigned) {
+        // Values are negated costs net of price; staying unmatched is always an option.
+        int best = -1;
+        double bestValue = -unmatchedCost[bidder];
+        double secondValue = Double.NEGATIVE_INFINITY;
+        for (int a = arcStart[bidder]; a < arcStart[bidder + 1]; a++) {
+            double value = -arcCost[a] - price[arcObject[a]];
+            if (value > bestValue) {
+                secondValue = bestValue;
+                bestValue = value;
+                best = arcObject[a];
+            } else if (value > secondValue) {
+                secondValue = value;
+            }
+        }
+        if (best < 0) {
+            return -1; // Better off unmatched; nobody else can claim that.
+        }
+
+        price[best] += bestValue - secondValue + epsilon;
+        int previous = owner[best];
+        owner[best] = bidder;
+        assigned[bidder] = best;
+        if (previous >= 0) {
+            assigned[previous] = -1;
+        }
+        return previous;
+    }
+}
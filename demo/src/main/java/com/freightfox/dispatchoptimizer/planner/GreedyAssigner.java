@@ -0,0 +1,112 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * The core greedy loop: walks the orders in the sequence given and hands each
+ * one to the closest vehicle that still has room for it and, if the order has
+ * a delivery window, can get there in time.
+ */
+public class GreedyAssigner implements OrderAssigner {
+
+    private final VehicleIndexType indexType;
+    private final DistanceMetric rankingMetric;
+    private final PlanningProgress progress;
+
+    public GreedyAssigner(VehicleIndexType indexType, DistanceMetric rankingMetric) {
+        this(indexType, rankingMetric, PlanningProgress.untracked());
+    }
+
+    /**
+     * @param progress Counts assigned orders and can stop the loop early, in
+     *                 which case the orders not yet reached are returned as
+     *                 unassigned.
+     */
+    public GreedyAssigner(VehicleIndexType indexType, DistanceMetric rankingMetric, PlanningProgress progress) {
+        this.indexType = indexType;
+        this.rankingMetric = rankingMetric;
+        this.progress = progress;
+    }
+
+    @Override
+    public int[] assign(PlanningState state, int[] orders, int[] vehicles) {
+        PlanningProblem problem = state.problem();
+        VehicleIndex vehicleIndex = VehicleIndex.create(indexType, rankingMetric, state, vehicles);
+        double[] lightestFrom = lightestRemaining(problem, orders);
+        WindowCheck inTime = problem.hasTimeWindows ? new WindowCheck(state, vehicles) : null;
+        int[] unassigned = new int[orders.length];
+        int unassignedCount = 0;
+        int assignedSinceCheck = 0;
+
+        for (int i = 0; i < orders.length; i++) {
+            if (i % PlanningProgress.CHECK_INTERVAL == 0) {
+                progress.ordersAssigned(assignedSinceCheck);
+                assignedSinceCheck = 0;
+                if (progress.shouldStop()) {
+                    // Out of time or cancelled: keep what is planned so far.
+                    int remaining = orders.length - i;
+                    System.arraycopy(orders, i, unassigned, unassignedCount, remaining);
+                    progress.lookupsDone(vehicleIndex);
+                    return Arrays.copyOf(unassigned, unassignedCount + remaining);
+                }
+            }
+
+            // Vehicles too full for every order still to come leave the index for good.
+            vehicleIndex.retire(lightestFrom[i]);
+
+            int order = orders[i];
+            if (inTime != null) {
+                inTime.order = order;
+            }
+            int best = vehicleIndex.findNearest(problem.orderPoints, order, problem.orderWeight[order], inTime);
+
+            if (best >= 0) {
+                // If a suitable vehicle is found, assign the order to it and move
+                // the vehicle to the drop-off point in the index.
+                int vehicle = vehicles[best];
+                state.assign(order, vehicle);
+                vehicleIndex.update(best, state.position, vehicle, state.remainingCapacity(vehicle));
+                assignedSinceCheck++;
+            } else {
+                // No vehicle could take this order (e.g., due to capacity or its window).
+                unassigned[unassignedCount++] = order;
+            }
+        }
+        progress.ordersAssigned(assignedSinceCheck);
+        progress.lookupsDone(vehicleIndex);
+        return Arrays.copyOf(unassigned, unassignedCount);
+    }
+
+    // Asks the state whether a vehicle, by its index position, makes the
+    // current order's window. One instance is reused for every order.
+    private static final class WindowCheck implements IntPredicate {
+
+        private final PlanningState state;
+        private final int[] vehicles;
+        int order;
+
+        WindowCheck(PlanningState state, int[] vehicles) {
+            this.state = state;
+            this.vehicles = vehicles;
+        }
+
+        @Override
+        public boolean test(int position) {
+            return state.canReach(order, vehicles[position]);
+        }
+    }
+
+    // The lightest weight among orders[i..], for each i.
+    static double[] lightestRemaining(PlanningProblem problem, int[] orders) {
+        double[] lightest = new double[orders.length];
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = orders.length - 1; i >= 0; i--) {
+            min = Math.min(min, problem.orderWeight[orders[i]]);
+            lightest[i] = min;
+        }
+        return lightest;
+    }
+}
@@ -0,0 +1,279 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * A 3-d tree over the vehicles' positions projected onto the unit sphere.
+ *
+ * Straight-line (chord) distance between two points on the unit sphere grows
+ * monotonically with their great-circle distance, so the vehicle nearest by
+ * Euclidean distance here is also the nearest by haversine, and the usual
+ * k-d tree pruning is exact. Each node also tracks the largest remaining
+ * capacity in its subtree, which lets a query skip whole branches of vehicles
+ * that are too full for the order.
+ *
+ * Moving a vehicle tombstones its old node and inserts a fresh leaf; the tree
+ * is rebuilt from the live nodes once tombstones outnumber them or an insert
+ * lands too deep, which keeps updates amortized O(log n). Retired vehicles are
+ * tombstoned without a replacement, so rebuilds shed them for good.
+ */
+public class KdTreeVehicleIndex implements VehicleIndex {
+
+    private static final int DIMENSIONS = 3;
+
+    private static final class Node {
+        final int vehicle;
+        final double[] point;
+        final double remaining;
+        int axis;
+        boolean deleted;
+        double maxRemaining;
+        Node left;
+        Node right;
+        Node parent;
+
+        Node(int vehicle, double[] point, double remaining) {
+            this.vehicle = vehicle;
+            this.point = point;
+            this.remaining = remaining;
+            this.maxRemaining = remaining;
+        }
+    }
+
+    // The current (live) node of each vehicle, null once it is retired.
+    private final Node[] liveNodes;
+    private int liveCount;
+    private Node root;
+    private int deletedNodes;
+    private int maxDepth;
+    private double retiredBelow = Double.NEGATIVE_INFINITY;
+
+    // Per-query state, kept in fields to avoid allocating on every search.
+    private double bestDistance;
+    private int bestVehicle;
+    private IntPredicate accept;
+
+    private long distanceEvaluations;
+    private long capacityRejections;
+
+    public KdTreeVehicleIndex(GeoPoints positions, double[] remainingCapacities) {
+        this.liveNodes = new Node[positions.size()];
+        for (int v = 0; v < liveNodes.length; v++) {
+            liveNodes[v] = new Node(v, unitVector(positions, v), remainingCapacities[v]);
+        }
+        liveCount = liveNodes.length;
+        rebuild();
+    }
+
+    @Override
+    public int findNearest(GeoPoints points, int point, double weight, IntPredicate accept) {
+        bestDistance = Double.POSITIVE_INFINITY;
+        bestVehicle = -1;
+        this.accept = accept;
+        search(root, unitVector(points, point), weight);
+        this.accept = null;
+        return bestVehicle;
+    }
+
+    @Override
+    public long distanceEvaluations() {
+        return distanceEvaluations;
+    }
+
+    @Override
+    public long capacityRejections() {
+        return capacityRejections;
+    }
+
+    @Override
+    public void update(int vehicle, GeoPoints points, int point, double remainingCapacity) {
+        delete(vehicle);
+        if (remainingCapacity < retiredBelow) {
+            liveNodes[vehicle] = null;
+            liveCount--;
+            rebuildIfSparse();
+            return;
+        }
+
+        Node fresh = new Node(vehicle, unitVector(points, point), remainingCapacity);
+        liveNodes[vehicle] = fresh;
+
+        if (insert(fresh) > maxDepth) {
+            rebuild();
+        } else {
+            rebuildIfSparse();
+        }
+    }
+
+    @Override
+    public void retire(double minWeight) {
+        if (minWeight <= retiredBelow) {
+            return;
+        }
+        retiredBelow = minWeight;
+        for (int v = 0; v < liveNodes.length; v++) {
+            if (liveNodes[v] != null && liveNodes[v].remaining < minWeight) {
+                delete(v);
+                liveNodes[v] = null;
+                liveCount--;
+            }
+        }
+        rebuildIfSparse();
+    }
+
+    private void delete(int vehicle) {
+        Node old = liveNodes[vehicle];
+        old.deleted = true;
+        deletedNodes++;
+        refreshUpwards(old);
+    }
+
+    private void rebuildIfSparse() {
+        if (deletedNodes > liveCount) {
+            rebuild();
+        }
+    }
+
+    private void search(Node node, double[] query, double weight) {
+        if (node == null) {
+            return;
+        }
+        if (node.maxRemaining < weight) {
+            capacityRejections++; // A whole subtree skipped counts once.
+            return; // Nothing in this subtree can carry the order.
+        }
+
+        if (!node.deleted && weight > node.remaining) {
+            capacityRejections++;
+        } else if (!node.deleted) {
+            distanceEvaluations++;
+            double distance = squaredDistance(node.point, query);
+            if ((distance < bestDistance || (distance == bestDistance && node.vehicle < bestVehicle))
+                    && (accept == null || accept.test(node.vehicle))) {
+                bestDistance = distance;
+                bestVehicle = node.vehicle;
+            }
+        }
+
+        double delta = query[node.axis] - node.point[node.axis];
+        Node near = delta < 0 ? node.left : node.right;
+        Node far = delta < 0 ? node.right : node.left;
+
+        search(near, query, weight);
+        // Only cross the splitting plane if it is closer than the best match so far.
+        if (delta * delta <= bestDistance) {
+            search(far, query, weight);
+        }
+    }
+
+    /**
+     * Inserts a leaf below the existing tree.
+     *
+     * @return The depth at which the node was inserted.
+     */
+    private int insert(Node node) {
+        if (root == null) {
+            node.axis = 0;
+            root = node;
+            return 0;
+        }
+
+        Node current = root;
+        int depth = 1;
+        while (true) {
+            // Keep the capacity bound valid along the whole insertion path.
+            current.maxRemaining = Math.max(current.maxRemaining, node.remaining);
+            boolean goLeft = node.point[current.axis] < current.point[current.axis];
+            Node next = goLeft ? current.left : current.right;
+            if (next == null) {
+                node.axis = (current.axis + 1) % DIMENSIONS;
+                node.parent = current;
+                if (goLeft) {
+                    current.left = node;
+                } else {
+                    current.right = node;
+                }
+                return depth;
+            }
+            current = next;
+            depth++;
+        }
+    }
+
+    private void refreshUpwards(Node node) {
+        for (Node n = node; n != null; n = n.parent) {
+            double max = n.deleted ? Double.NEGATIVE_INFINITY : n.remaining;
+            if (n.left != null) {
+                max = Math.max(max, n.left.maxRemaining);
+            }
+            if (n.right != null) {
+                max = Math.max(max, n.right.maxRemaining);
+            }
+            n.maxRemaining = max;
+        }
+    }
+
+    private void rebuild() {
+        List<Node> nodes = new ArrayList<>(liveCount);
+        for (Node node : liveNodes) {
+            if (node == null) {
+                continue;
+            }
+            node.left = null;
+            node.right = null;
+            node.parent = null;
+            nodes.add(node);
+        }
+        root = build(nodes, 0, nodes.size(), 0, null);
+        deletedNodes = 0;
+
+        // Allow inserts to grow the tree to a few times its balanced height before rebuilding.
+        int balancedHeight = 32 - Integer.numberOfLeadingZeros(Math.max(1, nodes.size()));
+        maxDepth = 3 * balancedHeight + 8;
+    }
+
+    private Node build(List<Node> nodes, int from, int to, int axis, Node parent) {
+        if (from >= to) {
+            return null;
+        }
+
+        nodes.subList(from, to).sort(Comparator.comparingDouble(n -> n.point[axis]));
+        int median = (from + to) >>> 1;
+        // Equal coordinates must sit in the right subtree to match insert() and search().
+        while (median > from && nodes.get(median - 1).point[axis] == nodes.get(median).point[axis]) {
+            median--;
+        }
+
+        Node node = nodes.get(median);
+        node.axis = axis;
+        node.parent = parent;
+        int nextAxis = (axis + 1) % DIMENSIONS;
+        node.left = build(nodes, from, median, nextAxis, node);
+        node.right = build(nodes, median + 1, to, nextAxis, node);
+
+        node.maxRemaining = node.remaining;
+        if (node.left != null) {
+            node.maxRemaining = Math.max(node.maxRemaining, node.left.maxRemaining);
+        }
+        if (node.right != null) {
+            node.maxRemaining = Math.max(node.maxRemaining, node.right.maxRemaining);
+        }
+        return node;
+    }
+
+    private static double[] unitVector(GeoPoints points, int i) {
+        return new double[] { points.x[i], points.y[i], points.z[i] };
+    }
+
+    private static double squaredDistance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,155 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.DistanceCalculator;
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+
+import java.util.function.IntPredicate;
+
+/**
+ * The brute-force lookup: every query scores the vehicles in batch passes with
+ * the configured ranking metric, then picks the closest one with enough
+ * capacity.
+ *
+ * Vehicles are packed into the front of the arrays and scanned in blocks of
+ * {@value #BLOCK}. Each block remembers the largest remaining capacity in it,
+ * so a heavy order skips blocks of vehicles too full to take it without
+ * scoring them, and retired vehicles are moved out of the scanned range
+ * altogether.
+ */
+public class LinearVehicleIndex implements VehicleIndex {
+
+    private static final int BLOCK = 64;
+
+    private final DistanceMetric rankingMetric;
+    // Indexed by slot; slots 0..active-1 hold the vehicles still in play.
+    private final GeoPoints positions;
+    private final double[] remainingCapacities;
+    private final int[] slotVehicle;
+    private final double[] scores;
+    private final int[] vehicleSlot; // -1 once the vehicle is retired.
+    private final double[] blockMaxRemaining;
+    private int active;
+    private double retiredBelow = Double.NEGATIVE_INFINITY;
+
+    private long distanceEvaluations;
+    private long capacityRejections;
+
+    public LinearVehicleIndex(DistanceMetric rankingMetric, GeoPoints positions, double[] remainingCapacities) {
+        int n = positions.size();
+        this.rankingMetric = rankingMetric;
+        this.positions = positions.copy();
+        this.remainingCapacities = remainingCapacities.clone();
+        this.slotVehicle = new int[n];
+        this.vehicleSlot = new int[n];
+        this.scores = new double[n];
+        this.blockMaxRemaining = new double[(n + BLOCK - 1) / BLOCK];
+        for (int v = 0; v < n; v++) {
+            slotVehicle[v] = v;
+            vehicleSlot[v] = v;
+        }
+        this.active = n;
+        for (int b = 0; b < blockMaxRemaining.length; b++) {
+            refreshBlock(b);
+        }
+    }
+
+    @Override
+    public int findNearest(GeoPoints points, int point, double weight, IntPredicate accept) {
+        double minScore = Double.MAX_VALUE;
+        int best = -1;
+        int rejected = 0;
+        int evaluated = 0;
+        for (int b = 0, from = 0; from < active; b++, from += BLOCK) {
+            int to = Math.min(from + BLOCK, active);
+            if (blockMaxRemaining[b] < weight) {
+                rejected += to - from; // No vehicle in this block can take the order.
+                continue;
+            }
+
+            DistanceCalculator.score(rankingMetric, positions, from, to, points, point, scores);
+            evaluated += to - from;
+            for (int s = from; s < to; s++) {
+                // Constraint 1: the vehicle must have enough capacity for this order.
+                // Constraint 2: among those, find the closest vehicle.
+                boolean fits = weight <= remainingCapacities[s];
+                rejected += fits ? 0 : 1;
+                // Slots get shuffled as vehicles retire, so break ties on the vehicle itself.
+                if (fits && (scores[s] < minScore || (scores[s] == minScore && slotVehicle[s] < best))
+                        && (accept == null || accept.test(slotVehicle[s]))) {
+                    minScore = scores[s];
+                    best = slotVehicle[s];
+                }
+            }
+        }
+        distanceEvaluations += evaluated;
+        capacityRejections += rejected;
+        return best;
+    }
+
+    @Override
+    public long distanceEvaluations() {
+        return distanceEvaluations;
+    }
+
+    @Override
+    public long capacityRejections() {
+        return capacityRejections;
+    }
+
+    @Override
+    public void update(int vehicle, GeoPoints points, int point, double remainingCapacity) {
+        int slot = vehicleSlot[vehicle];
+        positions.copy(slot, points, point);
+        remainingCapacities[slot] = remainingCapacity;
+        if (remainingCapacity < retiredBelow) {
+            int last = active - 1;
+            removeSlot(slot);
+            refreshBlock(slot / BLOCK);
+            refreshBlock(last / BLOCK);
+        } else {
+            refreshBlock(slot / BLOCK);
+        }
+    }
+
+    @Override
+    public void retire(double minWeight) {
+        if (minWeight <= retiredBelow) {
+            return;
+        }
+        retiredBelow = minWeight;
+
+        int before = active;
+        // Walk backwards so the vehicle moved into a freed slot has already been checked.
+        for (int s = active - 1; s >= 0; s--) {
+            if (remainingCapacities[s] < minWeight) {
+                removeSlot(s);
+            }
+        }
+        if (active != before) {
+            for (int b = 0; b * BLOCK < before; b++) {
+                refreshBlock(b);
+            }
+        }
+    }
+
+    // Fills the slot with the last vehicle in play, leaving the blocks to the caller.
+    private void removeSlot(int slot) {
+        int last = --active;
+        vehicleSlot[slotVehicle[slot]] = -1;
+        if (slot != last) {
+            positions.copy(slot, positions, last);
+            remainingCapacities[slot] = remainingCapacities[last];
+            slotVehicle[slot] = slotVehicle[last];
+            vehicleSlot[slotVehicle[slot]] = slot;
+        }
+    }
+
+    private void refreshBlock(int block) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int s = block * BLOCK, end = Math.min(s + BLOCK, active); s < end; s++) {
+            max = Math.max(max, remainingCapacities[s]);
+        }
+        blockMaxRemaining[block] = max;
+    }
+}
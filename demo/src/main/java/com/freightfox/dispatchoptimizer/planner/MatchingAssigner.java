@@ -0,0 +1,241 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Assigns orders a window at a time instead of one by one: the orders of a
+ * window are matched to vehicles so that the total distance driven to them is
+ * as small as possible, rather than each taking the closest vehicle left.
+ *
+ * Windows hold up to {@code windowSize} consecutive orders and never mix
+ * priorities, so HIGH orders are still all planned before MEDIUM and LOW.
+ * Within a window, each order is linked to its {@code candidates} nearest
+ * vehicles that have room for it and, if it has a delivery window, make it in
+ * time. The min-cost assignment over that sparse graph is solved with an
+ * auction ({@link AuctionMatcher}). Each vehicle takes at most one order per
+ * round, so capacity and delivery windows are checked exactly; the matched
+ * vehicles then move to their drop-offs and the rest of the window is matched
+ * again, until every order is placed or has no vehicle left that could take it.
+ *
+ * An order is only sent up to {@code maxDetour} farther than its nearest
+ * candidate in a round. Without that limit, a round spreads its orders over
+ * every vehicle it can reach, where sequential assignment would let a nearby
+ * vehicle chain several of them, and long routes come out longer than greedy.
+ */
+public class MatchingAssigner implements OrderAssigner {
+
+    // Matching is accurate to within a metre per order.
+    private static final double EPSILON_KM = 0.001;
+
+    private final VehicleIndexType indexType;
+    private final DistanceMetric rankingMetric;
+    private final int windowSize;
+    private final int candidates;
+    private final double maxDetour;
+    private final PlanningProgress progress;
+
+    /**
+     * @param windowSize Orders matched together, at most.
+     * @param candidates Nearest feasible vehicles considered for each order.
+     * @param maxDetour  How much farther than its nearest candidate an order
+     *                   may be sent in one round, as a fraction of that
+     *                   distance; otherwise it waits for the next round.
+     * @param progress   Counts assigned orders and can stop the run between
+     *                   windows, in which case the orders not yet reached are
+     *                   returned as unassigned.
+     */
+    public MatchingAssigner(VehicleIndexType indexType, DistanceMetric rankingMetric, int windowSize, int candidates,
+            double maxDetour, PlanningProgress progress) {
+        this.indexType = indexType;
+        this.rankingMetric = rankingMetric;
+        this.windowSize = Math.max(1, windowSize);
+        this.candidates = Math.max(1, candidates);
+        this.maxDetour = Math.max(0, maxDetour);
+        this.progress = progress;
+    }
+
+    @Override
+    public int[] assign(PlanningState state, int[] orders, int[] vehicles) {
+        PlanningProblem problem = state.problem();
+        Window window = new Window(state, VehicleIndex.create(indexType, rankingMetric, state, vehicles), vehicles);
+        double[] lightestFrom = GreedyAssigner.lightestRemaining(problem, orders);
+
+        for (int start = 0; start < orders.length;) {
+            if (progress.shouldStop()) {
+                // Out of time or cancelled: keep what is planned so far.
+                window.leaveUnassigned(orders, start, orders.length);
+                break;
+            }
+            // Vehicles too full for every order still to come leave the index for good.
+            window.index.retire(lightestFrom[start]);
+
+            int end = start + 1;
+            int priority = problem.orderPriority[orders[start]];
+            while (end < orders.length && end - start < windowSize && problem.orderPriority[orders[end]] == priority) {
+                end++;
+            }
+            progress.ordersAssigned(window.match(orders, start, end));
+            start = end;
+        }
+        progress.lookupsDone(window.index);
+        return Arrays.copyOf(window.unassigned, window.unassignedCount);
+    }
+
+    // The working buffers for matching one window after another.
+    private final class Window implements IntPredicate {
+
+        private final PlanningState state;
+        private final PlanningProblem problem;
+        private final VehicleIndex index;
+        private final int[] vehicles;
+
+        final int[] unassigned;
+        int unassignedCount;
+
+        // Sparse graph of the current round, in compressed rows per order.
+        private int[] pending;
+        private int[] arcStart;
+        private int[] arcObject;
+        private double[] arcCost;
+        // Auction object of each vehicle position, -1 if it is no order's candidate.
+        private final int[] objectOf;
+        private int[] positionOf;
+
+        // The order whose candidates are being collected, and those found so far.
+        private int order;
+        private final int[] picked;
+        private int pickedCount;
+
+        Window(PlanningState state, VehicleIndex index, int[] vehicles) {
+            this.state = state;
+            this.problem = state.problem();
+            this.index = index;
+            this.vehicles = vehicles;
+            this.unassigned = new int[problem.orderCount];
+            this.objectOf = new int[vehicles.length];
+            Arrays.fill(objectOf, -1);
+            this.picked = new int[candidates];
+        }
+
+        void leaveUnassigned(int[] orders, int from, int to) {
+            System.arraycopy(orders, from, unassigned, unassignedCount, to - from);
+            unassignedCount += to - from;
+        }
+
+        /**
+         * Matches orders[from..to) in rounds until none is left that a vehicle could take.
+         *
+         * @return How many of them were assigned.
+         */
+        int match(int[] orders, int from, int to) {
+            pending = Arrays.copyOfRange(orders, from, to);
+            int pendingCount = pending.length;
+            int assigned = 0;
+
+            while (pendingCount > 0) {
+                int objects = buildGraph(pendingCount);
+                int[] matched = solve(pendingCount, objects);
+
+                // Matched orders are placed; the others go again if they had a
+                // candidate, and otherwise no vehicle can take them at all.
+                int next = 0;
+                int placed = 0;
+                for (int i = 0; i < pendingCount; i++) {
+                    int o = pending[i];
+                    if (matched[i] >= 0) {
+                        int position = positionOf[matched[i]];
+                        int vehicle = vehicles[position];
+                        state.assign(o, vehicle);
+                        index.update(position, state.position, vehicle, state.remainingCapacity(vehicle));
+                        placed++;
+                    } else if (arcStart[i + 1] > arcStart[i]) {
+                        pending[next++] = o;
+                    } else {
+                        unassigned[unassignedCount++] = o;
+                    }
+                }
+                for (int object = 0; object < objects; object++) {
+                    objectOf[positionOf[object]] = -1;
+                }
+                assigned += placed;
+                if (placed == 0) {
+                    // Cannot happen, the first bid always wins; never loop on it anyway.
+                    leaveUnassigned(pending, 0, next);
+                    break;
+                }
+                pendingCount = next;
+            }
+            return assigned;
+        }
+
+        // Links each pending order to its nearest feasible vehicles. Returns the
+        // number of distinct vehicles involved, which become the auction's objects.
+        private int buildGraph(int pendingCount) {
+            int maxArcs = pendingCount * candidates;
+            if (arcObject == null || arcObject.length < maxArcs) {
+                arcObject = new int[maxArcs];
+                arcCost = new double[maxArcs];
+                positionOf = new int[Math.min(maxArcs, vehicles.length)];
+            }
+            arcStart = new int[pendingCount + 1];
+
+            int arcs = 0;
+            int objects = 0;
+            for (int i = 0; i < pendingCount; i++) {
+                order = pending[i];
+                pickedCount = 0;
+                while (pickedCount < candidates) {
+                    int position = index.findNearest(problem.orderPoints, order, problem.orderWeight[order], this);
+                    if (position < 0) {
+                        break;
+                    }
+                    picked[pickedCount++] = position;
+                    if (objectOf[position] < 0) {
+                        objectOf[position] = objects;
+                        positionOf[objects++] = position;
+                    }
+                    arcObject[arcs] = objectOf[position];
+                    arcCost[arcs++] = state.travelKm(order, vehicles[position]);
+                }
+                arcStart[i + 1] = arcs;
+            }
+            return objects;
+        }
+
+        private int[] solve(int pendingCount, int objects) {
+            if (objects == 0) {
+                int[] none = new int[pendingCount];
+                Arrays.fill(none, -1);
+                return none;
+            }
+            // Leaving an order out for this round costs a little more than a
+            // detour of maxDetour, so it only takes a vehicle that much farther
+            // than its nearest one; otherwise it goes again once vehicles moved.
+            double[] unmatchedCost = new double[pendingCount];
+            for (int i = 0; i < pendingCount; i++) {
+                double nearest = Double.MAX_VALUE;
+                for (int a = arcStart[i]; a < arcStart[i + 1]; a++) {
+                    nearest = Math.min(nearest, arcCost[a]);
+                }
+                unmatchedCost[i] = nearest * (1 + maxDetour) + EPSILON_KM;
+            }
+            return AuctionMatcher.solve(pendingCount, objects, arcStart, arcObject, arcCost, unmatchedCost,
+                    EPSILON_KM);
+        }
+
+        // Accepts a vehicle position for the current order if it is not already
+        // a candidate and can make the order's delivery window.
+        @Override
+        public boolean test(int position) {
+            for (int i = 0; i < pickedCount; i++) {
+                if (picked[i] == position) {
+                    return false;
+                }
+            }
+            return !problem.hasTimeWindows || state.canReach(order, vehicles[position]);
+        }
+    }
+}
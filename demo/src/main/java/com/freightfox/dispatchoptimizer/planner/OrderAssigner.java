@@ -0,0 +1,32 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import java.util.Arrays;
+
+/**
+ * Hands orders to vehicles, appending each to the end of a vehicle's route.
+ * See {@link Solver} for the available strategies.
+ */
+public interface OrderAssigner {
+
+    /**
+     * Assigns orders to a subset of the fleet. Vehicles may already hold orders;
+     * each one continues from its current position with its remaining capacity.
+     *
+     * @param state    The plan being built, updated in place.
+     * @param orders   The order ids to assign, already in priority order.
+     * @param vehicles The vehicle ids that may take them.
+     * @return The order ids that no vehicle could take.
+     */
+    int[] assign(PlanningState state, int[] orders, int[] vehicles);
+
+    /**
+     * Assigns orders across the whole fleet.
+     *
+     * @see #assign(PlanningState, int[], int[])
+     */
+    default int[] assign(PlanningState state, int[] orders) {
+        int[] vehicles = new int[state.problem().vehicleCount];
+        Arrays.setAll(vehicles, v -> v);
+        return assign(state, orders, vehicles);
+    }
+}
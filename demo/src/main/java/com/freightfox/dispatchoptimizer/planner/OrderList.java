@@ -0,0 +1,99 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link OrderTable} over Order objects on the heap. Unlike other tables,
+ * it can take new orders and swap in re-saved copies, which the incremental
+ * plan relies on.
+ */
+final class OrderList implements OrderTable {
+
+    private final List<Order> orders;
+    private Map<String, Integer> ids; // Built on first lookup.
+
+    OrderList(List<Order> orders) {
+        this.orders = new ArrayList<>(orders);
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+
+    @Override
+    public String orderId(int order) {
+        return orders.get(order).getOrderId();
+    }
+
+    @Override
+    public String region(int order) {
+        return orders.get(order).getRegion();
+    }
+
+    @Override
+    public double latitude(int order) {
+        return orders.get(order).getLatitude();
+    }
+
+    @Override
+    public double longitude(int order) {
+        return orders.get(order).getLongitude();
+    }
+
+    @Override
+    public double weight(int order) {
+        return orders.get(order).getPackageWeight();
+    }
+
+    @Override
+    public int priority(int order) {
+        return orders.get(order).getPriority().ordinal();
+    }
+
+    @Override
+    public LocalTime windowStart(int order) {
+        return orders.get(order).getWindowStart();
+    }
+
+    @Override
+    public LocalTime windowEnd(int order) {
+        return orders.get(order).getWindowEnd();
+    }
+
+    @Override
+    public Order order(int order) {
+        return orders.get(order);
+    }
+
+    @Override
+    public int indexOf(String orderId) {
+        return ids().getOrDefault(orderId, -1);
+    }
+
+    /** Appends an order; its solver id is the previous size. */
+    void add(Order order) {
+        ids().put(order.getOrderId(), orders.size());
+        orders.add(order);
+    }
+
+    void set(int order, Order replacement) {
+        orders.set(order, replacement);
+    }
+
+    private Map<String, Integer> ids() {
+        if (ids == null) {
+            ids = new HashMap<>();
+            for (int o = 0; o < orders.size(); o++) {
+                ids.put(orders.get(o).getOrderId(), o);
+            }
+        }
+        return ids;
+    }
+}
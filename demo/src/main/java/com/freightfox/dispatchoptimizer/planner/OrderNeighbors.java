@@ -0,0 +1,162 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+
+import java.util.Arrays;
+
+/**
+ * The k nearest other orders of every order, for local search moves that only
+ * consider placing an order next to orders close to it.
+ *
+ * Built with a static k-d tree over the orders' unit-sphere positions, where
+ * chord distance ranks the same as great-circle distance.
+ */
+final class OrderNeighbors {
+
+    private final GeoPoints points;
+    private final int k;
+    private final int[] tree; // Order ids, median of each range at its midpoint.
+    private final byte[] splitAxis; // Axis each range's midpoint splits on: 0 = x, 1 = y, 2 = z.
+    private final int[] neighbors; // k per order id, nearest first, -1 padded.
+
+    /**
+     * @param points The order positions.
+     * @param orders The orders to index; only these are found as neighbors.
+     * @param k      Neighbors to keep per order.
+     */
+    OrderNeighbors(GeoPoints points, int[] orders, int k) {
+        this.points = points;
+        this.k = k;
+        this.tree = orders.clone();
+        this.splitAxis = new byte[orders.length];
+        this.neighbors = new int[points.size() * k];
+        Arrays.fill(neighbors, -1);
+
+        build(0, tree.length);
+
+        double[] bestDistance = new double[k];
+        int[] best = new int[k];
+        for (int order : orders) {
+            Arrays.fill(bestDistance, Double.MAX_VALUE);
+            Arrays.fill(best, -1);
+            search(0, tree.length, order, bestDistance, best);
+            System.arraycopy(best, 0, neighbors, order * k, k);
+        }
+    }
+
+    int k() {
+        return k;
+    }
+
+    /**
+     * @return The i-th nearest neighbor of the order, or -1 if there is none.
+     */
+    int neighbor(int order, int i) {
+        return neighbors[order * k + i];
+    }
+
+    private void build(int from, int to) {
+        if (to - from <= 1) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        // Orders usually cover a small patch of the sphere, which is nearly flat
+        // in one of x/y/z, so split on the widest axis instead of cycling.
+        byte axis = widestAxis(from, to);
+        splitAxis[mid] = axis;
+        select(from, to - 1, mid, coordinates(axis));
+        build(from, mid);
+        build(mid + 1, to);
+    }
+
+    private byte widestAxis(int from, int to) {
+        byte widest = 0;
+        double widestSpread = -1;
+        for (byte axis = 0; axis < 3; axis++) {
+            double[] coordinate = coordinates(axis);
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, coordinate[tree[i]]);
+                max = Math.max(max, coordinate[tree[i]]);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = axis;
+            }
+        }
+        return widest;
+    }
+
+    // Quickselect: moves the element of rank k within [lo, hi] to position k,
+    // with smaller coordinates before it and larger ones after.
+    private void select(int lo, int hi, int k, double[] coordinate) {
+        while (lo < hi) {
+            double pivot = coordinate[tree[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinate[tree[i]] < pivot) {
+                    i++;
+                }
+                while (coordinate[tree[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = tree[i];
+                    tree[i++] = tree[j];
+                    tree[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void search(int from, int to, int query, double[] bestDistance, int[] best) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        int node = tree[mid];
+
+        if (node != query) {
+            double dx = points.x[node] - points.x[query];
+            double dy = points.y[node] - points.y[query];
+            double dz = points.z[node] - points.z[query];
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance < bestDistance[k - 1]) {
+                // Insertion into the short sorted list of the best so far.
+                int i = k - 1;
+                while (i > 0 && bestDistance[i - 1] > distance) {
+                    bestDistance[i] = bestDistance[i - 1];
+                    best[i] = best[i - 1];
+                    i--;
+                }
+                bestDistance[i] = distance;
+                best[i] = node;
+            }
+        }
+
+        double[] coordinate = coordinates(splitAxis[mid]);
+        double diff = coordinate[query] - coordinate[node];
+        boolean queryBelow = diff < 0;
+        search(queryBelow ? from : mid + 1, queryBelow ? mid : to, query, bestDistance, best);
+        if (diff * diff < bestDistance[k - 1]) {
+            search(queryBelow ? mid + 1 : from, queryBelow ? to : mid, query, bestDistance, best);
+        }
+    }
+
+    private double[] coordinates(int axis) {
+        return switch (axis) {
+            case 0 -> points.x;
+            case 1 -> points.y;
+            default -> points.z;
+        };
+    }
+}
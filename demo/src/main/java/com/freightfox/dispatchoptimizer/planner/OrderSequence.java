@@ -0,0 +1,18 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+/**
+ * How orders of the same priority are sequenced for planning. Orders are
+ * always planned HIGH first, then MEDIUM, then LOW.
+ */
+public enum OrderSequence {
+
+    /** In the order they were saved (or loaded from the database). */
+    ARRIVAL,
+
+    /**
+     * By geohash, so consecutive orders are close together. The greedy pass
+     * then works through one area at a time, which keeps the vehicle index
+     * warm in cache and tends to give tighter routes.
+     */
+    GEOHASH
+}
@@ -0,0 +1,46 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+
+import java.time.LocalTime;
+
+/**
+ * The orders a {@link PlanningSession} is built from, by solver id: an order's
+ * position in planning sequence. The planner reads their fields one by one,
+ * so the orders do not have to exist as {@link Order} objects until a plan is
+ * rendered.
+ */
+public interface OrderTable {
+
+    int size();
+
+    String orderId(int order);
+
+    String region(int order);
+
+    double latitude(int order);
+
+    double longitude(int order);
+
+    double weight(int order);
+
+    /** @return The order's {@code Priority.ordinal()}. */
+    int priority(int order);
+
+    /** @return The start of the delivery window, or null. */
+    LocalTime windowStart(int order);
+
+    /** @return The end of the delivery window, or null. */
+    LocalTime windowEnd(int order);
+
+    /**
+     * @return The whole order, e.g. for the response. Tables that do not hold
+     *         Order objects build a new one on every call.
+     */
+    Order order(int order);
+
+    /**
+     * @return The solver id of the order with this id, or -1 if there is none.
+     */
+    int indexOf(String orderId);
+}
@@ -0,0 +1,205 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plans large fleets on all cores by splitting them into geographic clusters.
+ *
+ * The fleet is cut recursively at the median vehicle position, alternating to
+ * whichever of latitude/longitude the vehicles are spread out more on, until a
+ * cluster holds at most {@code max-vehicles-per-partition} vehicles. Every order
+ * goes to the cluster whose region contains it, and each cluster is solved on
+ * its own fork-join task with the ordinary greedy loop, or whichever
+ * {@link OrderAssigner} is passed in. Orders a cluster could not place
+ * (typically near a cluster edge, or where local vehicles ran out of capacity)
+ * get a final sequential rebalancing pass against the whole fleet.
+ *
+ * The same pool plans independent regions ({@link Shard}s) side by side.
+ */
+@Component
+public class PartitionedPlanner {
+
+    private final DispatchProperties properties;
+    private final ForkJoinPool pool;
+
+    public PartitionedPlanner(DispatchProperties properties) {
+        this.properties = properties;
+        int parallelism = properties.getPlanner().getParallel().getParallelism();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Assigns orders using parallel, per-cluster greedy passes.
+     *
+     * @param state  The plan being built, updated in place.
+     * @param orders The order ids to assign, already in priority order.
+     * @return The order ids that no vehicle could take.
+     */
+    public int[] assign(PlanningState state, int[] orders) {
+        return assign(state, orders, PlanningProgress.untracked());
+    }
+
+    /**
+     * Same as {@link #assign(PlanningState, int[])}, reporting to and stoppable
+     * through {@code progress}.
+     */
+    public int[] assign(PlanningState state, int[] orders, PlanningProgress progress) {
+        return assign(state, orders, greedyAssigner(progress));
+    }
+
+    /**
+     * Same as {@link #assign(PlanningState, int[])}, with each cluster solved
+     * by {@code assigner}.
+     */
+    public int[] assign(PlanningState state, int[] orders, OrderAssigner assigner) {
+        int[] allVehicles = new int[state.problem().vehicleCount];
+        Arrays.setAll(allVehicles, v -> v);
+        return pool.invoke(clusteredTask(assigner, state, orders, allVehicles));
+    }
+
+    /**
+     * Plans each shard on its own task, all at the same time.
+     *
+     * @param state     The plan being built, updated in place.
+     * @param shards    Disjoint sets of orders and the vehicles that may take them.
+     * @param clustered Whether to also split each shard into geographic
+     *                  clusters, as {@link #assign(PlanningState, int[])} does;
+     *                  otherwise each shard gets one greedy pass.
+     * @param progress  Tracks and can stop every shard's run.
+     */
+    public void assignShards(PlanningState state, List<Shard> shards, boolean clustered, PlanningProgress progress) {
+        assignShards(state, shards, clustered, greedyAssigner(progress));
+    }
+
+    /**
+     * Same as {@link #assignShards(PlanningState, List, boolean, PlanningProgress)},
+     * with each shard solved by {@code assigner}.
+     */
+    public void assignShards(PlanningState state, List<Shard> shards, boolean clustered, OrderAssigner assigner) {
+        List<ForkJoinTask<int[]>> running = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            if (shard.isPlannable()) {
+                running.add(pool.submit(clustered
+                        ? clusteredTask(assigner, state, shard.orders(), shard.vehicles())
+                        : ForkJoinTask.adapt(() -> assigner.assign(state, shard.orders(), shard.vehicles()))));
+            }
+        }
+        running.forEach(ForkJoinTask::join);
+    }
+
+    private GreedyAssigner greedyAssigner(PlanningProgress progress) {
+        return new GreedyAssigner(properties.getPlanner().getVehicleIndex(),
+                properties.getPlanner().getRankingMetric(), progress);
+    }
+
+    private ForkJoinTask<int[]> clusteredTask(OrderAssigner assigner, PlanningState state, int[] orders,
+            int[] vehicles) {
+        int maxVehicles = Math.max(1, properties.getPlanner().getParallel().getMaxVehiclesPerPartition());
+        return ForkJoinTask.adapt(() -> {
+            int[] leftovers = new PartitionTask(assigner, maxVehicles, state, orders, vehicles).invoke();
+
+            // Rebalancing pass: give the orders stranded at cluster edges a chance
+            // with any of the vehicles, starting from where each vehicle ended up.
+            // Order ids follow the planning sequence, so sorting them restores priority order.
+            Arrays.sort(leftovers);
+            return assigner.assign(state, leftovers, vehicles);
+        });
+    }
+
+    private static final class PartitionTask extends RecursiveTask<int[]> {
+
+        private final OrderAssigner assigner;
+        private final int maxVehicles;
+        private final PlanningState state;
+        private final int[] orderIds;
+        private final int[] vehicleIds;
+
+        PartitionTask(OrderAssigner assigner, int maxVehicles, PlanningState state, int[] orderIds,
+                int[] vehicleIds) {
+            this.assigner = assigner;
+            this.maxVehicles = maxVehicles;
+            this.state = state;
+            this.orderIds = orderIds;
+            this.vehicleIds = vehicleIds;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (orderIds.length == 0) {
+                return orderIds;
+            }
+            if (vehicleIds.length <= maxVehicles) {
+                return assigner.assign(state, orderIds, vehicleIds);
+            }
+
+            // Cut along the axis with the wider vehicle spread.
+            boolean byLatitude = spread(true) >= spread(false);
+
+            double[] coordinates = new double[vehicleIds.length];
+            for (int i = 0; i < vehicleIds.length; i++) {
+                coordinates[i] = vehicleCoordinate(vehicleIds[i], byLatitude);
+            }
+            Arrays.sort(coordinates);
+            double pivot = coordinates[coordinates.length / 2];
+
+            int[] leftVehicles = Arrays.stream(vehicleIds)
+                    .filter(v -> vehicleCoordinate(v, byLatitude) < pivot).toArray();
+            if (leftVehicles.length == 0) {
+                // Every vehicle shares the same coordinate; cannot split further.
+                return assigner.assign(state, orderIds, vehicleIds);
+            }
+            int[] rightVehicles = Arrays.stream(vehicleIds)
+                    .filter(v -> vehicleCoordinate(v, byLatitude) >= pivot).toArray();
+
+            // Filtering keeps the orders' relative (priority) sequence within each half.
+            int[] leftOrders = Arrays.stream(orderIds)
+                    .filter(o -> orderCoordinate(o, byLatitude) < pivot).toArray();
+            int[] rightOrders = Arrays.stream(orderIds)
+                    .filter(o -> orderCoordinate(o, byLatitude) >= pivot).toArray();
+
+            PartitionTask left = new PartitionTask(assigner, maxVehicles, state, leftOrders, leftVehicles);
+            PartitionTask right = new PartitionTask(assigner, maxVehicles, state, rightOrders, rightVehicles);
+            left.fork();
+            int[] rightLeftovers = right.compute();
+            int[] leftLeftovers = left.join();
+
+            int[] leftovers = Arrays.copyOf(leftLeftovers, leftLeftovers.length + rightLeftovers.length);
+            System.arraycopy(rightLeftovers, 0, leftovers, leftLeftovers.length, rightLeftovers.length);
+            return leftovers;
+        }
+
+        private double spread(boolean byLatitude) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int v : vehicleIds) {
+                double coordinate = vehicleCoordinate(v, byLatitude);
+                min = Math.min(min, coordinate);
+                max = Math.max(max, coordinate);
+            }
+            return max - min;
+        }
+
+        private double vehicleCoordinate(int v, boolean byLatitude) {
+            return byLatitude ? state.latitude(v) : state.longitude(v);
+        }
+
+        private double orderCoordinate(int o, boolean byLatitude) {
+            PlanningProblem problem = state.problem();
+            return byLatitude ? problem.orderLatitude[o] : problem.orderLongitude[o];
+        }
+    }
+}
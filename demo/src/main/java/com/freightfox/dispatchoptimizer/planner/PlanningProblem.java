@@ -0,0 +1,222 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.util.DistanceCalculator;
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+import com.freightfox.dispatchoptimizer.util.TravelMatrix;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The input of a planning run, copied out of the JPA entities into primitive
+ * arrays. Orders and vehicles are identified by dense ints (their position in
+ * the lists the problem was built from), so the solver never unboxes a Double
+ * or looks anything up by String id.
+ *
+ * Orders are expected in the sequence they should be planned in, i.e. already
+ * sorted by priority.
+ *
+ * Times are minutes since the shift start of the {@link TravelModel}. Orders
+ * without a delivery window have an unbounded one.
+ */
+public final class PlanningProblem {
+
+    final int orderCount;
+    final double[] orderLatitude;
+    final double[] orderLongitude;
+    final double[] orderWeight;
+    final int[] orderPriority; // Priority.ordinal(): 0 = HIGH, 1 = MEDIUM, 2 = LOW
+    final GeoPoints orderPoints;
+    final double[] orderWindowStart; // -Infinity if the order may arrive early
+    final double[] orderWindowEnd; // +Infinity if the order may arrive late
+    final boolean hasTimeWindows;
+
+    final int vehicleCount;
+    final double[] vehicleLatitude;
+    final double[] vehicleLongitude;
+    final double[] vehicleCapacity;
+    final GeoPoints vehiclePoints;
+    final double[] vehicleMinutesPerKm;
+
+    final TravelMatrix travel;
+
+    /**
+     * @param orderWindowStart    Earliest drop-off per order, in minutes since
+     *                            the shift start.
+     * @param orderWindowEnd      Latest drop-off per order, in minutes since
+     *                            the shift start.
+     * @param vehicleMinutesPerKm Driving time per km for each vehicle.
+     * @param travel              Driving distances between positions.
+     */
+    public PlanningProblem(double[] orderLatitude, double[] orderLongitude, double[] orderWeight,
+            int[] orderPriority, double[] orderWindowStart, double[] orderWindowEnd, double[] vehicleLatitude,
+            double[] vehicleLongitude, double[] vehicleCapacity, double[] vehicleMinutesPerKm, TravelMatrix travel) {
+        this.orderCount = orderLatitude.length;
+        this.orderWeight = orderWeight;
+        this.orderPriority = orderPriority;
+        this.orderWindowStart = orderWindowStart;
+        this.orderWindowEnd = orderWindowEnd;
+        this.hasTimeWindows = Arrays.stream(orderWindowEnd).anyMatch(end -> end != Double.POSITIVE_INFINITY);
+        this.vehicleCount = vehicleLatitude.length;
+        this.vehicleCapacity = vehicleCapacity;
+        this.vehicleMinutesPerKm = vehicleMinutesPerKm;
+        this.travel = travel;
+
+        // Cache the trigonometry for every position once, up front. The points
+        // keep their own copy of the coordinates, which is shared rather than
+        // holding the arrays passed in as well.
+        this.orderPoints = GeoPoints.of(orderLatitude, orderLongitude);
+        this.vehiclePoints = GeoPoints.of(vehicleLatitude, vehicleLongitude);
+        this.orderLatitude = orderPoints.latitude;
+        this.orderLongitude = orderPoints.longitude;
+        this.vehicleLatitude = vehiclePoints.latitude;
+        this.vehicleLongitude = vehiclePoints.longitude;
+    }
+
+    private PlanningProblem(PlanningProblem first, PlanningProblem second) {
+        this.orderCount = first.orderCount + second.orderCount;
+        this.orderWeight = concat(first.orderWeight, second.orderWeight);
+        this.orderPriority = concat(first.orderPriority, second.orderPriority);
+        this.orderPoints = GeoPoints.concat(first.orderPoints, second.orderPoints);
+        this.orderLatitude = orderPoints.latitude;
+        this.orderLongitude = orderPoints.longitude;
+        this.orderWindowStart = concat(first.orderWindowStart, second.orderWindowStart);
+        this.orderWindowEnd = concat(first.orderWindowEnd, second.orderWindowEnd);
+        this.hasTimeWindows = first.hasTimeWindows || second.hasTimeWindows;
+        this.vehicleCount = first.vehicleCount + second.vehicleCount;
+        this.vehicleCapacity = concat(first.vehicleCapacity, second.vehicleCapacity);
+        this.vehiclePoints = GeoPoints.concat(first.vehiclePoints, second.vehiclePoints);
+        this.vehicleLatitude = vehiclePoints.latitude;
+        this.vehicleLongitude = vehiclePoints.longitude;
+        this.vehicleMinutesPerKm = concat(first.vehicleMinutesPerKm, second.vehicleMinutesPerKm);
+        this.travel = first.travel;
+    }
+
+    /**
+     * Same as {@link #from(List, List, TravelModel)} with the default travel model.
+     */
+    public static PlanningProblem from(List<Order> orders, List<Vehicle> vehicles) {
+        return from(orders, vehicles, TravelModel.DEFAULT);
+    }
+
+    /**
+     * Copies the planning-relevant fields of the given entities into a new problem.
+     *
+     * @param orders   The orders, in planning sequence.
+     * @param vehicles The vehicles.
+     * @param travel   How distances and arrival times are measured.
+     * @return The problem; order/vehicle ids are the positions in these lists.
+     */
+    public static PlanningProblem from(List<Order> orders, List<Vehicle> vehicles, TravelModel travel) {
+        return from(new OrderList(orders), vehicles, travel);
+    }
+
+    /**
+     * Same as {@link #from(List, List, TravelModel)}, reading the orders from a table.
+     *
+     * @return The problem; order ids are the solver ids of the table.
+     */
+    public static PlanningProblem from(OrderTable orders, List<Vehicle> vehicles, TravelModel travel) {
+        int m = orders.size();
+        double[] orderLatitude = new double[m];
+        double[] orderLongitude = new double[m];
+        double[] orderWeight = new double[m];
+        int[] orderPriority = new int[m];
+        double[] orderWindowStart = new double[m];
+        double[] orderWindowEnd = new double[m];
+        for (int o = 0; o < m; o++) {
+            orderLatitude[o] = orders.latitude(o);
+            orderLongitude[o] = orders.longitude(o);
+            orderWeight[o] = orders.weight(o);
+            orderPriority[o] = orders.priority(o);
+            orderWindowStart[o] = minutesIntoShift(travel, orders.windowStart(o), Double.NEGATIVE_INFINITY);
+            orderWindowEnd[o] = minutesIntoShift(travel, orders.windowEnd(o), Double.POSITIVE_INFINITY);
+        }
+
+        int n = vehicles.size();
+        double[] vehicleLatitude = new double[n];
+        double[] vehicleLongitude = new double[n];
+        double[] vehicleCapacity = new double[n];
+        double[] vehicleMinutesPerKm = new double[n];
+        for (int v = 0; v < n; v++) {
+            Vehicle vehicle = vehicles.get(v);
+            vehicleLatitude[v] = vehicle.getCurrentLatitude();
+            vehicleLongitude[v] = vehicle.getCurrentLongitude();
+            vehicleCapacity[v] = vehicle.getCapacity();
+            double speedKmh = vehicle.getSpeedKmh() != null ? vehicle.getSpeedKmh() : travel.defaultSpeedKmh();
+            vehicleMinutesPerKm[v] = 60 / speedKmh;
+        }
+
+        return new PlanningProblem(orderLatitude, orderLongitude, orderWeight, orderPriority, orderWindowStart,
+                orderWindowEnd, vehicleLatitude, vehicleLongitude, vehicleCapacity, vehicleMinutesPerKm,
+                travel.matrix());
+    }
+
+    /**
+     * Checks a route against the delivery windows, starting from the vehicle's
+     * own position at the shift start. A vehicle that arrives early waits for
+     * the window to open.
+     *
+     * @return false if any drop-off on the route would be late.
+     */
+    boolean scheduleHolds(int vehicle, int[] route, int length) {
+        double clock = 0;
+        for (int k = 0; k < length; k++) {
+            int order = route[k];
+            double km = k == 0
+                    ? travel.distanceKm(vehiclePoints, vehicle, orderPoints, order)
+                    : travel.distanceKm(orderPoints, route[k - 1], orderPoints, order);
+            clock += km * vehicleMinutesPerKm[vehicle];
+            if (clock > orderWindowEnd[order]) {
+                return false;
+            }
+            clock = Math.max(clock, orderWindowStart[order]);
+        }
+        return true;
+    }
+
+    /**
+     * A lower bound on the time to drive between two positions: the straight
+     * line, which no road is shorter than.
+     */
+    double minimumMinutes(int vehicle, GeoPoints from, int i, int order) {
+        return DistanceCalculator.calculate(from, i, orderPoints, order) * vehicleMinutesPerKm[vehicle];
+    }
+
+    /**
+     * Appends another problem's orders and vehicles after this one's. Existing
+     * ids keep their meaning; the new ones follow on from them. Cached
+     * trigonometry is copied rather than recomputed.
+     */
+    public PlanningProblem append(PlanningProblem more) {
+        return new PlanningProblem(this, more);
+    }
+
+    public int orderCount() {
+        return orderCount;
+    }
+
+    public int vehicleCount() {
+        return vehicleCount;
+    }
+
+    private static double minutesIntoShift(TravelModel travel, LocalTime time, double unbounded) {
+        return time == null ? unbounded : Duration.between(travel.shiftStart(), time).toSeconds() / 60.0;
+    }
+
+    private static double[] concat(double[] first, double[] second) {
+        double[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
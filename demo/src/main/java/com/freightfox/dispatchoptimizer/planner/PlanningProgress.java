@@ -0,0 +1,119 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets a caller watch and stop a planning run from another thread: it counts
+ * the orders assigned so far, and signals the solver to stop early when the
+ * run is cancelled or its time budget runs out.
+ *
+ * The solver only checks in every few hundred orders, so stopping is prompt
+ * but not instantaneous. Orders it had not reached yet are left unassigned.
+ */
+public final class PlanningProgress {
+
+    /** How many orders the solver handles between check-ins. */
+    static final int CHECK_INTERVAL = 256;
+
+    private static final PlanningProgress UNTRACKED = new PlanningProgress(0);
+
+    private final long budgetNanos;
+    private final AtomicInteger assignedOrders = new AtomicInteger();
+    private final LongAdder distanceEvaluations = new LongAdder();
+    private final LongAdder capacityRejections = new LongAdder();
+    private volatile int totalOrders;
+    private volatile long deadline;
+    private volatile boolean started;
+    private volatile boolean cancelled;
+    private volatile boolean budgetExhausted;
+
+    /**
+     * @param budgetMillis How long the run may take once started; 0 for no limit.
+     */
+    public PlanningProgress(long budgetMillis) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+    }
+
+    /**
+     * @return A progress that is never stopped and does not count, for callers
+     *         that do not need either.
+     */
+    public static PlanningProgress untracked() {
+        return UNTRACKED;
+    }
+
+    /**
+     * Starts the time budget, if there is one.
+     *
+     * @param orders The number of orders the run will plan.
+     */
+    public void start(int orders) {
+        if (this == UNTRACKED) {
+            return;
+        }
+        totalOrders = orders;
+        deadline = System.nanoTime() + budgetNanos;
+        started = true;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the solver stopped early because the time budget ran out.
+     */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /**
+     * @return true if the solver should stop and keep what it has.
+     */
+    public boolean shouldStop() {
+        if (started && budgetNanos > 0 && System.nanoTime() - deadline >= 0) {
+            budgetExhausted = true;
+        }
+        return cancelled || budgetExhausted;
+    }
+
+    public int assignedOrders() {
+        return assignedOrders.get();
+    }
+
+    public int totalOrders() {
+        return totalOrders;
+    }
+
+    /**
+     * @return Vehicle distances computed by nearest-vehicle lookups so far.
+     */
+    public long distanceEvaluations() {
+        return distanceEvaluations.sum();
+    }
+
+    /**
+     * @return Vehicles passed over by lookups so far for lack of capacity.
+     */
+    public long capacityRejections() {
+        return capacityRejections.sum();
+    }
+
+    void lookupsDone(VehicleIndex index) {
+        if (this != UNTRACKED) {
+            distanceEvaluations.add(index.distanceEvaluations());
+            capacityRejections.add(index.capacityRejections());
+        }
+    }
+
+    void ordersAssigned(int count) {
+        if (this != UNTRACKED && count > 0) {
+            assignedOrders.addAndGet(count);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * A plan together with the entities it was built from. It maps solver ids back
+ * to orders and vehicles for the response, and can grow the underlying problem
+ * with new orders and vehicles without discarding the routes solved so far.
+ *
+ * Orders are read through an {@link OrderTable}. Sessions built from a list of
+ * orders can grow; sessions over another table, such as an off-heap store,
+ * are solved once and cannot.
+ */
+public final class PlanningSession {
+
+    private final OrderTable orders;
+    private final List<Vehicle> vehicles;
+    private final Map<String, Integer> vehicleIds = new HashMap<>();
+    private final TravelModel travel;
+    private PlanningState state;
+
+    /**
+     * @param orders   The orders, in planning sequence (sorted by priority).
+     * @param vehicles The vehicles.
+     */
+    public PlanningSession(List<Order> orders, List<Vehicle> vehicles) {
+        this(orders, vehicles, TravelModel.DEFAULT);
+    }
+
+    /**
+     * @param orders   The orders, in planning sequence (sorted by priority).
+     * @param vehicles The vehicles.
+     * @param travel   How distances and arrival times are measured, now and
+     *                 for orders and vehicles added later.
+     */
+    public PlanningSession(List<Order> orders, List<Vehicle> vehicles, TravelModel travel) {
+        this(new OrderList(orders), vehicles, travel);
+    }
+
+    /**
+     * @param orders   The orders, in planning sequence (sorted by priority).
+     * @param vehicles The vehicles.
+     * @param travel   How distances and arrival times are measured.
+     */
+    public PlanningSession(OrderTable orders, List<Vehicle> vehicles, TravelModel travel) {
+        this.travel = travel;
+        this.orders = orders;
+        this.vehicles = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles.size(); v++) {
+            vehicleIds.put(vehicles.get(v).getVehicleId(), v);
+        }
+        this.state = new PlanningState(PlanningProblem.from(orders, vehicles, travel));
+    }
+
+    public PlanningState state() {
+        return state;
+    }
+
+    public int orderCount() {
+        return orders.size();
+    }
+
+    /**
+     * @return Every order id, in planning sequence.
+     */
+    public int[] allOrders() {
+        int[] ids = new int[orders.size()];
+        for (int o = 0; o < ids.length; o++) {
+            ids[o] = o;
+        }
+        return ids;
+    }
+
+    /**
+     * @return Every vehicle id.
+     */
+    public int[] allVehicles() {
+        int[] ids = new int[vehicles.size()];
+        for (int v = 0; v < ids.length; v++) {
+            ids[v] = v;
+        }
+        return ids;
+    }
+
+    /**
+     * @return Every order and vehicle, split by region.
+     */
+    public List<Shard> shards() {
+        return shards(allOrders(), allVehicles());
+    }
+
+    /**
+     * Splits the given orders and vehicles by region, keeping their relative
+     * order within each region.
+     *
+     * @return One shard per region that appears, sorted by region name.
+     */
+    public List<Shard> shards(int[] orderIds, int[] vehicleIds) {
+        Map<String, int[]> ordersByRegion = groupByRegion(orderIds, orders::region);
+        Map<String, int[]> vehiclesByRegion = groupByRegion(vehicleIds, v -> vehicles.get(v).getRegion());
+
+        Map<String, Shard> shards = new TreeMap<>();
+        int[] none = new int[0];
+        ordersByRegion.forEach((region, ids) -> shards.put(region,
+                new Shard(region, ids, vehiclesByRegion.getOrDefault(region, none))));
+        vehiclesByRegion.forEach((region, ids) -> shards.putIfAbsent(region, new Shard(region, none, ids)));
+        return new ArrayList<>(shards.values());
+    }
+
+    public boolean hasOrder(String orderId) {
+        return orders.indexOf(orderId) >= 0;
+    }
+
+    public boolean hasVehicle(String vehicleId) {
+        return vehicleIds.containsKey(vehicleId);
+    }
+
+    /**
+     * Swaps in a re-saved copy of a known order, as long as nothing the planner
+     * depends on has changed (e.g. only the address was corrected).
+     *
+     * @return false if the order's position, weight, priority, region or
+     *         delivery window changed, in which case the current plan no longer
+     *         reflects it.
+     */
+    public boolean refresh(Order order) {
+        OrderList list = growable();
+        int o = list.indexOf(order.getOrderId());
+        Order known = list.order(o);
+        boolean samePlanningFields = Objects.equals(known.getLatitude(), order.getLatitude())
+                && Objects.equals(known.getLongitude(), order.getLongitude())
+                && Objects.equals(known.getPackageWeight(), order.getPackageWeight())
+                && known.getPriority() == order.getPriority()
+                && Objects.equals(known.getRegion(), order.getRegion())
+                && Objects.equals(known.getWindowStart(), order.getWindowStart())
+                && Objects.equals(known.getWindowEnd(), order.getWindowEnd());
+        if (samePlanningFields) {
+            list.set(o, order);
+        }
+        return samePlanningFields;
+    }
+
+    /**
+     * Same as {@link #refresh(Order)} for a re-saved vehicle.
+     *
+     * @return false if the vehicle's starting position, capacity, region or speed changed.
+     */
+    public boolean refresh(Vehicle vehicle) {
+        int v = vehicleIds.get(vehicle.getVehicleId());
+        Vehicle known = vehicles.get(v);
+        boolean samePlanningFields = Objects.equals(known.getCurrentLatitude(), vehicle.getCurrentLatitude())
+                && Objects.equals(known.getCurrentLongitude(), vehicle.getCurrentLongitude())
+                && Objects.equals(known.getCapacity(), vehicle.getCapacity())
+                && Objects.equals(known.getRegion(), vehicle.getRegion())
+                && Objects.equals(known.getSpeedKmh(), vehicle.getSpeedKmh());
+        if (samePlanningFields) {
+            vehicles.set(v, vehicle);
+        }
+        return samePlanningFields;
+    }
+
+    /**
+     * Adds orders the session has not seen before. They start unassigned.
+     *
+     * @return The ids given to the new orders, in the sequence they were passed.
+     */
+    public int[] addOrders(List<Order> newOrders) {
+        return grow(newOrders, List.of())[0];
+    }
+
+    /**
+     * Adds vehicles the session has not seen before. They start empty at their
+     * current position.
+     *
+     * @return The ids given to the new vehicles.
+     */
+    public int[] addVehicles(List<Vehicle> newVehicles) {
+        return grow(List.of(), newVehicles)[1];
+    }
+
+    // Two passes, counting then filling, so ids are never boxed.
+    private static Map<String, int[]> groupByRegion(int[] ids, IntFunction<String> regionOf) {
+        Map<String, int[]> counts = new HashMap<>();
+        for (int id : ids) {
+            counts.computeIfAbsent(regionOf.apply(id), region -> new int[1])[0]++;
+        }
+        Map<String, int[]> groups = new HashMap<>();
+        counts.forEach((region, count) -> groups.put(region, new int[count[0]]));
+        for (int id : ids) {
+            String region = regionOf.apply(id);
+            int[] group = groups.get(region);
+            group[group.length - counts.get(region)[0]--] = id;
+        }
+        return groups;
+    }
+
+    private OrderList growable() {
+        if (orders instanceof OrderList list) {
+            return list;
+        }
+        throw new UnsupportedOperationException("Only sessions built from a list of orders can change");
+    }
+
+    private int[][] grow(List<Order> newOrders, List<Vehicle> newVehicles) {
+        OrderList list = growable();
+        int[] newOrderIds = new int[newOrders.size()];
+        for (int i = 0; i < newOrderIds.length; i++) {
+            newOrderIds[i] = list.size();
+            list.add(newOrders.get(i));
+        }
+        int[] newVehicleIds = new int[newVehicles.size()];
+        for (int i = 0; i < newVehicleIds.length; i++) {
+            newVehicleIds[i] = vehicles.size();
+            vehicleIds.put(newVehicles.get(i).getVehicleId(), vehicles.size());
+            vehicles.add(newVehicles.get(i));
+        }
+
+        PlanningProblem grown = state.problem().append(PlanningProblem.from(newOrders, newVehicles, travel));
+        state = state.extend(grown);
+        return new int[][] { newOrderIds, newVehicleIds };
+    }
+
+    /**
+     * @return The ids of every order no vehicle has taken yet, HIGH priority
+     *         first and in arrival sequence within each priority.
+     */
+    public int[] unassignedOrders() {
+        int[] priorities = state.problem().orderPriority;
+
+        // Counting sort over the three priorities: count, then fill each bucket.
+        int[] bucketStart = new int[Priority.values().length + 1];
+        for (int o = 0; o < orders.size(); o++) {
+            if (state.assignedVehicle(o) < 0) {
+                bucketStart[priorities[o] + 1]++;
+            }
+        }
+        for (int p = 1; p < bucketStart.length; p++) {
+            bucketStart[p] += bucketStart[p - 1];
+        }
+
+        int[] unassigned = new int[bucketStart[bucketStart.length - 1]];
+        for (int o = 0; o < orders.size(); o++) {
+            if (state.assignedVehicle(o) < 0) {
+                unassigned[bucketStart[priorities[o]]++] = o;
+            }
+        }
+        return unassigned;
+    }
+
+    /**
+     * @return The order ids on each vehicle's route, in drop-off sequence, keyed
+     *         by vehicle id. Vehicles without orders are left out.
+     */
+    public Map<String, List<String>> routes() {
+        Map<String, List<String>> routes = new LinkedHashMap<>();
+        for (int v = 0; v < vehicles.size(); v++) {
+            int[] route = state.route(v);
+            if (route.length == 0) {
+                continue;
+            }
+            List<String> orderIdsOnRoute = new ArrayList<>(route.length);
+            for (int order : route) {
+                orderIdsOnRoute.add(orders.orderId(order));
+            }
+            routes.put(vehicles.get(v).getVehicleId(), orderIdsOnRoute);
+        }
+        return routes;
+    }
+
+    /**
+     * Replays routes from an earlier plan (see {@link #routes()}) onto this
+     * session, as far as they still fit the current data. An order is skipped
+     * if it no longer exists, is already on a route, belongs to another region,
+     * would break the route's priority order, no longer fits the vehicle or
+     * would now miss its delivery window.
+     * Vehicles that no longer exist are skipped with all their orders. Whatever
+     * is skipped stays unassigned, for the caller to plan afresh.
+     *
+     * @param routes   Order ids by vehicle id, in drop-off sequence.
+     * @param progress Counts the restored orders as assigned.
+     * @return How many orders were restored.
+     */
+    public int restore(Map<String, List<String>> routes, PlanningProgress progress) {
+        PlanningProblem problem = state.problem();
+        int restored = 0;
+        for (Map.Entry<String, List<String>> route : routes.entrySet()) {
+            Integer v = vehicleIds.get(route.getKey());
+            if (v == null) {
+                continue;
+            }
+            String region = vehicles.get(v).getRegion();
+            int lastPriority = 0;
+            for (String orderId : route.getValue()) {
+                int o = orders.indexOf(orderId);
+                if (o < 0 || state.assignedVehicle(o) >= 0
+                        || !Objects.equals(region, orders.region(o))
+                        || problem.orderPriority[o] < lastPriority
+                        || problem.orderWeight[o] > state.remainingCapacity(v)
+                        || !state.canReach(o, v)) {
+                    continue;
+                }
+                state.assign(o, v);
+                lastPriority = problem.orderPriority[o];
+                restored++;
+            }
+        }
+        progress.ordersAssigned(restored);
+        return restored;
+    }
+
+    /**
+     * Maps the solved routes back onto the entities for the response.
+     *
+     * @return One plan per vehicle, in the order the vehicles were added.
+     */
+    public List<DispatchPlanDto> toDispatchPlans() {
+        List<DispatchPlanDto> plans = new ArrayList<>(vehicles.size());
+        for (int v = 0; v < vehicles.size(); v++) {
+            plans.add(toDispatchPlan(v));
+        }
+        return plans;
+    }
+
+    public int vehicleCount() {
+        return vehicles.size();
+    }
+
+    /**
+     * Maps one vehicle's solved route back onto the entities, so large plans
+     * can be written out a vehicle at a time.
+     */
+    public DispatchPlanDto toDispatchPlan(int vehicle) {
+        int[] route = state.route(vehicle);
+        List<Order> assignedOrders = new ArrayList<>(route.length);
+        for (int order : route) {
+            assignedOrders.add(orders.order(order));
+        }
+        return new DispatchPlanDto(vehicles.get(vehicle), assignedOrders, state.load(vehicle),
+                state.distanceKm(vehicle), state.latitude(vehicle), state.longitude(vehicle));
+    }
+}
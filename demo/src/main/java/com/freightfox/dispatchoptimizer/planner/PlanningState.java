@@ -0,0 +1,162 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+import com.freightfox.dispatchoptimizer.util.TravelMatrix;
+
+import java.util.Arrays;
+
+/**
+ * The mutable side of a planning run: where each vehicle currently is, how much
+ * it carries, how far it has driven, when it is ready to leave its last stop and
+ * which orders it has been given, all in primitive arrays indexed by vehicle /
+ * order id.
+ *
+ * Concurrent use is safe as long as each thread only assigns orders to its own
+ * disjoint set of vehicles, which is how {@link PartitionedPlanner} uses it.
+ */
+public final class PlanningState {
+
+    private static final int INITIAL_ROUTE_CAPACITY = 8;
+
+    private final PlanningProblem problem;
+
+    final GeoPoints position;
+    final double[] load;
+    final double[] distanceKm;
+    final double[] clock; // Minutes since the shift start, after the last drop-off.
+    final int[] assignedVehicle; // -1 while the order is unassigned
+
+    // Route of each vehicle, in drop-off sequence.
+    final int[][] routes;
+    final int[] routeLength;
+
+    public PlanningState(PlanningProblem problem) {
+        this.problem = problem;
+        this.position = problem.vehiclePoints.copy();
+        this.load = new double[problem.vehicleCount];
+        this.distanceKm = new double[problem.vehicleCount];
+        this.clock = new double[problem.vehicleCount];
+        this.assignedVehicle = new int[problem.orderCount];
+        Arrays.fill(assignedVehicle, -1);
+        this.routes = new int[problem.vehicleCount][];
+        this.routeLength = new int[problem.vehicleCount];
+    }
+
+    /**
+     * Carries this state over to a grown version of its problem (see
+     * {@link PlanningProblem#append}). Existing routes are kept; the new orders
+     * start unassigned and the new vehicles start empty at their own position.
+     * Route buffers are shared, so this state must not be used afterwards.
+     */
+    public PlanningState extend(PlanningProblem grown) {
+        PlanningState extended = new PlanningState(grown);
+        int vehicles = problem.vehicleCount;
+        for (int v = 0; v < vehicles; v++) {
+            extended.position.copy(v, position, v);
+        }
+        System.arraycopy(load, 0, extended.load, 0, vehicles);
+        System.arraycopy(distanceKm, 0, extended.distanceKm, 0, vehicles);
+        System.arraycopy(clock, 0, extended.clock, 0, vehicles);
+        System.arraycopy(assignedVehicle, 0, extended.assignedVehicle, 0, problem.orderCount);
+        System.arraycopy(routes, 0, extended.routes, 0, vehicles);
+        System.arraycopy(routeLength, 0, extended.routeLength, 0, vehicles);
+        return extended;
+    }
+
+    public PlanningProblem problem() {
+        return problem;
+    }
+
+    /**
+     * Whether the vehicle could still make the order's delivery window if the
+     * order went on the end of its route. Most late vehicles are ruled out by
+     * the straight-line distance alone, before the travel matrix is asked.
+     */
+    public boolean canReach(int order, int vehicle) {
+        double windowEnd = problem.orderWindowEnd[order];
+        if (windowEnd == Double.POSITIVE_INFINITY) {
+            return true;
+        }
+        if (clock[vehicle] + problem.minimumMinutes(vehicle, position, vehicle, order) > windowEnd) {
+            return false;
+        }
+        return problem.travel == TravelMatrix.HAVERSINE // The bound above was the exact time.
+                || clock[vehicle] + travelKm(order, vehicle) * problem.vehicleMinutesPerKm[vehicle] <= windowEnd;
+    }
+
+    /**
+     * Appends an order to the end of a vehicle's route and moves the vehicle to
+     * the drop-off point.
+     */
+    public void assign(int order, int vehicle) {
+        double km = travelKm(order, vehicle);
+        distanceKm[vehicle] += km;
+        // Arriving before the window opens means waiting for it.
+        clock[vehicle] = Math.max(clock[vehicle] + km * problem.vehicleMinutesPerKm[vehicle],
+                problem.orderWindowStart[order]);
+        load[vehicle] += problem.orderWeight[order];
+        position.copy(vehicle, problem.orderPoints, order);
+        assignedVehicle[order] = vehicle;
+
+        int[] route = routes[vehicle];
+        if (route == null) {
+            route = routes[vehicle] = new int[INITIAL_ROUTE_CAPACITY];
+        } else if (routeLength[vehicle] == route.length) {
+            route = routes[vehicle] = Arrays.copyOf(route, route.length * 2);
+        }
+        route[routeLength[vehicle]++] = order;
+    }
+
+    /**
+     * Replaces a vehicle's whole route, recomputing its load, distance and
+     * final position from its starting point. Used by route improvement; the
+     * orders must not be on any other vehicle's route.
+     */
+    void replaceRoute(int vehicle, int[] route) {
+        position.copy(vehicle, problem.vehiclePoints, vehicle);
+        load[vehicle] = 0;
+        distanceKm[vehicle] = 0;
+        clock[vehicle] = 0;
+        routes[vehicle] = null;
+        routeLength[vehicle] = 0;
+        for (int order : route) {
+            assign(order, vehicle);
+        }
+    }
+
+    // From the vehicle's current position, using cached trigonometry.
+    double travelKm(int order, int vehicle) {
+        return problem.travel.distanceKm(position, vehicle, problem.orderPoints, order);
+    }
+
+    public double remainingCapacity(int vehicle) {
+        return problem.vehicleCapacity[vehicle] - load[vehicle];
+    }
+
+    public double latitude(int vehicle) {
+        return position.latitude[vehicle];
+    }
+
+    public double longitude(int vehicle) {
+        return position.longitude[vehicle];
+    }
+
+    public double load(int vehicle) {
+        return load[vehicle];
+    }
+
+    public double distanceKm(int vehicle) {
+        return distanceKm[vehicle];
+    }
+
+    public int assignedVehicle(int order) {
+        return assignedVehicle[order];
+    }
+
+    /**
+     * @return A copy of the vehicle's route as order ids, in drop-off sequence.
+     */
+    public int[] route(int vehicle) {
+        return routes[vehicle] == null ? new int[0] : Arrays.copyOf(routes[vehicle], routeLength[vehicle]);
+    }
+}
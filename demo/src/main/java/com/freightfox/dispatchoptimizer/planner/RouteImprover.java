@@ -0,0 +1,421 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.DistanceCalculator;
+import com.freightfox.dispatchoptimizer.util.TravelMatrix;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shortens the routes built by the greedy pass with local search.
+ *
+ * Three moves are tried until none helps or the budget runs out:
+ * <ul>
+ * <li>2-opt: reverse a stretch of a route, undoing crossings.</li>
+ * <li>Relocate: move an order to another vehicle's route, next to one of its
+ * nearest orders.</li>
+ * <li>Swap: exchange an order with one of its nearest orders on another
+ * vehicle.</li>
+ * </ul>
+ * Each move changes at most four legs of the routes involved, so its effect on
+ * total distance is computed in constant time from those legs alone, and only
+ * moves that shorten the total are applied. Legs are measured with the
+ * problem's travel matrix. Road legs are directed, so 2-opt also re-costs the
+ * stretch it reverses; the running cost of the stretch in both directions
+ * keeps that constant time per move.
+ *
+ * Moves never exceed a vehicle's capacity, never unassign an order, and keep
+ * every route in priority order (HIGH drop-offs before MEDIUM before LOW), as
+ * the greedy pass built them. Orders only move between vehicles of the same
+ * {@link Shard}. With delivery windows, a move that would make any drop-off on
+ * the routes involved late is undone; such moves are judged on the whole
+ * route, so they cost time proportional to its length.
+ */
+public class RouteImprover {
+
+    // Ignore "improvements" that are only floating point noise.
+    private static final double EPSILON = 1e-9;
+
+    // Marks "no next stop" after the last order of a route.
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final long timeBudgetNanos;
+    private final int maxPasses;
+    private final int neighborCount;
+    private final PlanningProgress progress;
+
+    private PlanningProblem problem;
+    private int[][] routes;
+    private int[] routeLength;
+    private double[] load;
+    private int[] routeOf; // Vehicle of each order, -1 if unassigned.
+    private int[] indexOf; // Position of each order in its route.
+    private boolean[] changed;
+    private boolean[] needsTwoOpt;
+    private int[] shardOf; // Shard of each vehicle.
+    private long deadline;
+    private int evaluations;
+    private boolean stopped;
+
+    /**
+     * @param timeBudgetMillis How long to search; 0 for no time limit.
+     * @param maxPasses        Maximum sweeps over all routes; 0 for no limit.
+     * @param neighborCount    Nearest orders considered for relocate and swap.
+     * @param progress         Stops the search early when cancelled or out of
+     *                         the overall budget.
+     */
+    public RouteImprover(long timeBudgetMillis, int maxPasses, int neighborCount, PlanningProgress progress) {
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.maxPasses = maxPasses;
+        this.neighborCount = Math.max(1, neighborCount);
+        this.progress = progress;
+    }
+
+    /**
+     * Improves every route in place.
+     *
+     * @param state A plan built by {@link GreedyAssigner}.
+     */
+    public void improve(PlanningState state) {
+        improve(state, List.of());
+    }
+
+    /**
+     * Improves every route in place, never moving an order to a vehicle of
+     * another shard.
+     *
+     * @param state  A plan built by {@link GreedyAssigner}.
+     * @param shards The shards the plan was built in; empty if all vehicles
+     *               are interchangeable.
+     */
+    public void improve(PlanningState state, List<Shard> shards) {
+        problem = state.problem();
+        shardOf = new int[problem.vehicleCount];
+        for (int s = 0; s < shards.size(); s++) {
+            for (int v : shards.get(s).vehicles()) {
+                shardOf[v] = s;
+            }
+        }
+        deadline = System.nanoTime() + timeBudgetNanos;
+        evaluations = 0;
+        stopped = false;
+        copyRoutes(state);
+
+        int[] assigned = assignedOrders();
+        if (assigned.length < 2) {
+            return;
+        }
+        OrderNeighbors neighbors = new OrderNeighbors(problem.orderPoints, assigned, neighborCount);
+
+        for (int pass = 0; maxPasses <= 0 || pass < maxPasses; pass++) {
+            boolean improved = false;
+            for (int v = 0; v < problem.vehicleCount && !outOfBudget(); v++) {
+                // A route 2-opt could not improve stays that way until a move touches it.
+                if (needsTwoOpt[v]) {
+                    needsTwoOpt[v] = false;
+                    improved |= twoOpt(v);
+                }
+            }
+
+            for (int i = 0; i < assigned.length && !outOfBudget(); i++) {
+                improved |= relocateOrSwap(assigned[i], neighbors);
+            }
+            if (!improved || outOfBudget()) {
+                break;
+            }
+        }
+
+        for (int v = 0; v < problem.vehicleCount; v++) {
+            if (changed[v]) {
+                state.replaceRoute(v, Arrays.copyOf(routes[v], routeLength[v]));
+            }
+        }
+    }
+
+    /**
+     * First-improvement 2-opt within one route. The route is an open path from
+     * the vehicle's start, so reversing orders i..j replaces the legs
+     * (before i -> i) and (j -> after j) with (before i -> j) and (i -> after j),
+     * and drives the legs in between the other way round.
+     */
+    private boolean twoOpt(int v) {
+        int[] route = routes[v];
+        int length = routeLength[v];
+        boolean improved = false;
+        // Great-circle legs are the same both ways, so reversing leaves the stretch's length alone.
+        boolean directed = problem.travel != TravelMatrix.HAVERSINE;
+
+        for (int i = 0; i < length - 1; i++) {
+            int before = i == 0 ? start(v) : route[i - 1];
+            // Length of the stretch i..j as driven now, and reversed.
+            double forward = 0;
+            double backward = 0;
+            for (int j = i + 1; j < length; j++) {
+                // Routes are sorted by priority, so a reversal keeps that order
+                // only within a run of equal priority.
+                if (priority(route[j]) != priority(route[i])) {
+                    break;
+                }
+                if (outOfBudget()) {
+                    return improved;
+                }
+                if (directed) {
+                    forward += distance(route[j - 1], route[j]);
+                    backward += distance(route[j], route[j - 1]);
+                }
+                int after = j == length - 1 ? NONE : route[j + 1];
+                double delta = distance(before, route[j]) + distance(route[i], after)
+                        - distance(before, route[i]) - distance(route[j], after) + backward - forward;
+                if (delta < -EPSILON) {
+                    reverse(v, i, j);
+                    if (!scheduleHolds(v)) {
+                        reverse(v, i, j);
+                        continue;
+                    }
+                    improved = true;
+                    // The stretch is now driven the other way.
+                    double reversed = forward;
+                    forward = backward;
+                    backward = reversed;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Tries to move the order next to one of its nearest orders on another
+     * vehicle, or to swap the two, applying the first move that helps.
+     */
+    private boolean relocateOrSwap(int order, OrderNeighbors neighbors) {
+        for (int n = 0; n < neighbors.k(); n++) {
+            int neighbor = neighbors.neighbor(order, n);
+            if (neighbor < 0) {
+                return false;
+            }
+            if (routeOf[neighbor] == routeOf[order] || shardOf[routeOf[neighbor]] != shardOf[routeOf[order]]) {
+                continue;
+            }
+            int target = indexOf[neighbor];
+            if (relocate(order, routeOf[neighbor], target) || relocate(order, routeOf[neighbor], target + 1)
+                    || swap(order, neighbor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves an order from its route to position {@code index} of vehicle {@code to}'s route.
+     */
+    private boolean relocate(int order, int to, int index) {
+        int from = routeOf[order];
+        int[] target = routes[to];
+        int targetLength = routeLength[to];
+
+        if (load[to] + problem.orderWeight[order] > problem.vehicleCapacity[to]) {
+            return false;
+        }
+        int before = index == 0 ? start(to) : target[index - 1];
+        int after = index == targetLength ? NONE : target[index];
+        if (!fits(order, before, after)) {
+            return false;
+        }
+
+        int i = indexOf[order];
+        int previous = i == 0 ? start(from) : routes[from][i - 1];
+        int next = i == routeLength[from] - 1 ? NONE : routes[from][i + 1];
+
+        double removed = distance(previous, order) + distance(order, next) - distance(previous, next);
+        double added = distance(before, order) + distance(order, after) - distance(before, after);
+        if (added - removed >= -EPSILON) {
+            return false;
+        }
+
+        removeAt(from, i);
+        insertAt(to, index, order);
+        if (!scheduleHolds(to) || !scheduleHolds(from)) {
+            removeAt(to, index);
+            insertAt(from, i, order);
+            return false;
+        }
+        load[from] -= problem.orderWeight[order];
+        load[to] += problem.orderWeight[order];
+        return true;
+    }
+
+    /**
+     * Exchanges two orders on different routes.
+     */
+    private boolean swap(int a, int b) {
+        int routeA = routeOf[a];
+        int routeB = routeOf[b];
+        double weightA = problem.orderWeight[a];
+        double weightB = problem.orderWeight[b];
+        if (load[routeA] - weightA + weightB > problem.vehicleCapacity[routeA]
+                || load[routeB] - weightB + weightA > problem.vehicleCapacity[routeB]) {
+            return false;
+        }
+
+        int i = indexOf[a];
+        int j = indexOf[b];
+        int beforeA = i == 0 ? start(routeA) : routes[routeA][i - 1];
+        int afterA = i == routeLength[routeA] - 1 ? NONE : routes[routeA][i + 1];
+        int beforeB = j == 0 ? start(routeB) : routes[routeB][j - 1];
+        int afterB = j == routeLength[routeB] - 1 ? NONE : routes[routeB][j + 1];
+        if (!fits(b, beforeA, afterA) || !fits(a, beforeB, afterB)) {
+            return false;
+        }
+
+        double delta = distance(beforeA, b) + distance(b, afterA) - distance(beforeA, a) - distance(a, afterA)
+                + distance(beforeB, a) + distance(a, afterB) - distance(beforeB, b) - distance(b, afterB);
+        if (delta >= -EPSILON) {
+            return false;
+        }
+
+        exchange(a, b);
+        if (!scheduleHolds(routeA) || !scheduleHolds(routeB)) {
+            exchange(b, a);
+            return false;
+        }
+        load[routeA] += weightB - weightA;
+        load[routeB] += weightA - weightB;
+        return true;
+    }
+
+    private void exchange(int a, int b) {
+        int routeA = routeOf[a];
+        int routeB = routeOf[b];
+        int i = indexOf[a];
+        int j = indexOf[b];
+        routes[routeA][i] = b;
+        routes[routeB][j] = a;
+        routeOf[a] = routeB;
+        routeOf[b] = routeA;
+        indexOf[a] = j;
+        indexOf[b] = i;
+        touched(routeA);
+        touched(routeB);
+    }
+
+    private boolean scheduleHolds(int v) {
+        return !problem.hasTimeWindows || problem.scheduleHolds(v, routes[v], routeLength[v]);
+    }
+
+    // Whether the order can sit between these two stops without breaking the
+    // route's priority order.
+    private boolean fits(int order, int before, int after) {
+        int priority = priority(order);
+        return (before < 0 || priority(before) <= priority) && (after < 0 || priority <= priority(after));
+    }
+
+    private void reverse(int v, int i, int j) {
+        int[] route = routes[v];
+        for (int lo = i, hi = j; lo < hi; lo++, hi--) {
+            int swap = route[lo];
+            route[lo] = route[hi];
+            route[hi] = swap;
+        }
+        for (int k = i; k <= j; k++) {
+            indexOf[route[k]] = k;
+        }
+        changed[v] = true; // A 2-opt move; the route is already being re-checked.
+    }
+
+    private void removeAt(int v, int index) {
+        int[] route = routes[v];
+        int length = --routeLength[v];
+        System.arraycopy(route, index + 1, route, index, length - index);
+        for (int k = index; k < length; k++) {
+            indexOf[route[k]] = k;
+        }
+        touched(v);
+    }
+
+    private void insertAt(int v, int index, int order) {
+        int[] route = routes[v];
+        int length = routeLength[v];
+        if (length == route.length) {
+            route = routes[v] = Arrays.copyOf(route, Math.max(8, length * 2));
+        }
+        System.arraycopy(route, index, route, index + 1, length - index);
+        route[index] = order;
+        routeLength[v] = length + 1;
+        routeOf[order] = v;
+        for (int k = index; k <= length; k++) {
+            indexOf[route[k]] = k;
+        }
+        touched(v);
+    }
+
+    private void touched(int v) {
+        changed[v] = true;
+        needsTwoOpt[v] = true;
+    }
+
+    private void copyRoutes(PlanningState state) {
+        int vehicles = problem.vehicleCount;
+        routes = new int[vehicles][];
+        routeLength = new int[vehicles];
+        load = new double[vehicles];
+        changed = new boolean[vehicles];
+        needsTwoOpt = new boolean[vehicles];
+        Arrays.fill(needsTwoOpt, true);
+        routeOf = new int[problem.orderCount];
+        indexOf = new int[problem.orderCount];
+        Arrays.fill(routeOf, -1);
+
+        for (int v = 0; v < vehicles; v++) {
+            routes[v] = state.route(v);
+            routeLength[v] = routes[v].length;
+            load[v] = state.load(v);
+            for (int k = 0; k < routeLength[v]; k++) {
+                routeOf[routes[v][k]] = v;
+                indexOf[routes[v][k]] = k;
+            }
+        }
+    }
+
+    private int[] assignedOrders() {
+        int count = 0;
+        int[] assigned = new int[problem.orderCount];
+        for (int o = 0; o < problem.orderCount; o++) {
+            if (routeOf[o] >= 0) {
+                assigned[count++] = o;
+            }
+        }
+        return Arrays.copyOf(assigned, count);
+    }
+
+    // Checks the clock only every so often; nanoTime is not free.
+    private boolean outOfBudget() {
+        if (!stopped && (++evaluations & 1023) == 0) {
+            stopped = progress.shouldStop() || (timeBudgetNanos > 0 && System.nanoTime() - deadline >= 0);
+        }
+        return stopped;
+    }
+
+    private int priority(int order) {
+        return problem.orderPriority[order];
+    }
+
+    // Vehicle starting points are encoded as negative stops, ~vehicle.
+    private static int start(int vehicle) {
+        return ~vehicle;
+    }
+
+    private double distance(int from, int to) {
+        if (to == NONE) {
+            return 0; // Routes end at their last drop-off.
+        }
+        if (problem.travel != TravelMatrix.HAVERSINE) {
+            return from < 0
+                    ? problem.travel.distanceKm(problem.vehiclePoints, ~from, problem.orderPoints, to)
+                    : problem.travel.distanceKm(problem.orderPoints, from, problem.orderPoints, to);
+        }
+        // Great-circle distances from the cached trigonometry, as the matrix would compute them.
+        return from < 0
+                ? DistanceCalculator.fromChord(problem.vehiclePoints, ~from, problem.orderPoints, to)
+                : DistanceCalculator.fromChord(problem.orderPoints, from, problem.orderPoints, to);
+    }
+}
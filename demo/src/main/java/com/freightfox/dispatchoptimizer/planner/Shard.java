@@ -0,0 +1,20 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+/**
+ * The orders and vehicles of one region. Shards never share orders or
+ * vehicles, so they can be planned at the same time on one
+ * {@link PlanningState}.
+ *
+ * @param region   The region's name.
+ * @param orders   The region's order ids, in planning sequence.
+ * @param vehicles The region's vehicle ids.
+ */
+public record Shard(String region, int[] orders, int[] vehicles) {
+
+    /**
+     * @return true if the shard has both orders and vehicles, i.e. anything to plan.
+     */
+    public boolean isPlannable() {
+        return orders.length > 0 && vehicles.length > 0;
+    }
+}
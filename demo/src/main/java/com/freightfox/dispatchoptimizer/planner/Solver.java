@@ -0,0 +1,36 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import java.util.Locale;
+
+/**
+ * How orders are handed to vehicles. Orders are always planned HIGH first,
+ * then MEDIUM, then LOW.
+ */
+public enum Solver {
+
+    /**
+     * One order at a time, in sequence, to the closest vehicle with room. Fast,
+     * but an early order can take the vehicle a later one needed more.
+     */
+    GREEDY,
+
+    /**
+     * A window of orders of the same priority at a time, matched to vehicles
+     * so the window's total distance is as small as possible. See
+     * {@link MatchingAssigner}.
+     */
+    MATCHING;
+
+    /**
+     * Parses a solver name as used in request parameters, ignoring case.
+     *
+     * @throws IllegalArgumentException If there is no such solver.
+     */
+    public static Solver of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("solver must be 'greedy' or 'matching'");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.TravelMatrix;
+
+import java.time.LocalTime;
+
+/**
+ * How travel is measured in a planning run: where distances come from, when
+ * the vehicles set off, and how fast vehicles without a speed of their own
+ * drive.
+ *
+ * @param matrix          Driving distances between positions.
+ * @param shiftStart      When every vehicle leaves its current position.
+ *                        Delivery windows are measured from here.
+ * @param defaultSpeedKmh Average speed of vehicles that do not set one.
+ */
+public record TravelModel(TravelMatrix matrix, LocalTime shiftStart, double defaultSpeedKmh) {
+
+    /** Great-circle distances, a shift starting at 08:00, and 30 km/h. */
+    public static final TravelModel DEFAULT = new TravelModel(TravelMatrix.HAVERSINE, LocalTime.of(8, 0), 30);
+}
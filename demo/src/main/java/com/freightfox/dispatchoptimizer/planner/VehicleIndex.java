@@ -0,0 +1,97 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Answers "nearest vehicle with enough remaining capacity" queries during a
+ * single planning run. Vehicles are identified by their position (0..n-1) in
+ * the point set the index was built from. Positions are passed as cached
+ * {@link GeoPoints} so lookups and moves never redo any trigonometry.
+ */
+public interface VehicleIndex {
+
+    /**
+     * Finds the closest vehicle that can still carry the given weight.
+     * Ties are broken in favour of the lowest vehicle position.
+     *
+     * @param points The set holding the order's position.
+     * @param point  The order's position in {@code points}.
+     * @param weight The order's package weight.
+     * @return The vehicle position, or -1 if no vehicle has enough capacity.
+     */
+    default int findNearest(GeoPoints points, int point, double weight) {
+        return findNearest(points, point, weight, null);
+    }
+
+    /**
+     * Same as {@link #findNearest(GeoPoints, int, double)}, also passing over
+     * vehicles {@code accept} turns down (e.g. because they would arrive too
+     * late). It is only asked about a vehicle that would otherwise be the best
+     * match so far, so it may be fairly expensive.
+     *
+     * @param accept Takes a vehicle position; null accepts every vehicle.
+     */
+    int findNearest(GeoPoints points, int point, double weight, IntPredicate accept);
+
+    /**
+     * Records that a vehicle has moved (after taking an order) and how much
+     * capacity it has left.
+     *
+     * @param vehicle           The vehicle position.
+     * @param points            The set holding the vehicle's new position.
+     * @param point             The new position's slot in {@code points}.
+     * @param remainingCapacity The capacity still free on the vehicle.
+     */
+    void update(int vehicle, GeoPoints points, int point, double remainingCapacity);
+
+    /**
+     * Drops every vehicle with less than {@code minWeight} capacity left from
+     * all later lookups, even after it would otherwise be updated. Callers pass
+     * the lightest order still to come, so a vehicle that cannot take any of
+     * them is never scanned again.
+     *
+     * @param minWeight The lightest remaining order's weight. Calls with a
+     *                  value no larger than a previous one are ignored.
+     */
+    void retire(double minWeight);
+
+    /**
+     * @return Vehicle distances computed by lookups so far.
+     */
+    long distanceEvaluations();
+
+    /**
+     * @return Vehicles passed over by lookups so far because they lacked the
+     *         capacity for the order.
+     */
+    long capacityRejections();
+
+    /**
+     * Indexes vehicles where they stand in a plan being built, with the
+     * capacity they have left.
+     *
+     * @param vehicles The vehicle ids; index positions follow this array.
+     */
+    static VehicleIndex create(VehicleIndexType type, DistanceMetric rankingMetric, PlanningState state,
+            int[] vehicles) {
+        GeoPoints positions = new GeoPoints(vehicles.length);
+        double[] remainingCapacities = new double[vehicles.length];
+        for (int i = 0; i < vehicles.length; i++) {
+            positions.copy(i, state.position, vehicles[i]);
+            remainingCapacities[i] = state.remainingCapacity(vehicles[i]);
+        }
+        return create(type, rankingMetric, positions, remainingCapacities);
+    }
+
+    static VehicleIndex create(VehicleIndexType type, DistanceMetric rankingMetric, GeoPoints vehicles,
+            double[] remainingCapacities) {
+        return switch (type) {
+            case BRUTE_FORCE -> new LinearVehicleIndex(rankingMetric, vehicles, remainingCapacities);
+            // Chord distance is built into the tree, so it ignores the ranking metric.
+            case KD_TREE -> new KdTreeVehicleIndex(vehicles, remainingCapacities);
+        };
+    }
+}
@@ -0,0 +1,8 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+// The available strategies for answering "which vehicle is closest to this order?".
+
+public enum VehicleIndexType {
+    BRUTE_FORCE,
+    KD_TREE
+}
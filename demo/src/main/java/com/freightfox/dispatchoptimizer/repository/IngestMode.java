@@ -0,0 +1,20 @@
+package com.freightfox.dispatchoptimizer.repository;
+
+/**
+ * How saved orders and vehicles are written to the database.
+ */
+public enum IngestMode {
+
+    /**
+     * Through JPA's {@code saveAll}. Hibernate reads each record by id first to
+     * decide between insert and update, then writes them in JDBC batches.
+     */
+    JPA,
+
+    /**
+     * As one batched SQL {@code MERGE} per batch, keyed on the id. New ids are
+     * inserted and known ids updated in place, without reading anything back,
+     * so re-uploading the same records costs the same as uploading them once.
+     */
+    UPSERT
+}
@@ -0,0 +1,7 @@
+package com.freightfox.dispatchoptimizer.repository;
+
+/**
+ * An order's address, looked up for plan responses after planning.
+ */
+public record OrderAddress(String orderId, String address) {
+}
@@ -1,12 +1,92 @@
 package com.freightfox.dispatchoptimizer.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.freightfox.dispatchoptimizer.model.Order;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 // JpaRepository<EntityType, PrimaryKeyType>
 @Repository
-public interface OrderRepository extends JpaRepository<Order, String> {
+public interface OrderRepository extends JpaRepository<Order, String>, UpsertRepository<Order> {
     // Spring Data JPA will provide all standard CRUD methods automatically.
     // We can add custom query methods here later if needed.
-}
\ No newline at end of file
+
+    // The planner's read path. The constructor expression builds plain, unmanaged
+    // Order objects, so nothing is added to the persistence context or dirty
+    // checked, and rows are streamed from the result set in fetch-size chunks.
+    // Addresses are not read: only plan responses show them, and only for
+    // assigned orders (see findAddresses).
+    String PLANNING_SELECT = "select new com.freightfox.dispatchoptimizer.model.Order("
+            + "o.orderId, o.latitude, o.longitude, o.packageWeight, o.priority, o.region, "
+            + "o.windowStart, o.windowEnd) from Order o";
+
+    // Sized to stay well within the databases' limits on IN list parameters.
+    int ADDRESS_CHUNK = 1000;
+
+    @Query(PLANNING_SELECT)
+    Stream<Order> streamForPlanning();
+
+    @Query(PLANNING_SELECT + " where o.region = :region")
+    Stream<Order> streamForPlanning(@Param("region") String region);
+
+    /**
+     * @return Every order, as unmanaged copies for planning.
+     */
+    @Transactional(readOnly = true)
+    default List<Order> findAllForPlanning() {
+        try (Stream<Order> orders = streamForPlanning()) {
+            return orders.toList();
+        }
+    }
+
+    @Query("select new com.freightfox.dispatchoptimizer.repository.OrderAddress(o.orderId, o.address) "
+            + "from Order o where o.orderId in :orderIds")
+    List<OrderAddress> findAddressChunk(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Looks up the addresses the planning read leaves out, a chunk of ids per query.
+     *
+     * @return The address of each known order, by order id.
+     */
+    @Transactional(readOnly = true)
+    default Map<String, String> findAddresses(List<String> orderIds) {
+        Map<String, String> addresses = new HashMap<>();
+        for (int from = 0; from < orderIds.size(); from += ADDRESS_CHUNK) {
+            List<String> chunk = orderIds.subList(from, Math.min(orderIds.size(), from + ADDRESS_CHUNK));
+            findAddressChunk(chunk).forEach(row -> addresses.put(row.orderId(), row.address()));
+        }
+        return addresses;
+    }
+
+    /**
+     * Hands every order to {@code consumer} as it is read, so callers that
+     * copy orders elsewhere never hold all of them at once.
+     */
+    @Transactional(readOnly = true)
+    default void forEachForPlanning(Consumer<Order> consumer) {
+        try (Stream<Order> orders = streamForPlanning()) {
+            orders.forEach(consumer);
+        }
+    }
+
+    /**
+     * Loads a single region's orders, so planning one depot never reads the others.
+     *
+     * @return The region's orders, as unmanaged copies for planning.
+     */
+    @Transactional(readOnly = true)
+    default List<Order> findByRegionForPlanning(String region) {
+        try (Stream<Order> orders = streamForPlanning(region)) {
+            return orders.toList();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.freightfox.dispatchoptimizer.repository;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+
+// Picked up by Spring Data as the implementation of OrderRepository's upsertAll.
+@RequiredArgsConstructor
+class OrderRepositoryImpl implements UpsertRepository<Order> {
+
+    // Standard SQL MERGE, so the database decides insert versus update per row.
+    private static final String MERGE = """
+            merge into delivery_orders t
+            using (values (?, ?, ?, ?, ?, ?, ?, ?, ?))
+                s(order_id, latitude, longitude, address, package_weight, priority, region, window_start, window_end)
+            on t.order_id = s.order_id
+            when matched then update set latitude = s.latitude, longitude = s.longitude, address = s.address,
+                package_weight = s.package_weight, priority = s.priority, region = s.region,
+                window_start = s.window_start, window_end = s.window_end
+            when not matched then insert
+                (order_id, latitude, longitude, address, package_weight, priority, region, window_start, window_end)
+                values (s.order_id, s.latitude, s.longitude, s.address, s.package_weight, s.priority, s.region,
+                    s.window_start, s.window_end)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+
+    @Override
+    public void upsertAll(List<Order> orders) {
+        UpsertRepository.validate(validator, orders);
+        jdbcTemplate.batchUpdate(MERGE, orders, orders.size(), (statement, order) -> {
+            statement.setString(1, order.getOrderId());
+            statement.setDouble(2, order.getLatitude());
+            statement.setDouble(3, order.getLongitude());
+            statement.setString(4, order.getAddress());
+            statement.setDouble(5, order.getPackageWeight());
+            statement.setString(6, order.getPriority().name());
+            statement.setString(7, order.getRegion());
+            statement.setObject(8, order.getWindowStart(), Types.TIME);
+            statement.setObject(9, order.getWindowEnd(), Types.TIME);
+        });
+    }
+}
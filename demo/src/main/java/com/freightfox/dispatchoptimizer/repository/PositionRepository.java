@@ -0,0 +1,19 @@
+package com.freightfox.dispatchoptimizer.repository;
+
+import com.freightfox.dispatchoptimizer.model.VehiclePosition;
+
+import java.util.List;
+
+/**
+ * Moves stored vehicles without loading them, for tracker pings.
+ */
+public interface PositionRepository {
+
+    /**
+     * Sets each vehicle's current position in a single batched statement.
+     *
+     * @return For each position, whether a stored vehicle was updated; false
+     *         when the vehicle id is unknown.
+     */
+    boolean[] updatePositions(List<VehiclePosition> positions);
+}
@@ -0,0 +1,42 @@
+package com.freightfox.dispatchoptimizer.repository;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes entities with a native {@code MERGE} instead of going through the
+ * persistence context. See {@link IngestMode#UPSERT}.
+ */
+public interface UpsertRepository<T> {
+
+    /**
+     * Inserts the entities, or overwrites the stored ones with the same id, in
+     * a single batched statement. Joins the current transaction.
+     *
+     * @throws ConstraintViolationException If any entity is invalid, before
+     *                                      anything is written.
+     */
+    void upsertAll(List<T> entities);
+
+    /**
+     * Bean-validates every entity, as Hibernate does before persisting one; a
+     * native MERGE would otherwise write invalid rows, or fail on a null
+     * column with a less helpful error.
+     *
+     * @throws ConstraintViolationException With the violations of all entities.
+     */
+    static <T> void validate(Validator validator, List<T> entities) {
+        Set<ConstraintViolation<T>> violations = new LinkedHashSet<>();
+        for (T entity : entities) {
+            violations.addAll(validator.validate(entity));
+        }
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
+}
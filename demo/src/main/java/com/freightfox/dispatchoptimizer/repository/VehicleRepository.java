@@ -1,9 +1,40 @@
 package com.freightfox.dispatchoptimizer.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.freightfox.dispatchoptimizer.model.Vehicle;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, String> {
-}
\ No newline at end of file
+public interface VehicleRepository extends JpaRepository<Vehicle, String>, UpsertRepository<Vehicle>,
+        PositionRepository {
+
+    // Unmanaged copies for the planner, without the address; see OrderRepository.
+    String PLANNING_SELECT = "select new com.freightfox.dispatchoptimizer.model.Vehicle(v.vehicleId, v.capacity, "
+            + "v.currentLatitude, v.currentLongitude, v.region, v.speedKmh) from Vehicle v";
+
+    @Query(PLANNING_SELECT)
+    Stream<Vehicle> streamForPlanning();
+
+    @Query(PLANNING_SELECT + " where v.region = :region")
+    Stream<Vehicle> streamForPlanning(@Param("region") String region);
+
+    @Transactional(readOnly = true)
+    default List<Vehicle> findAllForPlanning() {
+        try (Stream<Vehicle> vehicles = streamForPlanning()) {
+            return vehicles.toList();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    default List<Vehicle> findByRegionForPlanning(String region) {
+        try (Stream<Vehicle> vehicles = streamForPlanning(region)) {
+            return vehicles.toList();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.freightfox.dispatchoptimizer.repository;
+
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.model.VehiclePosition;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+
+// Picked up by Spring Data as the implementation of VehicleRepository's upsertAll
+// and updatePositions.
+@RequiredArgsConstructor
+class VehicleRepositoryImpl implements UpsertRepository<Vehicle>, PositionRepository {
+
+    private static final String MERGE = """
+            merge into vehicle t
+            using (values (?, ?, ?, ?, ?, ?, ?))
+                s(vehicle_id, capacity, current_latitude, current_longitude, current_address, region, speed_kmh)
+            on t.vehicle_id = s.vehicle_id
+            when matched then update set capacity = s.capacity, current_latitude = s.current_latitude,
+                current_longitude = s.current_longitude, current_address = s.current_address, region = s.region,
+                speed_kmh = s.speed_kmh
+            when not matched then insert
+                (vehicle_id, capacity, current_latitude, current_longitude, current_address, region, speed_kmh)
+                values (s.vehicle_id, s.capacity, s.current_latitude, s.current_longitude, s.current_address,
+                    s.region, s.speed_kmh)
+            """;
+
+    private static final String UPDATE_POSITION =
+            "update vehicle set current_latitude = ?, current_longitude = ? where vehicle_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Validator validator;
+
+    @Override
+    public void upsertAll(List<Vehicle> vehicles) {
+        UpsertRepository.validate(validator, vehicles);
+        jdbcTemplate.batchUpdate(MERGE, vehicles, vehicles.size(), (statement, vehicle) -> {
+            statement.setString(1, vehicle.getVehicleId());
+            statement.setDouble(2, vehicle.getCapacity());
+            statement.setDouble(3, vehicle.getCurrentLatitude());
+            statement.setDouble(4, vehicle.getCurrentLongitude());
+            statement.setString(5, vehicle.getCurrentAddress());
+            statement.setString(6, vehicle.getRegion());
+            statement.setObject(7, vehicle.getSpeedKmh(), Types.DOUBLE);
+        });
+    }
+
+    @Override
+    public boolean[] updatePositions(List<VehiclePosition> positions) {
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_POSITION, positions, positions.size(),
+                (statement, position) -> {
+                    statement.setDouble(1, position.latitude());
+                    statement.setDouble(2, position.longitude());
+                    statement.setString(3, position.vehicleId());
+                });
+        boolean[] updated = new boolean[positions.size()];
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Drivers that cannot tell report SUCCESS_NO_INFO (-2); assume the row exists.
+                updated[i++] = count != 0;
+            }
+        }
+        return updated;
+    }
+}
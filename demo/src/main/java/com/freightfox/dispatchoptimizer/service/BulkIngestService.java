@@ -0,0 +1,152 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.dto.IngestResultDto;
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Saves large uploads of orders or vehicles without holding the whole body in
+ * memory. Records are parsed one at a time with Jackson's streaming parser,
+ * validated individually, and saved in batches of
+ * {@code dispatch.ingest.batch-size}, each in its own transaction.
+ *
+ * The body is either newline-delimited JSON (one object per line) or a single
+ * JSON array of objects. Invalid records are skipped and reported; malformed
+ * JSON stops the upload, keeping everything read before it.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkIngestService {
+
+    private final DispatchService dispatchService;
+    private final DispatchProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public IngestResultDto ingestOrders(InputStream body) {
+        return ingest(body, Order.class, dispatchService::saveOrders);
+    }
+
+    public IngestResultDto ingestVehicles(InputStream body) {
+        return ingest(body, Vehicle.class, dispatchService::saveVehicles);
+    }
+
+    private <T> IngestResultDto ingest(InputStream body, Class<T> type, Consumer<List<T>> save) {
+        DispatchProperties.Ingest config = properties.getIngest();
+        Batch<T> batch = new Batch<>(config.getBatchSize(), save);
+        List<IngestResultDto.RecordError> errors = new ArrayList<>();
+        long record = 0;
+        long rejected = 0;
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            for (; token != null && token != JsonToken.END_ARRAY; token = parser.nextToken(), record++) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected a JSON object but found " + token);
+                }
+                // Only the current record is ever materialized.
+                ObjectNode node = parser.readValueAsTree();
+                Map<String, String> recordErrors = new TreeMap<>();
+                T entity = convert(node, type, recordErrors);
+
+                if (recordErrors.isEmpty()) {
+                    batch.add(entity);
+                } else {
+                    rejected++;
+                    if (errors.size() < config.getMaxReportedErrors()) {
+                        errors.add(new IngestResultDto.RecordError(record, recordErrors));
+                    }
+                }
+            }
+            batch.flush();
+        } catch (JsonProcessingException e) {
+            // Everything before the broken record is valid, so keep it.
+            batch.flush();
+            return new IngestResultDto("error", "Malformed upload at record " + record + ": " + e.getOriginalMessage()
+                    + ". Records before it were saved.", batch.saved, rejected, errors, batch.results);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        String status = rejected == 0 ? "success" : "partial";
+        return new IngestResultDto(status, batch.saved + " records saved, " + rejected + " rejected.", batch.saved,
+                rejected, errors, batch.results);
+    }
+
+    // Binds and validates one record, collecting field errors instead of throwing.
+    private <T> T convert(ObjectNode node, Class<T> type, Map<String, String> recordErrors) {
+        T entity;
+        try {
+            entity = objectMapper.treeToValue(node, type);
+        } catch (JsonProcessingException e) {
+            recordErrors.put("record", e.getOriginalMessage());
+            return null;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(entity);
+        for (ConstraintViolation<T> violation : violations) {
+            recordErrors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return entity;
+    }
+
+    private static final class Batch<T> {
+
+        private final int size;
+        private final Consumer<List<T>> save;
+        private final List<IngestResultDto.BatchResult> results = new ArrayList<>();
+        private List<T> records;
+        private long saved;
+
+        Batch(int size, Consumer<List<T>> save) {
+            this.size = size;
+            this.save = save;
+            this.records = new ArrayList<>(size);
+        }
+
+        void add(T record) {
+            records.add(record);
+            if (records.size() >= size) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (records.isEmpty()) {
+                return;
+            }
+            long started = System.nanoTime();
+            save.accept(records);
+            results.add(new IngestResultDto.BatchResult(results.size(), records.size(),
+                    (System.nanoTime() - started) / 1_000_000));
+            saved += records.size();
+            // A fresh list: the saved one may still be referenced by after-commit work.
+            records = new ArrayList<>(size);
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package com.freightfox.dispatchoptimizer.service;
 
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
 import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.dto.PlanView;
 import com.freightfox.dispatchoptimizer.model.Order;
 import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.planner.GreedyAssigner;
+import com.freightfox.dispatchoptimizer.planner.MatchingAssigner;
+import com.freightfox.dispatchoptimizer.planner.OrderAssigner;
+import com.freightfox.dispatchoptimizer.planner.OrderSequence;
+import com.freightfox.dispatchoptimizer.planner.OrderTable;
+import com.freightfox.dispatchoptimizer.planner.PartitionedPlanner;
+import com.freightfox.dispatchoptimizer.planner.PlanningProgress;
+import com.freightfox.dispatchoptimizer.planner.PlanningSession;
+import com.freightfox.dispatchoptimizer.planner.RouteImprover;
+import com.freightfox.dispatchoptimizer.planner.Shard;
+import com.freightfox.dispatchoptimizer.planner.Solver;
+import com.freightfox.dispatchoptimizer.repository.IngestMode;
 import com.freightfox.dispatchoptimizer.repository.OrderRepository;
 import com.freightfox.dispatchoptimizer.repository.VehicleRepository;
-import com.freightfox.dispatchoptimizer.util.DistanceCalculator;
+import com.freightfox.dispatchoptimizer.service.PlanMetrics.Phase;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service // Tells Spring this is a service class containing business logic
 @RequiredArgsConstructor // Lombok annotation to create a constructor for our final fields (dependency
@@ -22,15 +41,111 @@ public class DispatchService {
     // These repositories will be automatically injected by Spring
     private final OrderRepository orderRepository;
     private final VehicleRepository vehicleRepository;
+    private final DispatchProperties properties;
+    private final PartitionedPlanner partitionedPlanner;
+    private final IncrementalPlanner incrementalPlanner;
+    private final PlanCache planCache;
+    private final OrderQueue orderQueue;
+    private final PlanMetrics metrics;
+    private final PlanSnapshotStore snapshotStore;
+    private final TravelMatrixProvider travelMatrixProvider;
+    private final FleetStore fleetStore;
+    private final VehiclePositions vehiclePositions;
+    private final OffHeapOrderStore offHeapOrders;
 
     @Transactional // A good practice to make database operations atomic
     public void saveOrders(List<Order> orders) {
-        orderRepository.saveAll(orders);
+        long started = System.nanoTime();
+        if (properties.getIngest().getMode() == IngestMode.UPSERT) {
+            orderRepository.upsertAll(orders);
+        } else {
+            orderRepository.saveAll(orders);
+        }
+        afterCommit(() -> {
+            metrics.ingestBatch("orders", System.nanoTime() - started);
+            // Publish the new data and patch the in-memory plan first, then invalidate
+            // the cache, so a concurrent request can never cache the old plan as the new version.
+            fleetStore.ordersSaved(orders);
+            offHeapOrders.ordersSaved(orders);
+            orderQueue.ordersSaved(orders);
+            incrementalPlanner.ordersSaved(orders);
+            planCache.invalidate();
+        });
     }
 
     @Transactional
     public void saveVehicles(List<Vehicle> vehicles) {
-        vehicleRepository.saveAll(vehicles);
+        long started = System.nanoTime();
+        if (properties.getIngest().getMode() == IngestMode.UPSERT) {
+            vehicleRepository.upsertAll(vehicles);
+        } else {
+            vehicleRepository.saveAll(vehicles);
+        }
+        afterCommit(() -> {
+            metrics.ingestBatch("vehicles", System.nanoTime() - started);
+            fleetStore.vehiclesSaved(vehicles);
+            vehiclePositions.vehiclesSaved(vehicles);
+            incrementalPlanner.vehiclesSaved(vehicles);
+            planCache.invalidate();
+        });
+    }
+
+    /**
+     * Computes the first plan at startup when a snapshot from the previous run
+     * is available, so it is warm-started from that snapshot and cached before
+     * the first request arrives.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        if (snapshotStore.hasWarmStart()) {
+            getCachedDispatchPlan();
+        }
+    }
+
+    /**
+     * Returns the plan for the current data, reusing the last computed plan
+     * until orders or vehicles are saved again.
+     *
+     * @return The plan along with its ETag.
+     */
+    public PlanCache.CachedPlan getCachedDispatchPlan() {
+        return planCache.get(this::generateDispatchPlan);
+    }
+
+    /**
+     * Same as {@link #getCachedDispatchPlan()} for a single region. Each region's
+     * plan is cached on its own.
+     *
+     * @param region The region to plan, or null (or blank) for all of them.
+     */
+    public PlanCache.CachedPlan getCachedDispatchPlan(String region) {
+        if (region == null || region.isBlank()) {
+            return getCachedDispatchPlan();
+        }
+        return planCache.get(region, () -> generateDispatchPlan(region));
+    }
+
+    /**
+     * Same as {@link #getCachedDispatchPlan(String)}, solved with {@code solver}
+     * instead of the configured one. Each solver's plans are cached on their own.
+     *
+     * @param region The region to plan, or null (or blank) for all of them.
+     * @param solver The solver to use, or null for the configured one.
+     */
+    public PlanCache.CachedPlan getCachedDispatchPlan(String region, Solver solver) {
+        if (solver == null || solver == properties.getPlanner().getSolver()) {
+            return getCachedDispatchPlan(region);
+        }
+        String key = (region == null || region.isBlank() ? "" : region) + "?solver=" + solver;
+        return planCache.get(key, () -> generateDispatchPlan(region, solver));
+    }
+
+    /**
+     * @return The ETag the plan for the current data will carry, without
+     *         computing the plan.
+     */
+    public String currentPlanETag() {
+        return planCache.currentETag();
     }
 
     /**
@@ -39,63 +154,360 @@ public class DispatchService {
      * @return A list of dispatch plans, one for each vehicle.
      */
     public List<DispatchPlanDto> generateDispatchPlan() {
-        List<Order> unassignedOrders = new ArrayList<>(orderRepository.findAll());
-        List<Vehicle> allVehicles = vehicleRepository.findAll();
+        return metrics.timePlan(() -> {
+            if (isIncremental()) {
+                // Serve the in-memory plan, which is patched as new data is saved.
+                return incrementalPlanner.currentPlan(this::solve, this::render);
+            }
+            return render(solve());
+        });
+    }
 
-        if (allVehicles.isEmpty()) {
-            return Collections.emptyList(); // Edge case: no vehicles to dispatch
+    /**
+     * Solves one region from scratch, loading only that region's orders and
+     * vehicles. Regions are planned independently, so this matches the
+     * region's part of the full plan.
+     *
+     * @param region The region to plan.
+     * @return A list of dispatch plans, one for each of the region's vehicles.
+     */
+    public List<DispatchPlanDto> generateDispatchPlan(String region) {
+        return generateDispatchPlan(region, properties.getPlanner().getSolver());
+    }
+
+    /**
+     * Solves from scratch with the given solver, bypassing the incremental and
+     * cached plans.
+     *
+     * @param region The region to plan, or null (or blank) for all of them.
+     * @param solver The solver to use.
+     * @return A list of dispatch plans, one for each vehicle planned.
+     */
+    public List<DispatchPlanDto> generateDispatchPlan(String region, Solver solver) {
+        if (region == null || region.isBlank()) {
+            return metrics.timePlan(() -> render(solve(new PlanningProgress(0), solver)));
         }
+        return metrics.timePlan(() -> {
+            if (properties.getPlanner().getOffHeap().isEnabled()) {
+                return render(solveOffHeap(region, () -> vehicleRepository.findByRegionForPlanning(region), null,
+                        solver, new PlanningProgress(0)));
+            }
+            FleetStore.Snapshot snapshot = fleetSnapshot();
+            if (snapshot != null) {
+                return render(solve(() -> snapshot.orders(region), () -> snapshot.vehicles(region), false, null,
+                        solver, new PlanningProgress(0)));
+            }
+            return render(solve(() -> orderRepository.findByRegionForPlanning(region),
+                    () -> vehicleRepository.findByRegionForPlanning(region), false, null, solver,
+                    new PlanningProgress(0)));
+        });
+    }
 
-        // --- The Optimization Algorithm ---
+    /**
+     * A plan to be written out one vehicle at a time.
+     *
+     * @param etag   The quoted ETag of the data version it was computed for.
+     * @param writer Renders each vehicle's plan and hands it on, in vehicle order.
+     */
+    public record StreamedPlan(String etag, Consumer<Consumer<DispatchPlanDto>> writer) {
 
-        // 1. Create a dispatch plan for each vehicle, ready to be filled.
-        Map<String, DispatchPlanDto> planMap = allVehicles.stream()
-                .collect(Collectors.toMap(Vehicle::getVehicleId, DispatchPlanDto::new));
+        /** Hands each vehicle's plan to {@code consumer}, in vehicle order. */
+        public void forEach(Consumer<DispatchPlanDto> consumer) {
+            writer.accept(consumer);
+        }
+    }
 
-        // 2. Sort all unassigned orders by priority (HIGH > MEDIUM > LOW). This is a
-        // key requirement.
-        unassignedOrders.sort(Comparator.comparing(Order::getPriority));
+    /**
+     * Returns the plan for the current data, for callers that write large
+     * plans out a vehicle at a time. It is cached per data version, region
+     * and solver, as {@link #getCachedDispatchPlan(String, Solver)} is, and
+     * carries the same ETag.
+     *
+     * Normally this is that very cached plan. With the off-heap order store,
+     * only the solved routes are cached and each vehicle's orders are rendered
+     * as it is written, so only a few vehicles' orders exist as objects at a
+     * time. This is the way to plan large backlogs.
+     *
+     * @param region The region to plan, or null (or blank) for all of them.
+     * @param solver The solver to use, or null for the configured one.
+     * @param view   How much of each vehicle's plan the caller writes out. The
+     *               compact view needs no addresses, so none are looked up.
+     */
+    public StreamedPlan getStreamedDispatchPlan(String region, Solver solver, PlanView view) {
+        if (!properties.getPlanner().getOffHeap().isEnabled()) {
+            PlanCache.CachedPlan cached = getCachedDispatchPlan(region, solver);
+            return new StreamedPlan(cached.etag(), cached.plan()::forEach);
+        }
+        boolean allRegions = region == null || region.isBlank();
+        Solver chosen = solver != null ? solver : properties.getPlanner().getSolver();
+        PlanCache.CachedSession cached = planCache.session((allRegions ? "" : region) + "?solver=" + chosen,
+                () -> metrics.timePlan(() -> allRegions ? solve(new PlanningProgress(0), chosen)
+                        : solveOffHeap(region, () -> vehicleRepository.findByRegionForPlanning(region), null,
+                                chosen, new PlanningProgress(0))));
+        PlanningSession session = cached.session();
+        if (view == PlanView.COMPACT) {
+            return new StreamedPlan(cached.etag(), consumer -> {
+                for (int v = 0; v < session.vehicleCount(); v++) {
+                    consumer.accept(session.toDispatchPlan(v));
+                }
+            });
+        }
+        return new StreamedPlan(cached.etag(), consumer -> streamWithAddresses(session, consumer));
+    }
 
-        // 3. Iterate through each sorted order and find the best vehicle for it.
-        for (Order order : unassignedOrders) {
-            Vehicle bestVehicle = findBestVehicleForOrder(order, allVehicles, planMap);
+    // Renders vehicles until they hold a full address lookup's worth of
+    // orders, then looks up their addresses with one query and hands them on.
+    private void streamWithAddresses(PlanningSession session, Consumer<DispatchPlanDto> consumer) {
+        List<DispatchPlanDto> batch = new ArrayList<>();
+        int orders = 0;
+        for (int v = 0; v < session.vehicleCount(); v++) {
+            DispatchPlanDto plan = session.toDispatchPlan(v);
+            batch.add(plan);
+            orders += plan.getAssignedOrders().size();
+            if (orders >= OrderRepository.ADDRESS_CHUNK || v == session.vehicleCount() - 1) {
+                withAddresses(batch).forEach(consumer);
+                batch.clear();
+                orders = 0;
+            }
+        }
+    }
 
-            if (bestVehicle != null) {
-                // 4. If a suitable vehicle is found, assign the order to its plan.
-                planMap.get(bestVehicle.getVehicleId()).assignOrder(order);
+    /**
+     * Solves the plan from scratch, bypassing the incremental and cached plans,
+     * while reporting to {@code progress}. If the run is stopped early the plan
+     * holds the orders assigned up to that point.
+     *
+     * @param progress Tracks and can stop the run.
+     * @return A list of dispatch plans, one for each vehicle.
+     */
+    public List<DispatchPlanDto> generateDispatchPlan(PlanningProgress progress) {
+        return generateDispatchPlan(progress, null);
+    }
+
+    /**
+     * Same as {@link #generateDispatchPlan(PlanningProgress)} with the given solver.
+     *
+     * @param solver The solver to use, or null for the configured one.
+     */
+    public List<DispatchPlanDto> generateDispatchPlan(PlanningProgress progress, Solver solver) {
+        Solver chosen = solver != null ? solver : properties.getPlanner().getSolver();
+        return metrics.timePlan(() -> render(solve(progress, chosen)));
+    }
+
+    private PlanningSession solve() {
+        // Tracked only to feed the metrics.
+        return solve(new PlanningProgress(0), properties.getPlanner().getSolver());
+    }
+
+    private List<DispatchPlanDto> render(PlanningSession session) {
+        return metrics.time(Phase.RENDER, () -> withAddresses(session.toDispatchPlans()));
+    }
+
+    /**
+     * Fills in the addresses the planning read leaves out, for the assigned
+     * orders only. The planned orders may be shared with the fleet store or the
+     * incremental plan, so each is replaced by a copy rather than updated.
+     */
+    private List<DispatchPlanDto> withAddresses(List<DispatchPlanDto> plans) {
+        List<String> missing = new ArrayList<>();
+        for (DispatchPlanDto plan : plans) {
+            for (Order order : plan.getAssignedOrders()) {
+                if (order.getAddress() == null) {
+                    missing.add(order.getOrderId());
+                }
             }
-            // If bestVehicle is null, it means no vehicle could take this order (e.g., due
-            // to capacity).
-            // The order remains unassigned, which is the correct behavior.
         }
+        if (missing.isEmpty()) {
+            return plans;
+        }
+        Map<String, String> addresses = orderRepository.findAddresses(missing);
+        for (DispatchPlanDto plan : plans) {
+            plan.getAssignedOrders().replaceAll(order -> order.getAddress() != null ? order
+                    : withAddress(order, addresses.get(order.getOrderId())));
+        }
+        return plans;
+    }
+
+    private static Order withAddress(Order order, String address) {
+        Order copy = new Order(order);
+        copy.setAddress(address);
+        return copy;
+    }
+
+    /**
+     * Loads every order and vehicle and solves the plan from scratch, or from
+     * the previous run's snapshot if this is the first plan since startup. The
+     * result becomes the next snapshot, unless the run was cancelled or ran out
+     * of time: a partial plan must not replace the last complete one.
+     */
+    private PlanningSession solve(PlanningProgress progress, Solver solver) {
+        PlanningSession session;
+        if (properties.getPlanner().getOffHeap().isEnabled()) {
+            session = solveOffHeap(null, vehicleRepository::findAllForPlanning, snapshotStore.takeWarmStart(),
+                    solver, progress);
+        } else {
+            FleetStore.Snapshot fleet = fleetSnapshot();
+            session = fleet != null
+                    ? solve(fleet::orders, fleet::vehicles, false, snapshotStore.takeWarmStart(), solver, progress)
+                    : solve(orderRepository::findAllForPlanning, vehicleRepository::findAllForPlanning,
+                            properties.getPlanner().isOrderQueue(), snapshotStore.takeWarmStart(), solver,
+                            progress);
+        }
+        if (snapshotStore.isEnabled() && !progress.isCancelled() && !progress.isBudgetExhausted()) {
+            snapshotStore.save(session.routes());
+        }
+        return session;
+    }
+
+    /**
+     * Solves the plan for the orders and vehicles loaded.
+     *
+     * @param useQueue  Whether to read the orders from the order queue, which
+     *                  holds every order, instead of loading and sequencing them.
+     * @param warmStart Routes to restore before planning the remaining orders,
+     *                  or null to start from zero.
+     * @param solver    How orders are handed to vehicles.
+     */
+    private PlanningSession solve(Supplier<List<Order>> loadOrders, Supplier<List<Vehicle>> loadVehicles,
+            boolean useQueue, Map<String, List<String>> warmStart, Solver solver, PlanningProgress progress) {
+        // --- The Optimization Algorithm ---
+
+        // 1. Put all unassigned orders in priority order (HIGH > MEDIUM > LOW). This is
+        // a key requirement. The order queue keeps them that way as they are saved;
+        // otherwise one bucketing pass over the loaded orders does it.
+        OrderSequence sequence = properties.getPlanner().getOrderSequence();
+        List<Order> unassignedOrders;
+        if (useQueue) {
+            unassignedOrders = metrics.time(Phase.LOAD, () -> orderQueue.orders(loadOrders));
+        } else {
+            List<Order> loaded = metrics.time(Phase.LOAD, loadOrders);
+            unassignedOrders = metrics.time(Phase.SORT, () -> OrderQueue.inPlanningSequence(loaded, sequence));
+        }
+        List<Vehicle> allVehicles = loadVehicles(loadVehicles);
 
-        return new ArrayList<>(planMap.values());
+        // 2. Copy the entities into primitive arrays indexed by dense ints. From here
+        // on the solver never touches a boxed Double or a String id.
+        PlanningSession session = metrics.time(Phase.BUILD, () -> new PlanningSession(unassignedOrders, allVehicles,
+                travelMatrixProvider.travelModel()));
+        return solve(session, warmStart, solver, progress);
     }
 
-    private Vehicle findBestVehicleForOrder(Order order, List<Vehicle> vehicles, Map<String, DispatchPlanDto> planMap) {
-        double minDistance = Double.MAX_VALUE;
-        Vehicle bestVehicle = null;
+    /**
+     * Same as {@link #solve(Supplier, Supplier, boolean, Map, Solver, PlanningProgress)}
+     * for the orders in the off-heap store. They are read straight from the
+     * store's records, in planning sequence, and never loaded as objects.
+     * Vehicles always come from the database: the fleet store would hold every
+     * order on the heap too.
+     *
+     * @param region The region to plan, or null for all of them.
+     */
+    private PlanningSession solveOffHeap(String region, Supplier<List<Vehicle>> loadVehicles,
+            Map<String, List<String>> warmStart, Solver solver, PlanningProgress progress) {
+        OrderTable orders = metrics.time(Phase.LOAD, () -> offHeapOrders.orders(orderRepository::forEachForPlanning,
+                region, properties.getPlanner().getOrderSequence()));
+        List<Vehicle> allVehicles = loadVehicles(loadVehicles);
+        // Saves wait until every order has been copied, so none is read half-way through an update.
+        PlanningSession session = metrics.time(Phase.BUILD, () -> offHeapOrders.read(
+                () -> new PlanningSession(orders, allVehicles, travelMatrixProvider.travelModel())));
+        return solve(session, warmStart, solver, progress);
+    }
 
-        for (Vehicle vehicle : vehicles) {
-            DispatchPlanDto currentPlan = planMap.get(vehicle.getVehicleId());
+    // Vehicles are planned from their latest tracker ping, flushed to the database or not.
+    private List<Vehicle> loadVehicles(Supplier<List<Vehicle>> loadVehicles) {
+        return metrics.time(Phase.LOAD, () -> vehiclePositions.withLivePositions(loadVehicles.get()));
+    }
 
-            // Constraint 1: Check if the vehicle has enough capacity for this order.
-            if (currentPlan.getTotalLoad() + order.getPackageWeight() <= vehicle.getCapacity()) {
+    /**
+     * Solves the plan for a session just built from the loaded orders and vehicles.
+     */
+    private PlanningSession solve(PlanningSession session, Map<String, List<String>> warmStart, Solver solver,
+            PlanningProgress progress) {
+        progress.start(session.orderCount());
 
-                // Calculate distance from the vehicle's last known location to the new order.
-                double distance = DistanceCalculator.calculate(
-                        currentPlan.getCurrentLatitude(),
-                        currentPlan.getCurrentLongitude(),
-                        order.getLatitude(),
-                        order.getLongitude());
+        if (session.vehicleCount() == 0) {
+            metrics.solved(progress);
+            return session; // Edge case: no vehicles to dispatch, so an empty plan
+        }
 
-                // Constraint 2: Find the closest vehicle.
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    bestVehicle = vehicle;
-                }
+        // 3. Assign each order, in sequence, to the closest vehicle with room for it
+        // that makes the order's delivery window, if it has one. The matching solver
+        // instead matches a window of same-priority orders to vehicles at a time.
+        // After a restart, the previous plan's routes are restored first, as far as
+        // they still hold, and only the rest is planned.
+        // Orders only go to vehicles of their own region, and regions are planned
+        // side by side. Large fleets can optionally be split into geographic
+        // clusters solved in parallel. Orders no vehicle could take (e.g., due to
+        // capacity) remain unassigned, which is the correct behavior.
+        int[] toPlan = session.allOrders();
+        if (warmStart != null) {
+            metrics.run(Phase.RESTORE, () -> session.restore(warmStart, progress));
+            toPlan = session.unassignedOrders();
+        }
+        List<Shard> shards = session.shards(toPlan, session.allVehicles());
+        OrderAssigner assigner = assigner(solver, progress);
+        metrics.run(Phase.ASSIGN, () -> {
+            if (shards.size() > 1) {
+                partitionedPlanner.assignShards(session.state(), shards,
+                        properties.getPlanner().getParallel().isEnabled(), assigner);
+            } else if (properties.getPlanner().getParallel().isEnabled()) {
+                partitionedPlanner.assign(session.state(), shards.get(0).orders(), assigner);
+            } else {
+                assigner.assign(session.state(), shards.get(0).orders());
             }
+        });
+        metrics.solved(progress);
+
+        // 4. Optionally revisit the greedy choices: reorder routes and move orders
+        // between nearby vehicles wherever that shortens the total distance.
+        DispatchProperties.Improvement improvement = properties.getPlanner().getImprovement();
+        if (improvement.isEnabled()) {
+            metrics.run(Phase.IMPROVE, () -> new RouteImprover(improvement.getTimeBudgetMs(),
+                    improvement.getMaxPasses(), improvement.getNeighbors(), progress).improve(session.state(), shards));
+        }
+
+        return session;
+    }
+
+    private OrderAssigner assigner(Solver solver, PlanningProgress progress) {
+        DispatchProperties.Planner planner = properties.getPlanner();
+        return switch (solver) {
+            case GREEDY -> new GreedyAssigner(planner.getVehicleIndex(), planner.getRankingMetric(), progress);
+            case MATCHING -> new MatchingAssigner(planner.getVehicleIndex(), planner.getRankingMetric(),
+                    planner.getMatching().getWindowSize(), planner.getMatching().getCandidates(),
+                    planner.getMatching().getMaxDetour(), progress);
+        };
+    }
+
+    // The incremental plan holds every order as an object, which the off-heap
+    // store is there to avoid, so that store always solves from scratch.
+    private boolean isIncremental() {
+        DispatchProperties.Planner planner = properties.getPlanner();
+        return planner.getIncremental().isEnabled() && !planner.getOffHeap().isEnabled();
+    }
+
+    // With the fleet store enabled, a plan reads orders and vehicles from one
+    // snapshot taken up front, instead of two separate database queries that a
+    // concurrent commit could fall between. Null when the store is disabled.
+    private FleetStore.Snapshot fleetSnapshot() {
+        if (!properties.getPlanner().isFleetStore()) {
+            return null;
+        }
+        return fleetStore.snapshot(orderRepository::findAllForPlanning, vehicleRepository::findAllForPlanning);
+    }
+
+    // Runs the action once the current transaction commits, so the in-memory
+    // plan never sees data that was rolled back. Runs it straight away outside
+    // a transaction.
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
-        return bestVehicle;
     }
-}
\ No newline at end of file
+}
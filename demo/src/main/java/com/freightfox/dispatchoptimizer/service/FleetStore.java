@@ -0,0 +1,198 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Every order and vehicle, kept in memory as a series of immutable, versioned
+ * {@link Snapshot}s. Each committed batch publishes a new snapshot; a plan
+ * takes the current one with a single volatile read and works from it
+ * throughout, so it always sees one consistent state of orders and vehicles,
+ * however much is being saved meanwhile.
+ *
+ * Publishing is copy-on-write, but a batch only costs its own size: a snapshot
+ * is a compacted base plus the batches saved since, and the base is rebuilt
+ * once those batches add up to a quarter of it. Writers take a lock among
+ * themselves; readers never lock, and running plans never hold up a writer.
+ *
+ * The store is filled from the database on first use and then kept current by
+ * {@link DispatchService}; data written to the database by other means is not
+ * seen until {@link #invalidate()}. Saved batches are copied on publish, since
+ * the entities passed in belong to the request and the persistence context
+ * that saved them. The first load keeps the objects it is given, which the
+ * planning read builds fresh and hands to no one else.
+ */
+@Component
+public class FleetStore {
+
+    // Saved batches are folded into the base once they add up to this many
+    // records, or to a quarter of the base if that is more.
+    private static final int MIN_COMPACTION = 4096;
+
+    private volatile Snapshot current;
+
+    /**
+     * Returns the latest snapshot without locking, loading the store first if
+     * this is the first use.
+     *
+     * @param loadOrders   Reads every order from the database, used the first time only.
+     * @param loadVehicles Reads every vehicle from the database, used the first time only.
+     */
+    public Snapshot snapshot(Supplier<List<Order>> loadOrders, Supplier<List<Vehicle>> loadVehicles) {
+        Snapshot snapshot = current;
+        return snapshot != null ? snapshot : load(loadOrders, loadVehicles);
+    }
+
+    /**
+     * Publishes a committed batch of saved orders, replacing earlier versions
+     * of the same order ids.
+     */
+    public synchronized void ordersSaved(List<Order> orders) {
+        Snapshot snapshot = current;
+        if (snapshot != null) {
+            List<Order> copies = orders.stream().map(Order::new).toList();
+            current = new Snapshot(snapshot.version + 1, snapshot.orders.with(copies), snapshot.vehicles);
+        }
+    }
+
+    /**
+     * Publishes a committed batch of saved vehicles, replacing earlier versions
+     * of the same vehicle ids.
+     */
+    public synchronized void vehiclesSaved(List<Vehicle> vehicles) {
+        Snapshot snapshot = current;
+        if (snapshot != null) {
+            List<Vehicle> copies = vehicles.stream().map(Vehicle::new).toList();
+            current = new Snapshot(snapshot.version + 1, snapshot.orders, snapshot.vehicles.with(copies));
+        }
+    }
+
+    /**
+     * Drops the store so the next plan reloads it from the database.
+     */
+    public synchronized void invalidate() {
+        current = null;
+    }
+
+    // Loading holds the writer lock, so a batch that commits while the database
+    // is being read is applied on top once the load is done. Batches published
+    // before the load started are already in the database.
+    private synchronized Snapshot load(Supplier<List<Order>> loadOrders, Supplier<List<Vehicle>> loadVehicles) {
+        if (current == null) {
+            current = new Snapshot(0, Layer.of(loadOrders.get(), Order::getOrderId),
+                    Layer.of(loadVehicles.get(), Vehicle::getVehicleId));
+        }
+        return current;
+    }
+
+    /**
+     * One version of every order and vehicle. Never changes once published.
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final Layer<Order> orders;
+        private final Layer<Vehicle> vehicles;
+
+        private Snapshot(long version, Layer<Order> orders, Layer<Vehicle> vehicles) {
+            this.version = version;
+            this.orders = orders;
+            this.vehicles = vehicles;
+        }
+
+        /** Bumped by every published batch. */
+        public long version() {
+            return version;
+        }
+
+        /** @return Every order, in the order they were first saved. */
+        public List<Order> orders() {
+            return orders.values();
+        }
+
+        /** @return Every vehicle, in the order they were first saved. */
+        public List<Vehicle> vehicles() {
+            return vehicles.values();
+        }
+
+        /** @return The region's orders. */
+        public List<Order> orders(String region) {
+            return orders().stream().filter(order -> region.equals(order.getRegion())).toList();
+        }
+
+        /** @return The region's vehicles. */
+        public List<Vehicle> vehicles(String region) {
+            return vehicles().stream().filter(vehicle -> region.equals(vehicle.getRegion())).toList();
+        }
+    }
+
+    // A compacted map by id, plus the batches saved since (newest first).
+    private static final class Layer<T> {
+
+        private record Batch<T>(List<T> records, Batch<T> previous) {
+        }
+
+        private final Function<T, String> id;
+        private final Map<String, T> base;
+        private final Batch<T> pending;
+        private final int pendingSize;
+        // Built on first read. Racing readers may each build it, but build the same list.
+        private volatile List<T> values;
+
+        private Layer(Function<T, String> id, Map<String, T> base, Batch<T> pending, int pendingSize) {
+            this.id = id;
+            this.base = base;
+            this.pending = pending;
+            this.pendingSize = pendingSize;
+        }
+
+        static <T> Layer<T> of(List<T> records, Function<T, String> id) {
+            return new Layer<T>(id, Map.of(), null, 0).compacted(records);
+        }
+
+        Layer<T> with(List<T> batch) {
+            if (pendingSize + batch.size() > Math.max(MIN_COMPACTION, base.size() / 4)) {
+                return compacted(batch);
+            }
+            return new Layer<>(id, base, new Batch<>(List.copyOf(batch), pending), pendingSize + batch.size());
+        }
+
+        List<T> values() {
+            List<T> result = values;
+            if (result == null) {
+                result = List.copyOf(pending == null ? base.values() : merged(List.of()).values());
+                values = result;
+            }
+            return result;
+        }
+
+        private Layer<T> compacted(List<T> batch) {
+            return new Layer<>(id, Collections.unmodifiableMap(merged(batch)), null, 0);
+        }
+
+        // A re-saved id keeps its original position, as a database update
+        // would, and the last version of it wins, as with saveAll().
+        private Map<String, T> merged(List<T> batch) {
+            Map<String, T> merged = new LinkedHashMap<>(base);
+            Deque<Batch<T>> oldestFirst = new ArrayDeque<>();
+            for (Batch<T> b = pending; b != null; b = b.previous()) {
+                oldestFirst.push(b);
+            }
+            for (Batch<T> b : oldestFirst) {
+                b.records().forEach(record -> merged.put(id.apply(record), record));
+            }
+            batch.forEach(record -> merged.put(id.apply(record), record));
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.planner.GreedyAssigner;
+import com.freightfox.dispatchoptimizer.planner.PlanningSession;
+import com.freightfox.dispatchoptimizer.planner.Shard;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the current dispatch plan in memory and patches it as new orders and
+ * vehicles are saved, instead of re-solving everything on every request.
+ *
+ * New orders are handed to the closest vehicle with room, continuing from
+ * where each route currently ends. New vehicles pick up any orders that were
+ * left unassigned for lack of capacity. Because every batch is planned on its
+ * own, a HIGH order arriving late is not placed ahead of LOW orders that are
+ * already routed; to keep that drift bounded the plan is re-solved from scratch
+ * once incremental orders exceed {@code replan-threshold} of the last full
+ * solve (and at least {@code min-replan-orders}), or whenever a known order or vehicle is saved with different planning
+ * fields.
+ */
+@Component
+@RequiredArgsConstructor
+public class IncrementalPlanner {
+
+    private final DispatchProperties properties;
+
+    // All fields below are guarded by "this".
+    private PlanningSession session;
+    private List<DispatchPlanDto> renderedPlan;
+    private int ordersAtLastFullSolve;
+    private int incrementalOrders;
+
+    /**
+     * Returns the current plan, solving from scratch only if there is no usable
+     * plan in memory.
+     *
+     * @param fullSolve Builds and solves a fresh session from the database.
+     * @param render    Turns the session into the plan handed out, which is
+     *                  kept until the session next changes.
+     * @return The current dispatch plan.
+     */
+    public synchronized List<DispatchPlanDto> currentPlan(Supplier<PlanningSession> fullSolve,
+            Function<PlanningSession, List<DispatchPlanDto>> render) {
+        if (session == null) {
+            session = fullSolve.get();
+            ordersAtLastFullSolve = session.orderCount();
+            incrementalOrders = 0;
+            renderedPlan = null;
+        }
+        if (renderedPlan == null) {
+            renderedPlan = render.apply(session);
+        }
+        return renderedPlan;
+    }
+
+    /**
+     * Applies a committed batch of saved orders to the in-memory plan.
+     */
+    public synchronized void ordersSaved(List<Order> orders) {
+        if (session == null) {
+            return; // Nothing cached; the next request solves from scratch anyway.
+        }
+
+        List<Order> newOrders = new ArrayList<>();
+        for (Order order : latestById(orders, Order::getOrderId)) {
+            if (!session.hasOrder(order.getOrderId())) {
+                newOrders.add(order);
+            } else if (!session.refresh(order)) {
+                invalidate();
+                return;
+            }
+        }
+        renderedPlan = null;
+
+        incrementalOrders += newOrders.size();
+        if (incrementalOrders > replanThreshold()) {
+            invalidate();
+            return;
+        }
+
+        int[] ids = session.addOrders(
+                OrderQueue.inPlanningSequence(newOrders, properties.getPlanner().getOrderSequence()));
+        assignWithinRegions(session.shards(ids, session.allVehicles()));
+    }
+
+    /**
+     * Applies a committed batch of saved vehicles to the in-memory plan.
+     */
+    public synchronized void vehiclesSaved(List<Vehicle> vehicles) {
+        if (session == null) {
+            return;
+        }
+
+        List<Vehicle> newVehicles = new ArrayList<>();
+        for (Vehicle vehicle : latestById(vehicles, Vehicle::getVehicleId)) {
+            if (!session.hasVehicle(vehicle.getVehicleId())) {
+                newVehicles.add(vehicle);
+            } else if (!session.refresh(vehicle)) {
+                invalidate();
+                return;
+            }
+        }
+        renderedPlan = null;
+
+        if (!newVehicles.isEmpty()) {
+            // Existing vehicles only lose capacity over time, so the orders they
+            // could not take before are only worth offering to the new ones.
+            int[] ids = session.addVehicles(newVehicles);
+            assignWithinRegions(session.shards(session.unassignedOrders(), ids));
+        }
+    }
+
+    /**
+     * Drops the in-memory plan so the next request solves from scratch.
+     */
+    public synchronized void invalidate() {
+        session = null;
+        renderedPlan = null;
+    }
+
+    private double replanThreshold() {
+        DispatchProperties.Incremental incremental = properties.getPlanner().getIncremental();
+        return Math.max(incremental.getMinReplanOrders(), incremental.getReplanThreshold() * ordersAtLastFullSolve);
+    }
+
+    private void assignWithinRegions(List<Shard> shards) {
+        GreedyAssigner assigner = greedyAssigner();
+        for (Shard shard : shards) {
+            if (shard.isPlannable()) {
+                assigner.assign(session.state(), shard.orders(), shard.vehicles());
+            }
+        }
+    }
+
+    private GreedyAssigner greedyAssigner() {
+        return new GreedyAssigner(properties.getPlanner().getVehicleIndex(),
+                properties.getPlanner().getRankingMetric());
+    }
+
+    // saveAll() keeps the last entity when a batch repeats an id, so do the same.
+    private static <T> List<T> latestById(List<T> entities, Function<T, String> id) {
+        Map<String, T> latest = new LinkedHashMap<>();
+        for (T entity : entities) {
+            latest.put(id.apply(entity), entity);
+        }
+        return new ArrayList<>(latest.values());
+    }
+}
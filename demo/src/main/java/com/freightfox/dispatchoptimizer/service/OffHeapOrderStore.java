@@ -0,0 +1,481 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.planner.OrderSequence;
+import com.freightfox.dispatchoptimizer.planner.OrderTable;
+import com.freightfox.dispatchoptimizer.util.GeoHash;
+import com.freightfox.dispatchoptimizer.util.MappedBuffer;
+import com.freightfox.dispatchoptimizer.util.OffHeapStrings;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Every order, kept outside the Java heap so backlogs of millions of orders
+ * can be planned without millions of Order objects. Each order is a 56-byte
+ * record in a memory-mapped file; its id goes to a separate string file, and
+ * its region to a small dictionary of region codes. An open-addressing
+ * hash index, also mapped, finds an order's record by id. None of it is traced
+ * by the garbage collector, and the kernel pages cold parts out to disk.
+ *
+ * Plans read the records through an {@link OrderTable}, one field at a time.
+ * A re-saved order is overwritten in place and keeps its position; records are
+ * never removed. Saves take a write lock and reads a read lock, so a plan
+ * built under {@link #read(Supplier)} sees every order it reads in one state.
+ * A plan renders the latest version of each order it assigned.
+ *
+ * Only the fields the planner reads are kept. Addresses are left out, as they
+ * are from the planning read that fills the store; orders read back have none,
+ * and plans look them up when rendered.
+ *
+ * Like {@link FleetStore}, the store is filled from the database on first use
+ * and then kept current by {@link DispatchService}.
+ */
+@Component
+public class OffHeapOrderStore {
+
+    // Record layout. Every field is aligned to its size.
+    private static final int RECORD_SIZE = 56;
+    private static final int ID = 0;
+    private static final int LATITUDE = 8;
+    private static final int LONGITUDE = 16;
+    private static final int WEIGHT = 24;
+    private static final int WINDOW_START = 32; // LocalTime.toNanoOfDay(), or NO_WINDOW
+    private static final int WINDOW_END = 40;
+    private static final int REGION = 48;
+    private static final int PRIORITY = 52;
+
+    private static final long NO_WINDOW = -1;
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    // The index is resized before it is more than half full.
+    private static final int MIN_INDEX_CAPACITY = 1 << 16;
+
+    private final DispatchProperties properties;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    // All guarded by the lock.
+    private boolean loaded;
+    private int generation; // Bumped by close(), which invalidates every table handed out.
+    private Path directory;
+    private MappedBuffer records;
+    private OffHeapStrings strings;
+    private MappedBuffer index; // (hash << 32) | (slot + 1) per entry; 0 if empty
+    private long indexCapacity;
+    private int size;
+    private final List<String> regions = new ArrayList<>();
+    private final Map<String, Integer> regionCodes = new HashMap<>();
+
+    public OffHeapOrderStore(DispatchProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the current orders in planning sequence, loading the store first
+     * if this is the first use. Orders saved afterwards are not in the table.
+     *
+     * @param loadOrders Reads every order from the database, used the first time only.
+     * @param region     The region to plan, or null for all of them.
+     */
+    public OrderTable orders(Consumer<Consumer<Order>> loadOrders, String region, OrderSequence sequence) {
+        load(loadOrders);
+        return read(() -> {
+            Integer code = region == null ? null : regionCodes.get(region);
+            if (region != null && code == null) {
+                return new View(new int[0], generation);
+            }
+            return new View(sequence(code == null ? -1 : code, sequence), generation);
+        });
+    }
+
+    /**
+     * Runs {@code action} with saves held off, e.g. to copy many fields of the
+     * same orders consistently.
+     */
+    public <T> T read(Supplier<T> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a committed batch of saved orders, overwriting earlier versions of
+     * the same order ids. Ignored until the store is loaded, since loading reads
+     * them from the database.
+     */
+    public void ordersSaved(List<Order> orders) {
+        writeLock.lock();
+        try {
+            if (loaded) {
+                orders.forEach(this::put);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** @return The orders stored, or 0 before the store is loaded. */
+    public int size() {
+        return read(() -> size);
+    }
+
+    /**
+     * Drops every order and deletes the files, so the next plan reloads the
+     * store from the database.
+     */
+    @PreDestroy
+    public void close() {
+        writeLock.lock();
+        try {
+            if (loaded) {
+                records.close();
+                strings.close();
+                index.close();
+            }
+            loaded = false;
+            generation++;
+            size = 0;
+            regions.clear();
+            regionCodes.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Loading holds the write lock, so a batch that commits while the database
+    // is being read is written on top once the load is done.
+    private void load(Consumer<Consumer<Order>> loadOrders) {
+        if (read(() -> loaded)) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (!loaded) {
+                String configured = properties.getPlanner().getOffHeap().getDirectory();
+                directory = Path.of(configured == null || configured.isBlank()
+                        ? System.getProperty("java.io.tmpdir") : configured);
+                records = new MappedBuffer(directory);
+                strings = new OffHeapStrings(directory);
+                index = new MappedBuffer(directory);
+                indexCapacity = MIN_INDEX_CAPACITY;
+                index.ensureCapacity(indexCapacity * Long.BYTES);
+                loaded = true;
+                try {
+                    loadOrders.accept(this::put);
+                } catch (RuntimeException e) {
+                    close(); // Start over on the next plan rather than plan from part of the orders.
+                    throw e;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void put(Order order) {
+        byte[] id = order.getOrderId().getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        int slot = find(id, hash);
+        long record;
+        if (slot < 0) {
+            if (size + 1 > indexCapacity / 2) {
+                growIndex();
+            }
+            slot = size++;
+            record = (long) slot * RECORD_SIZE;
+            records.ensureCapacity(record + RECORD_SIZE);
+            records.putLong(record + ID, strings.add(id));
+            insert(hash, slot);
+        } else {
+            record = (long) slot * RECORD_SIZE;
+        }
+
+        records.putDouble(record + LATITUDE, order.getLatitude());
+        records.putDouble(record + LONGITUDE, order.getLongitude());
+        records.putDouble(record + WEIGHT, order.getPackageWeight());
+        records.putLong(record + WINDOW_START, nanoOfDay(order.getWindowStart()));
+        records.putLong(record + WINDOW_END, nanoOfDay(order.getWindowEnd()));
+        records.putInt(record + REGION, regionCode(order.getRegion()));
+        records.putByte(record + PRIORITY, (byte) order.getPriority().ordinal());
+    }
+
+    private int regionCode(String region) {
+        return regionCodes.computeIfAbsent(region, r -> {
+            regions.add(r);
+            return regions.size() - 1;
+        });
+    }
+
+    // --- Id index ---
+
+    // @return The slot of the order with this id, or -1.
+    private int find(byte[] id, int hash) {
+        long mask = indexCapacity - 1;
+        for (long i = hash & mask;; i = (i + 1) & mask) {
+            long entry = index.getLong(i * Long.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            int slot = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && strings.matches(records.getLong((long) slot * RECORD_SIZE + ID), id)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(int hash, int slot) {
+        long mask = indexCapacity - 1;
+        long i = hash & mask;
+        while (index.getLong(i * Long.BYTES) != 0) {
+            i = (i + 1) & mask;
+        }
+        index.putLong(i * Long.BYTES, ((long) hash << 32) | (slot + 1L));
+    }
+
+    // Rehashes into a buffer twice the size. Entries carry their hash, so no id is read.
+    private void growIndex() {
+        MappedBuffer old = index;
+        long oldCapacity = indexCapacity;
+        index = new MappedBuffer(directory);
+        indexCapacity = oldCapacity * 2;
+        index.ensureCapacity(indexCapacity * Long.BYTES);
+        for (long i = 0; i < oldCapacity; i++) {
+            long entry = old.getLong(i * Long.BYTES);
+            if (entry != 0) {
+                insert((int) (entry >>> 32), (int) entry - 1);
+            }
+        }
+        old.close();
+    }
+
+    private static int hash(byte[] id) {
+        int hash = Arrays.hashCode(id);
+        return hash ^ (hash >>> 16);
+    }
+
+    // --- Planning sequence ---
+
+    // Buckets the slots by priority with a counting sort, in arrival order
+    // within each bucket, or sorted by geohash for OrderSequence.GEOHASH.
+    private int[] sequence(int region, OrderSequence sequence) {
+        int[] bucketEnds = new int[PRIORITIES.length];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (region < 0 || records.getInt((long) slot * RECORD_SIZE + REGION) == region) {
+                bucketEnds[priority(slot)]++;
+                count++;
+            }
+        }
+        int[] bucketStarts = new int[PRIORITIES.length];
+        for (int p = 1; p < PRIORITIES.length; p++) {
+            bucketStarts[p] = bucketStarts[p - 1] + bucketEnds[p - 1];
+        }
+        int[] next = bucketStarts.clone();
+        int[] slots = new int[count];
+        for (int slot = 0; slot < size; slot++) {
+            if (region < 0 || records.getInt((long) slot * RECORD_SIZE + REGION) == region) {
+                slots[next[priority(slot)]++] = slot;
+            }
+        }
+        if (sequence == OrderSequence.GEOHASH) {
+            for (int p = 0; p < PRIORITIES.length; p++) {
+                sortByGeohash(slots, bucketStarts[p], next[p]);
+            }
+        }
+        return slots;
+    }
+
+    // Sorts packed (geohash, slot) longs rather than boxed keys. The geohash
+    // loses low bits to make room for the slot, which breaks ties in arrival order.
+    private void sortByGeohash(int[] slots, int from, int to) {
+        int slotBits = 64 - Long.numberOfLeadingZeros(Math.max(1, size));
+        int shift = Math.max(0, 52 + slotBits - 63);
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            long record = (long) slots[i] * RECORD_SIZE;
+            long geohash = GeoHash.encode(records.getDouble(record + LATITUDE), records.getDouble(record + LONGITUDE));
+            keys[i - from] = (geohash >>> shift) << slotBits | slots[i];
+        }
+        Arrays.sort(keys);
+        long slotMask = (1L << slotBits) - 1;
+        for (int i = from; i < to; i++) {
+            slots[i] = (int) (keys[i - from] & slotMask);
+        }
+    }
+
+    private int priority(int slot) {
+        return records.getByte((long) slot * RECORD_SIZE + PRIORITY);
+    }
+
+    private static long nanoOfDay(LocalTime time) {
+        return time == null ? NO_WINDOW : time.toNanoOfDay();
+    }
+
+    private static LocalTime localTime(long nanoOfDay) {
+        return nanoOfDay == NO_WINDOW ? null : LocalTime.ofNanoOfDay(nanoOfDay);
+    }
+
+    /**
+     * The orders of one plan, by position in planning sequence. Every read
+     * takes the read lock, so it never sees an order half written. Once the
+     * store is closed, reads fail with an IllegalStateException.
+     */
+    private final class View implements OrderTable {
+
+        private final int[] slots;
+        private final int generation;
+        private int[] positions; // By slot; built on first lookup by id.
+
+        private View(int[] slots, int generation) {
+            this.slots = slots;
+            this.generation = generation;
+        }
+
+        @Override
+        public int size() {
+            return slots.length;
+        }
+
+        @Override
+        public String orderId(int order) {
+            readLock.lock();
+            try {
+                return strings.get(records.getLong(record(order) + ID));
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        @Override
+        public String region(int order) {
+            readLock.lock();
+            try {
+                return regions.get(records.getInt(record(order) + REGION));
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        @Override
+        public double latitude(int order) {
+            return getDouble(order, LATITUDE);
+        }
+
+        @Override
+        public double longitude(int order) {
+            return getDouble(order, LONGITUDE);
+        }
+
+        @Override
+        public double weight(int order) {
+            return getDouble(order, WEIGHT);
+        }
+
+        @Override
+        public int priority(int order) {
+            readLock.lock();
+            try {
+                return records.getByte(record(order) + PRIORITY);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        @Override
+        public LocalTime windowStart(int order) {
+            return localTime(getLong(order, WINDOW_START));
+        }
+
+        @Override
+        public LocalTime windowEnd(int order) {
+            return localTime(getLong(order, WINDOW_END));
+        }
+
+        @Override
+        public Order order(int order) {
+            readLock.lock();
+            try {
+                long record = record(order);
+                return new Order(strings.get(records.getLong(record + ID)),
+                        records.getDouble(record + LATITUDE), records.getDouble(record + LONGITUDE),
+                        records.getDouble(record + WEIGHT), PRIORITIES[records.getByte(record + PRIORITY)],
+                        regions.get(records.getInt(record + REGION)),
+                        localTime(records.getLong(record + WINDOW_START)),
+                        localTime(records.getLong(record + WINDOW_END)));
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        @Override
+        public int indexOf(String orderId) {
+            byte[] id = orderId.getBytes(StandardCharsets.UTF_8);
+            int slot = read(() -> {
+                checkOpen();
+                return find(id, hash(id));
+            });
+            int[] bySlot = positions();
+            return slot < 0 || slot >= bySlot.length ? -1 : bySlot[slot];
+        }
+
+        private synchronized int[] positions() {
+            if (positions == null) {
+                positions = new int[Arrays.stream(slots).max().orElse(-1) + 1];
+                Arrays.fill(positions, -1);
+                for (int o = 0; o < slots.length; o++) {
+                    positions[slots[o]] = o;
+                }
+            }
+            return positions;
+        }
+
+        private double getDouble(int order, int field) {
+            readLock.lock();
+            try {
+                return records.getDouble(record(order) + field);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        private long getLong(int order, int field) {
+            readLock.lock();
+            try {
+                return records.getLong(record(order) + field);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        // Call with the read lock held.
+        private long record(int order) {
+            checkOpen();
+            return (long) slots[order] * RECORD_SIZE;
+        }
+
+        private void checkOpen() {
+            if (!loaded || generation != OffHeapOrderStore.this.generation) {
+                throw new IllegalStateException("The off-heap order store was closed after this plan was built");
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.planner.OrderSequence;
+import com.freightfox.dispatchoptimizer.util.GeoHash;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Every pending order, kept in memory in planning sequence: one bucket per
+ * {@link Priority}, each ordered by {@link OrderSequence}. Saved orders are
+ * filed into their bucket as they arrive, so a plan reads the orders already
+ * in sequence instead of loading and sorting them all again.
+ *
+ * The queue is filled from the database on first use and then kept current by
+ * {@link DispatchService#saveOrders}; orders written to the database by other
+ * means are not seen until {@link #invalidate()}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderQueue {
+
+    // Position within a bucket: the sequence key, then arrival to break ties.
+    private record Key(long sequence, long arrival) implements Comparable<Key> {
+        private static final Comparator<Key> ORDER = Comparator.comparingLong(Key::sequence)
+                .thenComparingLong(Key::arrival);
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private final DispatchProperties properties;
+
+    // All fields below are guarded by "this".
+    private final Map<Priority, NavigableMap<Key, Order>> buckets = new EnumMap<>(Priority.class);
+    private final Map<String, Key> keys = new HashMap<>();
+    private OrderSequence sequence;
+    private long arrivals;
+    private boolean loaded;
+
+    /**
+     * Returns every order in planning sequence.
+     *
+     * @param loadAll Reads every order from the database, used the first time only.
+     * @return The orders, HIGH priority first.
+     */
+    public synchronized List<Order> orders(Supplier<List<Order>> loadAll) {
+        OrderSequence configured = properties.getPlanner().getOrderSequence();
+        if (!loaded || sequence != configured) {
+            // First use, or the sequence setting changed: refile everything.
+            List<Order> orders = loaded ? allOrders() : loadAll.get();
+            clear();
+            sequence = configured;
+            orders.forEach(this::file);
+            loaded = true;
+        }
+        return allOrders();
+    }
+
+    /**
+     * Files a committed batch of saved orders, replacing earlier versions of
+     * the same order ids.
+     */
+    public synchronized void ordersSaved(List<Order> orders) {
+        if (loaded) {
+            orders.forEach(this::file);
+        }
+    }
+
+    /**
+     * Drops the queue so the next plan reloads it from the database.
+     */
+    public synchronized void invalidate() {
+        clear();
+        loaded = false;
+    }
+
+    /**
+     * Puts orders in planning sequence without a queue: a single pass to bucket
+     * them by priority, plus a sort within each bucket only for
+     * {@link OrderSequence#GEOHASH}.
+     *
+     * @return A new list, HIGH priority first.
+     */
+    public static List<Order> inPlanningSequence(Collection<Order> orders, OrderSequence sequence) {
+        Map<Priority, List<Order>> byPriority = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            byPriority.put(priority, new ArrayList<>());
+        }
+        for (Order order : orders) {
+            byPriority.get(order.getPriority()).add(order);
+        }
+
+        List<Order> sequenced = new ArrayList<>(orders.size());
+        for (List<Order> bucket : byPriority.values()) {
+            if (sequence == OrderSequence.GEOHASH) {
+                // List.sort is stable, so equal geohashes keep their arrival order.
+                bucket.sort(Comparator.comparingLong(OrderQueue::geohash));
+            }
+            sequenced.addAll(bucket);
+        }
+        return sequenced;
+    }
+
+    private void file(Order order) {
+        Key previous = keys.get(order.getOrderId());
+        if (previous != null) {
+            // Re-saved: drop the old version, whichever bucket it was in.
+            for (NavigableMap<Key, Order> bucket : buckets.values()) {
+                if (bucket.remove(previous) != null) {
+                    break;
+                }
+            }
+        }
+        Key key = new Key(sequence == OrderSequence.GEOHASH ? geohash(order) : 0, arrivals++);
+        keys.put(order.getOrderId(), key);
+        buckets.computeIfAbsent(order.getPriority(), priority -> new TreeMap<>()).put(key, order);
+    }
+
+    // Draining the buckets in priority order is a single linear pass.
+    private List<Order> allOrders() {
+        List<Order> orders = new ArrayList<>(keys.size());
+        for (Priority priority : Priority.values()) {
+            NavigableMap<Key, Order> bucket = buckets.get(priority);
+            if (bucket != null) {
+                orders.addAll(bucket.values());
+            }
+        }
+        return orders;
+    }
+
+    private void clear() {
+        buckets.clear();
+        keys.clear();
+        arrivals = 0;
+    }
+
+    private static long geohash(Order order) {
+        return GeoHash.encode(order.getLatitude(), order.getLongitude());
+    }
+}
@@ -0,0 +1,169 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.planner.PlanningSession;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the last dispatch plan together with the data version it was
+ * computed for. The version is bumped whenever orders or vehicles are saved, so
+ * a cached plan is served until the data changes, and the version doubles as
+ * the plan's ETag for conditional GETs.
+ *
+ * The full plan and each region's plan are cached separately, but share the
+ * version: saving anything makes every cached plan stale.
+ */
+@Component
+public class PlanCache {
+
+    /**
+     * A plan as served to clients.
+     *
+     * @param etag The quoted ETag of the data version the plan was computed for.
+     * @param plan The plan itself.
+     * @param json The plan pre-rendered as the JSON response body, or null if
+     *             pre-serialization is disabled.
+     */
+    public record CachedPlan(String etag, List<DispatchPlanDto> plan, byte[] json) {
+    }
+
+    /**
+     * A solved session, for plans rendered a vehicle at a time as they are
+     * written out.
+     *
+     * @param etag    The quoted ETag of the data version the plan was computed for.
+     * @param session The solved session.
+     */
+    public record CachedSession(String etag, PlanningSession session) {
+    }
+
+    private final DispatchProperties properties;
+    private final ObjectMapper objectMapper;
+
+    // Versions restart at 0 with the application, so the ETag also carries the
+    // start time to keep a client's old ETag from matching after a restart.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    // The full plan is cached under "", each region's plan under its name.
+    private static final String ALL_REGIONS = "";
+
+    private final Map<String, CachedPlan> cached = new ConcurrentHashMap<>();
+    private final Map<String, CachedSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    public PlanCache(DispatchProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Marks the cached plan as stale. Call after the new data is visible to the planner.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return The ETag of the current data version, without computing a plan.
+     */
+    public String currentETag() {
+        return etag(version.get());
+    }
+
+    /**
+     * Returns the plan for the current data version, computing it at most once
+     * per version even when many requests arrive at the same time.
+     *
+     * @param planner Computes a fresh plan.
+     * @return The cached plan.
+     */
+    public CachedPlan get(Supplier<List<DispatchPlanDto>> planner) {
+        return get(ALL_REGIONS, planner);
+    }
+
+    /**
+     * Same as {@link #get(Supplier)} for one region's plan, or any other plan
+     * cached under its own name.
+     *
+     * @param region  The region, or the name of the plan.
+     * @param planner Computes a fresh plan for the region.
+     * @return The cached plan.
+     */
+    public CachedPlan get(String region, Supplier<List<DispatchPlanDto>> planner) {
+        DispatchProperties.Cache config = properties.getCache();
+        String etag = currentETag();
+
+        if (!config.isEnabled()) {
+            return render(etag, planner.get(), config.isPreSerialize());
+        }
+
+        CachedPlan current = cached.get(region);
+        if (current != null && current.etag().equals(etag)) {
+            return current;
+        }
+        // One lock per region, so regions are computed concurrently.
+        synchronized (locks.computeIfAbsent(region, key -> new Object())) {
+            // Another request may have computed it while we waited for the lock.
+            current = cached.get(region);
+            if (current == null || !current.etag().equals(etag)) {
+                current = render(etag, planner.get(), config.isPreSerialize());
+                cached.put(region, current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Same as {@link #get(String, Supplier)}, but keeps the solved session
+     * instead of the rendered plan. A session holds routes as order indexes,
+     * so it stays small when the rendered orders would not.
+     *
+     * @param key    The region, or the name of the plan.
+     * @param solver Solves a fresh session.
+     * @return The cached session.
+     */
+    public CachedSession session(String key, Supplier<PlanningSession> solver) {
+        String etag = currentETag();
+        if (!properties.getCache().isEnabled()) {
+            return new CachedSession(etag, solver.get());
+        }
+
+        CachedSession current = sessions.get(key);
+        if (current != null && current.etag().equals(etag)) {
+            return current;
+        }
+        synchronized (locks.computeIfAbsent("session:" + key, k -> new Object())) {
+            current = sessions.get(key);
+            if (current == null || !current.etag().equals(etag)) {
+                current = new CachedSession(etag, solver.get());
+                sessions.put(key, current);
+            }
+            return current;
+        }
+    }
+
+    private CachedPlan render(String etag, List<DispatchPlanDto> plan, boolean preSerialize) {
+        if (!preSerialize) {
+            return new CachedPlan(etag, plan, null);
+        }
+        try {
+            return new CachedPlan(etag, plan, objectMapper.writeValueAsBytes(Map.of("dispatchPlan", plan)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the dispatch plan", e);
+        }
+    }
+
+    private String etag(long dataVersion) {
+        return "\"" + epoch + "-" + dataVersion + "\"";
+    }
+}
@@ -0,0 +1,226 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.dto.PlanJobDto;
+import com.freightfox.dispatchoptimizer.planner.PlanningProgress;
+import com.freightfox.dispatchoptimizer.planner.Solver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs dispatch planning in the background, so large plans are not tied to the
+ * lifetime of an HTTP request.
+ *
+ * Jobs run on a bounded executor: at most {@code max-concurrent} at a time,
+ * with up to {@code queue-capacity} more waiting; submissions beyond that are
+ * rejected. Each job solves from scratch on the data as it is when the job
+ * starts, and can be cancelled or given a time budget, after which it returns
+ * the partial plan built so far.
+ */
+@Slf4j
+@Service
+public class PlanJobService {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private final DispatchService dispatchService;
+    private final DispatchProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, PlanJob> jobs = new ConcurrentHashMap<>();
+
+    public PlanJobService(DispatchService dispatchService, DispatchProperties properties) {
+        this.dispatchService = dispatchService;
+        this.properties = properties;
+        DispatchProperties.Jobs config = properties.getJobs();
+        int threads = Math.max(1, config.getMaxConcurrent());
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                threadFactory(config.isVirtualThreads()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a new plan job.
+     *
+     * @param timeBudgetMillis How long the solve may run, or null for the
+     *                         configured default; 0 means no limit.
+     * @param solver           The solver to use, or null for the configured one.
+     * @return The status of the new job.
+     * @throws IllegalArgumentException   If the time budget is negative.
+     * @throws RejectedExecutionException If the queue is full.
+     */
+    public PlanJobDto submit(Long timeBudgetMillis, Solver solver) {
+        if (timeBudgetMillis != null && timeBudgetMillis < 0) {
+            throw new IllegalArgumentException("timeBudgetMs must be 0 (no limit) or more");
+        }
+        long budget = timeBudgetMillis != null ? timeBudgetMillis : properties.getJobs().getDefaultTimeBudgetMs();
+        PlanJob job = new PlanJob(UUID.randomUUID().toString(), new PlanningProgress(budget), solver);
+
+        evictFinishedJobs();
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        return job.toDto();
+    }
+
+    public Optional<PlanJobDto> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(PlanJob::toDto);
+    }
+
+    /**
+     * @return The plan of a job that has succeeded, or empty if the job is
+     *         unknown or has not succeeded (check {@link #status}).
+     */
+    public Optional<List<DispatchPlanDto>> result(String jobId) {
+        PlanJob job = jobs.get(jobId);
+        return job != null && job.state == State.SUCCEEDED ? Optional.of(job.result) : Optional.empty();
+    }
+
+    /**
+     * Cancels a job. A queued job never starts; a running one stops at the
+     * solver's next check-in. Finished jobs are left as they are.
+     *
+     * @return The job's status, or empty if the job is unknown.
+     */
+    public Optional<PlanJobDto> cancel(String jobId) {
+        PlanJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        synchronized (job) {
+            if (job.state == State.QUEUED || job.state == State.RUNNING) {
+                job.progress.cancel();
+                if (job.state == State.QUEUED) {
+                    job.finish(State.CANCELLED);
+                    if (job.future != null) {
+                        job.future.cancel(false);
+                        executor.purge(); // Frees its place in the queue.
+                    }
+                }
+            }
+        }
+        return Optional.of(job.toDto());
+    }
+
+    private void run(PlanJob job) {
+        synchronized (job) {
+            if (job.state != State.QUEUED) {
+                return; // Cancelled while it was waiting.
+            }
+            job.state = State.RUNNING;
+            job.startedAt = Instant.now();
+        }
+
+        try {
+            List<DispatchPlanDto> plan = dispatchService.generateDispatchPlan(job.progress, job.solver);
+            synchronized (job) {
+                if (job.progress.isCancelled()) {
+                    job.finish(State.CANCELLED);
+                } else {
+                    job.result = plan;
+                    job.finish(State.SUCCEEDED);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Plan job {} failed", job.id, e);
+            synchronized (job) {
+                job.error = e.getMessage();
+                job.finish(State.FAILED);
+            }
+        }
+    }
+
+    // Keeps finished jobs around for polling, but only the most recent ones.
+    private void evictFinishedJobs() {
+        int retained = Math.max(0, properties.getJobs().getRetainedJobs());
+        List<PlanJob> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((PlanJob job) -> job.finishedAt).reversed())
+                .toList();
+        for (int i = retained; i < finished.size(); i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    // Uses virtual threads when asked to and running on Java 21 or later. The
+    // project compiles for 17, so Thread.ofVirtual() is looked up reflectively.
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "plan-job-", 1L);
+                Method factory = builderType.getMethod("factory");
+                return (ThreadFactory) factory.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                log.info("Virtual threads are not available on this JVM; plan jobs use platform threads");
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "plan-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class PlanJob {
+
+        final String id;
+        final PlanningProgress progress;
+        final Solver solver;
+        final Instant submittedAt = Instant.now();
+        volatile Future<?> future;
+
+        // Written under the job's lock, read by status polls without it.
+        volatile State state = State.QUEUED;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile List<DispatchPlanDto> result;
+        volatile String error;
+
+        PlanJob(String id, PlanningProgress progress, Solver solver) {
+            this.id = id;
+            this.progress = progress;
+            this.solver = solver;
+        }
+
+        void finish(State finalState) {
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        PlanJobDto toDto() {
+            return new PlanJobDto(id, state.name(), progress.totalOrders(), progress.assignedOrders(),
+                    progress.isBudgetExhausted(), submittedAt, startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.planner.PlanningProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the planning hot path and for ingest, exposed through
+ * the actuator's {@code /actuator/metrics} endpoint.
+ *
+ * Counters are fed once per solve from totals the planner keeps in plain
+ * fields, so the assignment loop itself never touches a meter.
+ */
+@Component
+public class PlanMetrics {
+
+    /**
+     * The stages of a full solve, timed separately as {@code dispatch.plan.phase}.
+     */
+    public enum Phase {
+        LOAD, SORT, BUILD, RESTORE, ASSIGN, IMPROVE, RENDER
+    }
+
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    private final MeterRegistry registry;
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Timer planTimer;
+    private final Counter assignedOrders;
+    private final Counter unassignedOrders;
+    private final Counter distanceEvaluations;
+    private final Counter capacityRejections;
+    private final Timer orderBatchTimer;
+    private final Timer vehicleBatchTimer;
+
+    public PlanMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("dispatch.plan.phase")
+                    .description("Time spent in one stage of a full solve")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        planTimer = Timer.builder("dispatch.plan")
+                .description("Time to produce a dispatch plan")
+                .publishPercentileHistogram()
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        assignedOrders = ordersCounter("assigned");
+        unassignedOrders = ordersCounter("unassigned");
+        distanceEvaluations = Counter.builder("dispatch.plan.distance.evaluations")
+                .description("Vehicle distances computed by nearest-vehicle lookups")
+                .register(registry);
+        capacityRejections = Counter.builder("dispatch.plan.capacity.rejections")
+                .description("Vehicles passed over by lookups for lack of capacity")
+                .register(registry);
+        orderBatchTimer = ingestTimer("orders");
+        vehicleBatchTimer = ingestTimer("vehicles");
+    }
+
+    /**
+     * Times one stage of a solve.
+     */
+    public <T> T time(Phase phase, Supplier<T> stage) {
+        return phaseTimers.get(phase).record(stage);
+    }
+
+    public void run(Phase phase, Runnable stage) {
+        phaseTimers.get(phase).record(stage);
+    }
+
+    /**
+     * Times producing a whole plan, including any phases inside it.
+     */
+    public <T> T timePlan(Supplier<T> plan) {
+        return planTimer.record(plan);
+    }
+
+    /**
+     * Records the outcome of a finished solve.
+     */
+    public void solved(PlanningProgress progress) {
+        assignedOrders.increment(progress.assignedOrders());
+        unassignedOrders.increment(progress.totalOrders() - progress.assignedOrders());
+        distanceEvaluations.increment(progress.distanceEvaluations());
+        capacityRejections.increment(progress.capacityRejections());
+    }
+
+    /**
+     * Records how long one ingest batch took, from the first write to commit.
+     *
+     * @param entity "orders" or "vehicles".
+     */
+    public void ingestBatch(String entity, long nanos) {
+        Timer timer = switch (entity) {
+            case "orders" -> orderBatchTimer;
+            case "vehicles" -> vehicleBatchTimer;
+            default -> throw new IllegalArgumentException("Unknown ingest entity: " + entity);
+        };
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer ingestTimer(String entity) {
+        return Timer.builder("dispatch.ingest.batch")
+                .description("Time to write and commit one batch of uploaded entities")
+                .tag("entity", entity)
+                .publishPercentileHistogram()
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+    }
+
+    private Counter ordersCounter(String outcome) {
+        return Counter.builder("dispatch.plan.orders")
+                .description("Orders handled by full solves, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
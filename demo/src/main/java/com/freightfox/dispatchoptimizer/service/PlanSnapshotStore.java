@@ -0,0 +1,140 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the routes of the last full plan in a small binary file, so the first
+ * plan after a restart can pick up where the previous run left off.
+ *
+ * The file holds only ids: each vehicle with orders, followed by its order
+ * ids in drop-off sequence. Everything else is read from the current data
+ * when the snapshot is replayed, which is also where it is validated.
+ * Snapshots are only useful with a database that outlives the application.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlanSnapshotStore {
+
+    private static final int MAGIC = 0x44505331; // "DPS1"
+
+    private final DispatchProperties properties;
+    private final AtomicBoolean warmStartTaken = new AtomicBoolean();
+
+    public boolean isEnabled() {
+        return properties.getSnapshot().isEnabled();
+    }
+
+    /**
+     * @return true if a snapshot is waiting to be used by {@link #takeWarmStart()}.
+     */
+    public boolean hasWarmStart() {
+        return isEnabled() && !warmStartTaken.get() && Files.isRegularFile(path());
+    }
+
+    /**
+     * Returns the snapshot left by the previous run, once. Later calls, and
+     * calls when there is no usable snapshot, return null.
+     *
+     * @return Order ids by vehicle id, in drop-off sequence, or null.
+     */
+    public Map<String, List<String>> takeWarmStart() {
+        if (!isEnabled() || warmStartTaken.getAndSet(true) || !Files.isRegularFile(path())) {
+            return null;
+        }
+        try {
+            return read(path());
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable plan snapshot {}", path(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given routes. A failed write is logged
+     * and otherwise ignored; it must not fail the plan.
+     *
+     * @param routes Order ids by vehicle id, in drop-off sequence.
+     */
+    public void save(Map<String, List<String>> routes) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path target = path();
+        // Write aside and move into place, so a crash never leaves half a snapshot.
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        synchronized (this) {
+            try {
+                write(temporary, routes);
+                try {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                log.warn("Could not write plan snapshot {}", target, e);
+            }
+        }
+    }
+
+    private Path path() {
+        return Path.of(properties.getSnapshot().getPath());
+    }
+
+    private static void write(Path file, Map<String, List<String>> routes) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(routes.size());
+            for (Map.Entry<String, List<String>> route : routes.entrySet()) {
+                out.writeUTF(route.getKey());
+                out.writeInt(route.getValue().size());
+                for (String orderId : route.getValue()) {
+                    out.writeUTF(orderId);
+                }
+            }
+        }
+    }
+
+    private static Map<String, List<String>> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a plan snapshot");
+            }
+            int vehicles = in.readInt();
+            Map<String, List<String>> routes = new LinkedHashMap<>();
+            for (int v = 0; v < vehicles; v++) {
+                String vehicleId = in.readUTF();
+                int orders = in.readInt();
+                List<String> orderIds = new ArrayList<>(Math.min(orders, 1024)); // Do not trust a corrupt count.
+                for (int o = 0; o < orders; o++) {
+                    orderIds.add(in.readUTF());
+                }
+                routes.put(vehicleId, orderIds);
+            }
+            return routes;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.model.VehiclePosition;
+import com.freightfox.dispatchoptimizer.repository.VehicleRepository;
+import com.freightfox.dispatchoptimizer.util.DistanceCalculator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Takes tracker pings and keeps the stored vehicle positions up to date
+ * without a database write per ping.
+ *
+ * Pings are coalesced in {@link VehiclePositions}, which fresh plans read
+ * straight away. Every {@code flush-interval-ms}, on Spring's task scheduler,
+ * only the latest position of each vehicle that moved is written, with one
+ * batched UPDATE. The cached plan is then dropped so the next request plans
+ * from the new positions, unless no vehicle has moved
+ * {@code replan-distance-km} or more since the plan was last dropped.
+ */
+@Slf4j
+@Service
+public class TelemetryService {
+
+    private final VehiclePositions positions;
+    private final VehicleRepository vehicleRepository;
+    private final PlanCache planCache;
+    private final IncrementalPlanner incrementalPlanner;
+    private final double replanDistanceKm;
+
+    // Where each vehicle was when the cached plan was last dropped. Guarded by "this".
+    private final Map<String, VehiclePosition> replannedAt = new HashMap<>();
+
+    public TelemetryService(VehiclePositions positions, VehicleRepository vehicleRepository, PlanCache planCache,
+            IncrementalPlanner incrementalPlanner, DispatchProperties properties) {
+        this.positions = positions;
+        this.vehicleRepository = vehicleRepository;
+        this.planCache = planCache;
+        this.incrementalPlanner = incrementalPlanner;
+        this.replanDistanceKm = properties.getTelemetry().getReplanDistanceKm();
+    }
+
+    /**
+     * Records a batch of pings.
+     *
+     * @return How many pings moved a vehicle; older pings than the vehicle's
+     *         known position are ignored.
+     */
+    public int report(List<VehiclePosition> pings) {
+        return positions.report(pings);
+    }
+
+    /**
+     * Writes the latest unflushed position of each vehicle to the database.
+     *
+     * @return How many vehicles were moved.
+     */
+    public synchronized int flush() {
+        List<VehiclePosition> pending = positions.unflushed();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        boolean[] stored = vehicleRepository.updatePositions(pending);
+        positions.flushed(pending, stored);
+
+        int moved = 0;
+        boolean replan = false;
+        for (int i = 0; i < pending.size(); i++) {
+            if (stored[i]) {
+                moved++;
+                replan |= movedFar(pending.get(i));
+            }
+        }
+        if (replan) {
+            // Drop the in-memory plan first, then the cache, as when vehicles are saved.
+            incrementalPlanner.invalidate();
+            planCache.invalidate();
+            for (int i = 0; i < pending.size(); i++) {
+                if (stored[i]) {
+                    replannedAt.put(pending.get(i).vehicleId(), pending.get(i));
+                }
+            }
+        }
+        if (moved < pending.size()) {
+            log.debug("Ignored positions for {} unknown vehicles", pending.size() - moved);
+        }
+        return moved;
+    }
+
+    // A vehicle seen for the first time since startup may have moved any distance.
+    private boolean movedFar(VehiclePosition position) {
+        VehiclePosition last = replannedAt.get(position.vehicleId());
+        return last == null || DistanceCalculator.calculate(last.latitude(), last.longitude(), position.latitude(),
+                position.longitude()) >= replanDistanceKm;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushQuietly(); // Keep the last positions across a clean restart.
+    }
+
+    @Scheduled(initialDelayString = "${dispatch.telemetry.flush-interval-ms:5000}",
+            fixedDelayString = "${dispatch.telemetry.flush-interval-ms:5000}")
+    void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Positions stay pending and are retried on the next flush.
+            log.warn("Could not flush vehicle positions: {}", e.getMessage());
+        }
+    }
+}
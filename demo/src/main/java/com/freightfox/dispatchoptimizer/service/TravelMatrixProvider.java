@@ -0,0 +1,49 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.planner.TravelModel;
+import com.freightfox.dispatchoptimizer.util.RoadDistanceMatrix;
+import com.freightfox.dispatchoptimizer.util.TravelMatrix;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Builds the travel model every plan is solved with. The road distance table,
+ * if one is configured, is loaded once at startup, so its cache of recently
+ * used legs carries over from one plan to the next.
+ */
+@Slf4j
+@Component
+public class TravelMatrixProvider {
+
+    private final TravelModel travelModel;
+
+    public TravelMatrixProvider(DispatchProperties properties) {
+        DispatchProperties.Travel travel = properties.getTravel();
+        this.travelModel = new TravelModel(matrix(travel), travel.getShiftStart(), travel.getDefaultSpeedKmh());
+    }
+
+    public TravelModel travelModel() {
+        return travelModel;
+    }
+
+    // A table that is configured but unreadable fails startup rather than
+    // silently planning on straight lines.
+    private static TravelMatrix matrix(DispatchProperties.Travel travel) {
+        if (travel.getRoadTable() == null || travel.getRoadTable().isBlank()) {
+            return TravelMatrix.HAVERSINE;
+        }
+        Path table = Path.of(travel.getRoadTable());
+        try {
+            RoadDistanceMatrix matrix = RoadDistanceMatrix.load(table, travel.getCacheSize());
+            log.info("Loaded {} road distances from {}", matrix.size(), table);
+            return matrix;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the road distance table " + table, e);
+        }
+    }
+}
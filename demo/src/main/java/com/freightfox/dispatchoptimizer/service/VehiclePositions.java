@@ -0,0 +1,111 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.model.VehiclePosition;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The latest reported position of every vehicle that has sent a tracker ping,
+ * coalesced in memory so a burst of pings costs one map entry per vehicle.
+ *
+ * Both maps are concurrent hash maps, so pings for different vehicles never
+ * contend and plans read positions without locking. Positions not yet written
+ * to the database are tracked separately; {@link TelemetryService} drains them
+ * periodically.
+ */
+@Component
+public class VehiclePositions {
+
+    // What plans read: the newest position per vehicle.
+    private final ConcurrentHashMap<String, VehiclePosition> live = new ConcurrentHashMap<>();
+    // The newest position per vehicle that has not been flushed yet.
+    private final ConcurrentHashMap<String, VehiclePosition> unflushed = new ConcurrentHashMap<>();
+
+    /**
+     * Records a batch of pings. A ping older than the vehicle's known position
+     * is ignored.
+     *
+     * @return How many pings moved a vehicle.
+     */
+    public int report(List<VehiclePosition> positions) {
+        int accepted = 0;
+        for (VehiclePosition position : positions) {
+            if (live.merge(position.vehicleId(), position, VehiclePosition::latest) == position) {
+                unflushed.merge(position.vehicleId(), position, VehiclePosition::latest);
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * @return The positions reported since they were last flushed, at most one
+     *         per vehicle. They stay pending until {@link #flushed} is called.
+     */
+    public List<VehiclePosition> unflushed() {
+        return new ArrayList<>(unflushed.values());
+    }
+
+    /**
+     * Marks positions as written. A position reported for the same vehicle in
+     * the meantime stays pending.
+     *
+     * @param positions As returned by {@link #unflushed()}.
+     * @param stored    For each position, whether the vehicle exists. Positions
+     *                  of unknown vehicles are forgotten.
+     */
+    public void flushed(List<VehiclePosition> positions, boolean[] stored) {
+        for (int i = 0; i < positions.size(); i++) {
+            VehiclePosition position = positions.get(i);
+            unflushed.remove(position.vehicleId(), position);
+            if (!stored[i]) {
+                live.remove(position.vehicleId(), position);
+            }
+        }
+    }
+
+    /**
+     * Forgets pings for vehicles that have just been saved in full, whose
+     * posted position now takes over.
+     */
+    public void vehiclesSaved(List<Vehicle> vehicles) {
+        for (Vehicle vehicle : vehicles) {
+            live.remove(vehicle.getVehicleId());
+            unflushed.remove(vehicle.getVehicleId());
+        }
+    }
+
+    /**
+     * Moves each vehicle to its latest reported position. Vehicles are copied
+     * rather than changed, since callers may share them.
+     *
+     * @return The vehicles, in the same order.
+     */
+    public List<Vehicle> withLivePositions(List<Vehicle> vehicles) {
+        if (live.isEmpty()) {
+            return vehicles;
+        }
+        List<Vehicle> moved = new ArrayList<>(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            VehiclePosition position = live.get(vehicle.getVehicleId());
+            if (position == null) {
+                moved.add(vehicle);
+                continue;
+            }
+            Vehicle copy = new Vehicle(vehicle);
+            copy.setCurrentLatitude(position.latitude());
+            copy.setCurrentLongitude(position.longitude());
+            moved.add(copy);
+        }
+        return moved;
+    }
+
+    /** @return Vehicles with a position that has not been flushed yet. */
+    public int pending() {
+        return unflushed.size();
+    }
+}
@@ -3,6 +3,7 @@ package com.freightfox.dispatchoptimizer.util;
 public class DistanceCalculator {
 
     private static final int EARTH_RADIUS_KM = 6371;
+    private static final double TWO_PI = 2 * Math.PI;
 
     private DistanceCalculator() {
     }
@@ -19,4 +20,95 @@ public class DistanceCalculator {
 
         return EARTH_RADIUS_KM * c;
     }
+
+    /**
+     * Haversine distance in km between two cached points. Same formula as
+     * {@link #calculate}, but the radians and cos(lat) come from the caches.
+     */
+    public static double calculate(GeoPoints a, int i, GeoPoints b, int j) {
+        double sinLat = Math.sin((b.latRad[j] - a.latRad[i]) / 2);
+        double sinLon = Math.sin((b.lonRad[j] - a.lonRad[i]) / 2);
+
+        double h = sinLat * sinLat + a.cosLat[i] * b.cosLat[j] * sinLon * sinLon;
+
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(h), Math.sqrt(1 - h));
+    }
+
+    /**
+     * The same great-circle distance as {@link #calculate(GeoPoints, int, GeoPoints, int)},
+     * derived from the straight-line chord between the cached unit-sphere
+     * positions. One square root and one arcsine instead of two sines, two
+     * square roots and an arctangent, for hot loops that need many exact
+     * distances.
+     */
+    public static double fromChord(GeoPoints a, int i, GeoPoints b, int j) {
+        double dx = a.x[i] - b.x[j];
+        double dy = a.y[i] - b.y[j];
+        double dz = a.z[i] - b.z[j];
+        double halfChord = Math.sqrt(dx * dx + dy * dy + dz * dz) / 2;
+        return EARTH_RADIUS_KM * 2 * Math.asin(Math.min(1, halfChord));
+    }
+
+    /**
+     * Scores one query point against the first {@code count} candidates in a
+     * single pass. Lower scores are closer. Each metric runs in its own tight,
+     * branch-free loop over the candidate arrays so the JIT can vectorize it.
+     *
+     * @param metric     The ranking metric.
+     * @param candidates The candidate points (e.g. vehicle positions).
+     * @param count      How many candidates to score.
+     * @param queries    The set holding the query point.
+     * @param q          The query point's position in {@code queries}.
+     * @param scores     Receives one score per candidate.
+     */
+    public static void score(DistanceMetric metric, GeoPoints candidates, int count, GeoPoints queries, int q,
+            double[] scores) {
+        score(metric, candidates, 0, count, queries, q, scores);
+    }
+
+    /**
+     * Same as {@link #score(DistanceMetric, GeoPoints, int, GeoPoints, int, double[])}
+     * for the candidates {@code from} (inclusive) to {@code to} (exclusive).
+     * Scores land at the candidates' own positions in {@code scores}.
+     */
+    public static void score(DistanceMetric metric, GeoPoints candidates, int from, int to, GeoPoints queries,
+            int q, double[] scores) {
+        switch (metric) {
+            case SQUARED_CHORD -> {
+                double qx = queries.x[q];
+                double qy = queries.y[q];
+                double qz = queries.z[q];
+                double[] x = candidates.x;
+                double[] y = candidates.y;
+                double[] z = candidates.z;
+                for (int i = from; i < to; i++) {
+                    double dx = x[i] - qx;
+                    double dy = y[i] - qy;
+                    double dz = z[i] - qz;
+                    scores[i] = dx * dx + dy * dy + dz * dz;
+                }
+            }
+            case EQUIRECTANGULAR -> {
+                double qLat = queries.latRad[q];
+                double qLon = queries.lonRad[q];
+                double qCos = queries.cosLat[q];
+                double[] latRad = candidates.latRad;
+                double[] lonRad = candidates.lonRad;
+                double[] cosLat = candidates.cosLat;
+                for (int i = from; i < to; i++) {
+                    double dLon = lonRad[i] - qLon;
+                    dLon -= TWO_PI * Math.rint(dLon / TWO_PI); // Take the short way across the antimeridian.
+                    // The mean of the two cosines stands in for cos of the mean latitude.
+                    double dx = dLon * (cosLat[i] + qCos) * 0.5;
+                    double dy = latRad[i] - qLat;
+                    scores[i] = dx * dx + dy * dy;
+                }
+            }
+            case HAVERSINE -> {
+                for (int i = from; i < to; i++) {
+                    scores[i] = calculate(candidates, i, queries, q);
+                }
+            }
+        }
+    }
 }
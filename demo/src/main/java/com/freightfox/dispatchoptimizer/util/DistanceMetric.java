@@ -0,0 +1,13 @@
+package com.freightfox.dispatchoptimizer.util;
+
+// Metrics for ranking candidate vehicles by closeness. Scores are only comparable
+// with other scores of the same metric; they are not kilometres.
+
+public enum DistanceMetric {
+    // Exact great-circle distance. The most expensive: sin, sqrt and atan2 per pair.
+    HAVERSINE,
+    // Flat-earth approximation scaled by cos(latitude). Very cheap, slightly off over long distances.
+    EQUIRECTANGULAR,
+    // Squared straight-line distance on the unit sphere. Ranks exactly like haversine with no trig at all.
+    SQUARED_CHORD
+}
@@ -0,0 +1,41 @@
+package com.freightfox.dispatchoptimizer.util;
+
+/**
+ * Binary geohash: a position packed into a single long by interleaving the
+ * bits of its quantized longitude and latitude (longitude first, as geohash
+ * does). Sorting by this key orders points along a Z-shaped space-filling
+ * curve, so points close in the sequence are mostly close on the map.
+ */
+public final class GeoHash {
+
+    // 26 bits per coordinate: cells of roughly 0.6 m x 0.3 m at the equator.
+    private static final int BITS_PER_COORDINATE = 26;
+    private static final long CELLS = 1L << BITS_PER_COORDINATE;
+
+    private GeoHash() {
+    }
+
+    /**
+     * @return The 52-bit geohash of the position, comparable as an unsigned
+     *         (and, since the top bits are clear, signed) long.
+     */
+    public static long encode(double latitude, double longitude) {
+        long lat = quantize((latitude + 90) / 180);
+        long lon = quantize((longitude + 180) / 360);
+        return (spread(lon) << 1) | spread(lat);
+    }
+
+    private static long quantize(double fraction) {
+        return Math.min(CELLS - 1, Math.max(0, (long) (fraction * CELLS)));
+    }
+
+    // Moves bit i of the value to bit 2i.
+    private static long spread(long value) {
+        value = (value | (value << 16)) & 0x0000FFFF0000FFFFL;
+        value = (value | (value << 8)) & 0x00FF00FF00FF00FFL;
+        value = (value | (value << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | (value << 2)) & 0x3333333333333333L;
+        value = (value | (value << 1)) & 0x5555555555555555L;
+        return value;
+    }
+}
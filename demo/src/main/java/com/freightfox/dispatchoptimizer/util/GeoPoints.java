@@ -0,0 +1,95 @@
+package com.freightfox.dispatchoptimizer.util;
+
+/**
+ * A fixed-size set of positions with the trigonometry each distance formula
+ * needs computed once per point instead of once per distance call.
+ *
+ * Values are kept in parallel primitive arrays (structure-of-arrays) so batch
+ * loops over many points stay simple enough for the JIT to vectorize. The
+ * arrays are exposed directly for that reason; only write them through
+ * {@link #set} and {@link #copy} so the cached values stay consistent.
+ */
+public final class GeoPoints {
+
+    public final double[] latitude; // degrees
+    public final double[] longitude; // degrees
+    public final double[] latRad;
+    public final double[] lonRad;
+    public final double[] cosLat;
+
+    // Position on the unit sphere, for chord distances.
+    public final double[] x;
+    public final double[] y;
+    public final double[] z;
+
+    public GeoPoints(int size) {
+        this.latitude = new double[size];
+        this.longitude = new double[size];
+        this.latRad = new double[size];
+        this.lonRad = new double[size];
+        this.cosLat = new double[size];
+        this.x = new double[size];
+        this.y = new double[size];
+        this.z = new double[size];
+    }
+
+    public static GeoPoints of(double[] latitudes, double[] longitudes) {
+        GeoPoints points = new GeoPoints(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++) {
+            points.set(i, latitudes[i], longitudes[i]);
+        }
+        return points;
+    }
+
+    public int size() {
+        return latitude.length;
+    }
+
+    public void set(int i, double latitudeDegrees, double longitudeDegrees) {
+        double lat = Math.toRadians(latitudeDegrees);
+        double lon = Math.toRadians(longitudeDegrees);
+        double cos = Math.cos(lat);
+
+        latitude[i] = latitudeDegrees;
+        longitude[i] = longitudeDegrees;
+        latRad[i] = lat;
+        lonRad[i] = lon;
+        cosLat[i] = cos;
+        x[i] = cos * Math.cos(lon);
+        y[i] = cos * Math.sin(lon);
+        z[i] = Math.sin(lat);
+    }
+
+    /**
+     * Copies point {@code j} of {@code source} into slot {@code i}, without any
+     * trigonometry.
+     */
+    public void copy(int i, GeoPoints source, int j) {
+        latitude[i] = source.latitude[j];
+        longitude[i] = source.longitude[j];
+        latRad[i] = source.latRad[j];
+        lonRad[i] = source.lonRad[j];
+        cosLat[i] = source.cosLat[j];
+        x[i] = source.x[j];
+        y[i] = source.y[j];
+        z[i] = source.z[j];
+    }
+
+    public GeoPoints copy() {
+        return concat(this, new GeoPoints(0));
+    }
+
+    /**
+     * @return A new set holding the points of {@code first} followed by those of {@code second}.
+     */
+    public static GeoPoints concat(GeoPoints first, GeoPoints second) {
+        GeoPoints result = new GeoPoints(first.size() + second.size());
+        for (int i = 0; i < first.size(); i++) {
+            result.copy(i, first, i);
+        }
+        for (int i = 0; i < second.size(); i++) {
+            result.copy(first.size() + i, second, i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package com.freightfox.dispatchoptimizer.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A growable block of memory outside the Java heap, backed by a memory-mapped
+ * scratch file and addressed with long offsets. The garbage collector never
+ * sees its contents, and the kernel can page cold parts out to the file
+ * instead of the JVM needing the whole of it in RAM.
+ *
+ * It grows a 64 MB segment at a time, so data never moves. Primitives must be
+ * read and written at offsets aligned to their size, which never straddle two
+ * segments; byte runs may. The file is deleted when the buffer is closed.
+ *
+ * Not thread-safe: callers synchronize reads against writes.
+ */
+public final class MappedBuffer implements Closeable {
+
+    private static final int SEGMENT_BITS = 26;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final int OFFSET_MASK = (int) SEGMENT_SIZE - 1;
+
+    private final FileChannel channel;
+    // Volatile so a reader that was handed an offset also sees the segment it lives in.
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /**
+     * @param directory Where to create the scratch file.
+     */
+    public MappedBuffer(Path directory) {
+        try {
+            Path file = Files.createTempFile(directory, "dispatch-", ".bin");
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create a scratch file in " + directory, e);
+        }
+    }
+
+    /**
+     * Maps enough segments for offsets up to {@code bytes}. The new space reads
+     * as zeros.
+     */
+    public void ensureCapacity(long bytes) {
+        int needed = (int) ((bytes + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+        if (needed <= segments.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, needed);
+        try {
+            for (int s = segments.length; s < needed; s++) {
+                grown[s] = channel.map(FileChannel.MapMode.READ_WRITE, s * SEGMENT_SIZE, SEGMENT_SIZE);
+                grown[s].order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow the scratch file to " + bytes + " bytes", e);
+        }
+        segments = grown;
+    }
+
+    /** @return The bytes mapped so far. */
+    public long capacity() {
+        return segments.length * SEGMENT_SIZE;
+    }
+
+    public long getLong(long offset) {
+        return segment(offset).getLong((int) offset & OFFSET_MASK);
+    }
+
+    public void putLong(long offset, long value) {
+        segment(offset).putLong((int) offset & OFFSET_MASK, value);
+    }
+
+    public double getDouble(long offset) {
+        return segment(offset).getDouble((int) offset & OFFSET_MASK);
+    }
+
+    public void putDouble(long offset, double value) {
+        segment(offset).putDouble((int) offset & OFFSET_MASK, value);
+    }
+
+    public int getInt(long offset) {
+        return segment(offset).getInt((int) offset & OFFSET_MASK);
+    }
+
+    public void putInt(long offset, int value) {
+        segment(offset).putInt((int) offset & OFFSET_MASK, value);
+    }
+
+    public byte getByte(long offset) {
+        return segment(offset).get((int) offset & OFFSET_MASK);
+    }
+
+    public void putByte(long offset, byte value) {
+        segment(offset).put((int) offset & OFFSET_MASK, value);
+    }
+
+    /** Copies {@code length} bytes starting at {@code offset} into {@code target}. */
+    public void get(long offset, byte[] target, int length) {
+        for (int done = 0; done < length;) {
+            int inSegment = (int) (offset + done) & OFFSET_MASK;
+            int chunk = (int) Math.min(length - done, SEGMENT_SIZE - inSegment);
+            segment(offset + done).get(inSegment, target, done, chunk);
+            done += chunk;
+        }
+    }
+
+    /** Writes all of {@code source} starting at {@code offset}. */
+    public void put(long offset, byte[] source) {
+        for (int done = 0; done < source.length;) {
+            int inSegment = (int) (offset + done) & OFFSET_MASK;
+            int chunk = (int) Math.min(source.length - done, SEGMENT_SIZE - inSegment);
+            segment(offset + done).put(inSegment, source, done, chunk);
+            done += chunk;
+        }
+    }
+
+    /**
+     * Deletes the scratch file. The mapped memory itself is released once the
+     * segments are garbage collected.
+     */
+    @Override
+    public void close() {
+        segments = new MappedByteBuffer[0];
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        return segments[(int) (offset >>> SEGMENT_BITS)];
+    }
+}
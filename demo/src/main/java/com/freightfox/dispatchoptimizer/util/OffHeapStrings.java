@@ -0,0 +1,80 @@
+package com.freightfox.dispatchoptimizer.util;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Strings kept outside the heap as length-prefixed UTF-8 in a
+ * {@link MappedBuffer}, each referred to by a long: its offset. Append-only;
+ * a string is decoded afresh every time it is read.
+ *
+ * Not thread-safe: callers synchronize reads against writes.
+ */
+public final class OffHeapStrings implements Closeable {
+
+    /** The reference that stands for null. */
+    public static final long NULL = -1;
+
+    private final MappedBuffer bytes;
+    private long end;
+
+    public OffHeapStrings(Path directory) {
+        this.bytes = new MappedBuffer(directory);
+    }
+
+    /**
+     * @return The reference to read the string back with, or {@link #NULL}.
+     */
+    public long add(String value) {
+        return value == null ? NULL : add(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same as {@link #add(String)} for an already encoded string.
+     */
+    public long add(byte[] utf8) {
+        long ref = end;
+        bytes.ensureCapacity(ref + Integer.BYTES + utf8.length);
+        bytes.putInt(ref, utf8.length);
+        bytes.put(ref + Integer.BYTES, utf8);
+        // Keep every length prefix 4-byte aligned.
+        end = (ref + Integer.BYTES + utf8.length + 3) & ~3L;
+        return ref;
+    }
+
+    /**
+     * @return The string, or null for {@link #NULL}.
+     */
+    public String get(long ref) {
+        if (ref == NULL) {
+            return null;
+        }
+        byte[] utf8 = new byte[bytes.getInt(ref)];
+        bytes.get(ref + Integer.BYTES, utf8, utf8.length);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Whether the string at {@code ref} is {@code utf8}, without decoding it.
+     */
+    public boolean matches(long ref, byte[] utf8) {
+        if (ref == NULL || bytes.getInt(ref) != utf8.length) {
+            return false;
+        }
+        byte[] stored = new byte[utf8.length];
+        bytes.get(ref + Integer.BYTES, stored, stored.length);
+        return Arrays.equals(stored, utf8);
+    }
+
+    /** @return Bytes taken so far, including strings that are no longer referenced. */
+    public long size() {
+        return end;
+    }
+
+    @Override
+    public void close() {
+        bytes.close();
+    }
+}
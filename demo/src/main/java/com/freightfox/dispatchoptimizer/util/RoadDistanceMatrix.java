@@ -0,0 +1,180 @@
+package com.freightfox.dispatchoptimizer.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Road distances from a local table, with a great-circle fallback for legs the
+ * table does not cover.
+ *
+ * The table is held as sorted primitive arrays of (from, to) position keys,
+ * with positions rounded to {@value #KEY_DECIMALS} decimals (about a metre).
+ * Legs are directed, since one-way streets make them asymmetric. Distances
+ * shorter than the straight line are raised to it.
+ *
+ * Recently used legs, looked up or computed, are kept in a bounded LRU cache
+ * split into independently locked segments, so parallel planners rarely wait
+ * on each other. One instance is meant to be shared by every plan, and the
+ * cache stays warm between them.
+ */
+public final class RoadDistanceMatrix implements TravelMatrix {
+
+    private static final int KEY_DECIMALS = 5;
+    private static final double KEY_SCALE = Math.pow(10, KEY_DECIMALS);
+    private static final int SEGMENTS = 16;
+
+    private record Leg(long from, long to) {
+    }
+
+    private static final class Segment extends LinkedHashMap<Leg, Double> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true); // Access order, so the eldest entry is the least recently used.
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Leg, Double> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    // Sorted by (fromKeys, toKeys).
+    private final long[] fromKeys;
+    private final long[] toKeys;
+    private final double[] distancesKm;
+    private final Segment[] cache;
+
+    private RoadDistanceMatrix(long[] fromKeys, long[] toKeys, double[] distancesKm, int cacheSize) {
+        this.fromKeys = fromKeys;
+        this.toKeys = toKeys;
+        this.distancesKm = distancesKm;
+        this.cache = new Segment[SEGMENTS];
+        int perSegment = Math.max(1, cacheSize / SEGMENTS);
+        for (int s = 0; s < SEGMENTS; s++) {
+            cache[s] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Reads a table of comma-separated
+     * {@code fromLatitude,fromLongitude,toLatitude,toLongitude,distanceKm}
+     * lines. Blank lines and lines starting with {@code #} are skipped. If a
+     * leg appears more than once, the last line wins.
+     *
+     * @param cacheSize The most legs kept in the cache.
+     * @throws IOException If the file cannot be read or a line is malformed.
+     */
+    public static RoadDistanceMatrix load(Path table, int cacheSize) throws IOException {
+        LinkedHashMap<Leg, Double> legs = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(table)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    if (fields.length != 5) {
+                        throw new NumberFormatException("expected 5 fields but found " + fields.length);
+                    }
+                    legs.put(new Leg(key(Double.parseDouble(fields[0].trim()), Double.parseDouble(fields[1].trim())),
+                            key(Double.parseDouble(fields[2].trim()), Double.parseDouble(fields[3].trim()))),
+                            Double.parseDouble(fields[4].trim()));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed road distance at " + table + ":" + lineNumber + ": "
+                            + e.getMessage(), e);
+                }
+            }
+        }
+
+        Leg[] sorted = legs.keySet().toArray(new Leg[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Leg::from).thenComparingLong(Leg::to));
+        long[] fromKeys = new long[sorted.length];
+        long[] toKeys = new long[sorted.length];
+        double[] distancesKm = new double[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            fromKeys[i] = sorted[i].from();
+            toKeys[i] = sorted[i].to();
+            distancesKm[i] = legs.get(sorted[i]);
+        }
+        return new RoadDistanceMatrix(fromKeys, toKeys, distancesKm, cacheSize);
+    }
+
+    /**
+     * @return How many legs the table holds.
+     */
+    public int size() {
+        return distancesKm.length;
+    }
+
+    /**
+     * @return How many legs are cached right now.
+     */
+    public int cachedLegs() {
+        int legs = 0;
+        for (Segment segment : cache) {
+            synchronized (segment) {
+                legs += segment.size();
+            }
+        }
+        return legs;
+    }
+
+    @Override
+    public double distanceKm(GeoPoints from, int i, GeoPoints to, int j) {
+        Leg leg = new Leg(key(from.latitude[i], from.longitude[i]), key(to.latitude[j], to.longitude[j]));
+        Segment segment = cache[Math.floorMod(leg.hashCode(), SEGMENTS)];
+        synchronized (segment) {
+            Double cached = segment.get(leg);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        double straightLine = DistanceCalculator.calculate(from, i, to, j);
+        int row = find(leg);
+        double distance = row < 0 ? straightLine : Math.max(straightLine, distancesKm[row]);
+        synchronized (segment) {
+            segment.put(leg, distance);
+        }
+        return distance;
+    }
+
+    // Binary search over the sorted keys; -1 if the leg is not in the table.
+    private int find(Leg leg) {
+        int lo = 0;
+        int hi = distancesKm.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = fromKeys[mid] != leg.from() ? Long.compare(fromKeys[mid], leg.from())
+                    : Long.compare(toKeys[mid], leg.to());
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Latitude and longitude, rounded, packed into one long.
+    private static long key(double latitude, double longitude) {
+        long lat = Math.round(latitude * KEY_SCALE);
+        long lon = Math.round(longitude * KEY_SCALE);
+        return (lat << 32) | (lon & 0xFFFFFFFFL);
+    }
+}
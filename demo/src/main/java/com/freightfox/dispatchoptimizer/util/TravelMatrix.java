@@ -0,0 +1,20 @@
+package com.freightfox.dispatchoptimizer.util;
+
+/**
+ * Driving distance between two positions, for routes and arrival times.
+ *
+ * Implementations must never return less than the great-circle distance, so
+ * callers can rule a leg out from the straight line alone before asking for
+ * the real distance.
+ */
+public interface TravelMatrix {
+
+    /** Great-circle distances only; no road data. */
+    TravelMatrix HAVERSINE = DistanceCalculator::calculate;
+
+    /**
+     * @return The distance in km from point {@code i} of {@code from} to point
+     *         {@code j} of {@code to}.
+     */
+    double distanceKm(GeoPoints from, int i, GeoPoints to, int j);
+}
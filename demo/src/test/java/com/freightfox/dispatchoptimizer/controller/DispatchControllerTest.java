@@ -0,0 +1,262 @@
+package com.freightfox.dispatchoptimizer.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.freightfox.dispatchoptimizer.config.WireFormatConfig;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.repository.VehicleRepository;
+import com.freightfox.dispatchoptimizer.service.TelemetryService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs the whole application against the in-memory H2 database. A tiny ingest
+// batch size makes the streaming test span several transactions.
+@SpringBootTest(properties = "dispatch.ingest.batch-size=2")
+@AutoConfigureMockMvc
+class DispatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Test
+    void unchangedPlanShouldReturnNotModified() throws Exception {
+        // --- ARRANGE ---
+        mockMvc.perform(post("/api/dispatch/vehicles").contentType(MediaType.APPLICATION_JSON).content("""
+                {"vehicles": [{"vehicleId": "VEH-ETAG", "capacity": 100, "currentLatitude": 12.97,
+                  "currentLongitude": 77.59, "currentAddress": "Bengaluru"}]}
+                """)).andExpect(status().isOk());
+
+        String etag = mockMvc.perform(get("/api/dispatch/plan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dispatchPlan").isArray())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag, "The plan should carry an ETag");
+
+        // --- ACT / ASSERT ---
+        // Polling with the same ETag while nothing changed skips the plan entirely.
+        mockMvc.perform(get("/api/dispatch/plan").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Saving an order changes the data version, so the old ETag no longer matches.
+        mockMvc.perform(post("/api/dispatch/orders").contentType(MediaType.APPLICATION_JSON).content("""
+                {"orders": [{"orderId": "ORD-ETAG", "latitude": 12.98, "longitude": 77.60,
+                  "address": "MG Road", "packageWeight": 10, "priority": "HIGH"}]}
+                """)).andExpect(status().isOk());
+
+        String newEtag = mockMvc.perform(get("/api/dispatch/plan").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                // Planning reads no addresses; the response looks them up for the assigned orders.
+                .andExpect(jsonPath("$..assignedOrders[?(@.orderId == 'ORD-ETAG')].address").value("MG Road"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    void streamingUploadShouldSaveValidRecordsAndReportInvalidOnes() throws Exception {
+        // --- ARRANGE ---
+        // Four orders, one per line; the third is missing its weight.
+        String ndjson = """
+                {"orderId": "ORD-S1", "latitude": 12.9, "longitude": 77.5, "address": "A", "packageWeight": 5, "priority": "LOW"}
+                {"orderId": "ORD-S2", "latitude": 13.0, "longitude": 77.6, "address": "B", "packageWeight": 7, "priority": "HIGH"}
+                {"orderId": "ORD-S3", "latitude": 13.1, "longitude": 77.7, "address": "C", "priority": "MEDIUM"}
+                {"orderId": "ORD-S4", "latitude": 13.2, "longitude": 77.8, "address": "D", "packageWeight": 3, "priority": "LOW"}
+                """;
+
+        // --- ACT / ASSERT ---
+        mockMvc.perform(post("/api/dispatch/orders/stream").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("partial"))
+                .andExpect(jsonPath("$.accepted").value(3))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].record").value(2))
+                .andExpect(jsonPath("$.errors[0].errors.packageWeight").value("packageWeight is required"))
+                .andExpect(jsonPath("$.batches.length()").value(2))
+                .andExpect(jsonPath("$.batches[1].saved").value(1));
+
+        // A JSON array works too, and broken JSON stops the upload with 400.
+        mockMvc.perform(post("/api/dispatch/vehicles/stream").contentType(MediaType.APPLICATION_JSON).content("""
+                [{"vehicleId": "VEH-S1", "capacity": 50, "currentLatitude": 12.9, "currentLongitude": 77.5,
+                  "currentAddress": "Depot"}, {"vehicleId": """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("error"))
+                .andExpect(jsonPath("$.accepted").value(1));
+    }
+
+    @Test
+    void planJobShouldRunInTheBackgroundAndServeItsResult() throws Exception {
+        // --- ACT ---
+        String location = mockMvc.perform(post("/api/dispatch/plan-jobs"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").exists())
+                .andReturn().getResponse().getHeader("Location");
+        assertNotNull(location);
+
+        // Poll until the job is done, as a client would.
+        String state = "QUEUED";
+        for (int attempt = 0; attempt < 100 && !state.equals("SUCCEEDED"); attempt++) {
+            Thread.sleep(50);
+            String body = mockMvc.perform(get(location)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            state = JsonPath.read(body, "$.state");
+        }
+
+        // --- ASSERT ---
+        assertEquals("SUCCEEDED", state);
+        mockMvc.perform(get(location + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dispatchPlan").isArray());
+        mockMvc.perform(get("/api/dispatch/plan-jobs/no-such-job")).andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/dispatch/plan-jobs").param("timeBudgetMs", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void compactPlanStreamShouldWriteOneLineOfOrderIdsPerVehicle() throws Exception {
+        // --- ARRANGE ---
+        mockMvc.perform(post("/api/dispatch/vehicles").contentType(MediaType.APPLICATION_JSON).content("""
+                {"vehicles": [{"vehicleId": "VEH-STREAM", "capacity": 1000, "currentLatitude": -33.86,
+                  "currentLongitude": 151.20, "currentAddress": "Sydney"}]}
+                """)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/dispatch/orders").contentType(MediaType.APPLICATION_JSON).content("""
+                {"orders": [{"orderId": "ORD-STREAM", "latitude": -33.87, "longitude": 151.21,
+                  "address": "Circular Quay", "packageWeight": 1, "priority": "HIGH"}]}
+                """)).andExpect(status().isOk());
+
+        // --- ACT ---
+        // The body is written asynchronously, after the handler returns.
+        MvcResult result = mockMvc.perform(get("/api/dispatch/plan/stream").param("view", "compact"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streamed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_NDJSON_VALUE))
+                .andReturn();
+        String body = streamed.getResponse().getContentAsString();
+
+        // --- ASSERT ---
+        String line = body.lines()
+                .filter(l -> l.contains("VEH-STREAM"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(List.of("ORD-STREAM"), JsonPath.read(line, "$.orderIds"));
+        assertFalse(line.contains("Circular Quay"), "The compact view should leave out addresses");
+
+        // Served from the same cache as /plan, but a compact body is not a full one, so it has its own ETag.
+        String etag = streamed.getResponse().getHeader("ETag");
+        String planETag = mockMvc.perform(get("/api/dispatch/plan")).andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(planETag, etag);
+        mockMvc.perform(get("/api/dispatch/plan/stream").param("view", "compact").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/dispatch/plan/stream").header("If-None-Match", etag))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/dispatch/plan/stream").header("If-None-Match", planETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void smileClientsShouldPostAndReadThePlanWithoutJson() throws Exception {
+        // --- ARRANGE ---
+        SmileMapper smile = new SmileMapper();
+        mockMvc.perform(post("/api/dispatch/vehicles").contentType(WireFormatConfig.SMILE).accept(WireFormatConfig.SMILE)
+                .content(smile.writeValueAsBytes(Map.of("vehicles", List.of(Map.of("vehicleId", "VEH-SMILE",
+                        "capacity", 100, "currentLatitude", 51.50, "currentLongitude", -0.12,
+                        "currentAddress", "London"))))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", WireFormatConfig.SMILE.toString()));
+        mockMvc.perform(post("/api/dispatch/orders").contentType(WireFormatConfig.SMILE)
+                .content(smile.writeValueAsBytes(Map.of("orders", List.of(Map.of("orderId", "ORD-SMILE",
+                        "latitude", 51.51, "longitude", -0.13, "address", "Soho", "packageWeight", 5,
+                        "priority", "HIGH"))))))
+                .andExpect(status().isOk());
+
+        // --- ACT ---
+        // JSON is only ranked second, so the plan comes back as Smile.
+        MvcResult result = mockMvc.perform(get("/api/dispatch/plan")
+                .header("Accept", "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", WireFormatConfig.SMILE.toString()))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn();
+
+        // --- ASSERT ---
+        JsonNode plan = smile.readTree(result.getResponse().getContentAsByteArray()).get("dispatchPlan");
+        JsonNode vehicle = null;
+        for (JsonNode candidate : plan) {
+            if ("VEH-SMILE".equals(candidate.get("vehicleId").asText())) {
+                vehicle = candidate;
+            }
+        }
+        assertNotNull(vehicle);
+        assertEquals("ORD-SMILE", vehicle.get("assignedOrders").get(0).get("orderId").asText());
+        assertTrue(vehicle.get("totalDistance").asText().endsWith(" km"));
+
+        // Each format has its own ETag, and a plain request still gets JSON.
+        String smileETag = result.getResponse().getHeader("ETag");
+        String jsonETag = mockMvc.perform(get("/api/dispatch/plan"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dispatchPlan").isArray())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(jsonETag, smileETag);
+        mockMvc.perform(get("/api/dispatch/plan").accept(WireFormatConfig.SMILE).header("If-None-Match", smileETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void positionPingsShouldBeFlushedAsOneUpdatePerVehicle() throws Exception {
+        // --- ARRANGE ---
+        mockMvc.perform(post("/api/dispatch/vehicles").contentType(MediaType.APPLICATION_JSON).content("""
+                {"vehicles": [{"vehicleId": "VEH-GPS", "capacity": 100, "currentLatitude": 12.97,
+                  "currentLongitude": 77.59, "currentAddress": "Bengaluru"}]}
+                """)).andExpect(status().isOk());
+
+        // --- ACT ---
+        mockMvc.perform(post("/api/dispatch/vehicles/positions").contentType(MediaType.APPLICATION_JSON).content("""
+                {"positions": [
+                  {"vehicleId": "VEH-GPS", "latitude": 13.00, "longitude": 77.60, "reportedAt": "2026-01-01T10:00:00Z"},
+                  {"vehicleId": "VEH-GPS", "latitude": 13.05, "longitude": 77.65, "reportedAt": "2026-01-01T10:00:05Z"},
+                  {"vehicleId": "VEH-UNKNOWN", "latitude": 13.10, "longitude": 77.70}
+                ]}
+                """))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message").value("3 of 3 positions accepted."));
+        int moved = telemetryService.flush();
+
+        // --- ASSERT ---
+        assertEquals(1, moved, "Only the latest ping of a known vehicle is written");
+        Vehicle stored = vehicleRepository.findById("VEH-GPS").orElseThrow();
+        assertEquals(13.05, stored.getCurrentLatitude());
+        assertEquals(77.65, stored.getCurrentLongitude());
+        mockMvc.perform(post("/api/dispatch/vehicles/positions").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"positions\": [{\"vehicleId\": \"VEH-GPS\"}]}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,57 @@
+package com.freightfox.dispatchoptimizer.controller;
+
+import com.freightfox.dispatchoptimizer.repository.OrderRepository;
+import com.freightfox.dispatchoptimizer.repository.VehicleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The regular endpoints in upsert mode, where the native MERGE bypasses
+// Hibernate and so its validation before persisting.
+@SpringBootTest(properties = "dispatch.ingest.mode=upsert")
+@AutoConfigureMockMvc
+class UpsertIngestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Test
+    void invalidRecordsShouldBeRejectedWithNothingSaved() throws Exception {
+        // --- ACT / ASSERT ---
+        // The second order has a negative weight and no latitude.
+        mockMvc.perform(post("/api/dispatch/orders").contentType(MediaType.APPLICATION_JSON).content("""
+                {"orders": [
+                  {"orderId": "ORD-OK", "latitude": 12.9, "longitude": 77.5, "address": "A", "packageWeight": 5,
+                   "priority": "LOW"},
+                  {"orderId": "ORD-BAD", "longitude": 77.6, "address": "B", "packageWeight": -1, "priority": "HIGH"}
+                ]}
+                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.latitude").value("latitude is required"))
+                .andExpect(jsonPath("$.errors.packageWeight").value("packageWeight must be a positive number"));
+
+        mockMvc.perform(post("/api/dispatch/vehicles").contentType(MediaType.APPLICATION_JSON).content("""
+                {"vehicles": [{"vehicleId": "VEH-BAD", "capacity": 0, "currentLatitude": 12.9,
+                  "currentLongitude": 77.5, "currentAddress": " "}]}
+                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.capacity").value("capacity must be a positive number"));
+
+        assertFalse(orderRepository.existsById("ORD-OK"), "A rejected batch is not saved in part");
+        assertFalse(vehicleRepository.existsById("VEH-BAD"));
+    }
+}
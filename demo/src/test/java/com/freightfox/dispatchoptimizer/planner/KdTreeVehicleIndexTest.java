@@ -0,0 +1,96 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+import com.freightfox.dispatchoptimizer.util.GeoPoints;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KdTreeVehicleIndexTest {
+
+    @Test
+    void shouldReturnMinusOneWhenNoVehicleHasCapacity() {
+        KdTreeVehicleIndex index = new KdTreeVehicleIndex(
+                GeoPoints.of(new double[] { 1.0, 2.0 }, new double[] { 1.0, 2.0 }), new double[] { 10, 20 });
+        GeoPoints queries = GeoPoints.of(new double[] { 1.5, 1.0 }, new double[] { 1.5, 1.0 });
+
+        assertEquals(-1, index.findNearest(queries, 0, 25));
+        assertEquals(1, index.findNearest(queries, 1, 15), "Only the second vehicle can carry 15");
+    }
+
+    @Test
+    void shouldAgreeWithBruteForceWhileVehiclesMove() {
+        // Replay the same random sequence of queries and moves against both indexes.
+        Random random = new Random(42);
+        int vehicles = 500;
+        double[] latitudes = new double[vehicles];
+        double[] longitudes = new double[vehicles];
+        double[] remaining = new double[vehicles];
+        for (int v = 0; v < vehicles; v++) {
+            latitudes[v] = -60 + random.nextDouble() * 120;
+            longitudes[v] = -180 + random.nextDouble() * 360;
+            remaining[v] = 50 + random.nextDouble() * 100;
+        }
+
+        GeoPoints positions = GeoPoints.of(latitudes, longitudes);
+        VehicleIndex expected = new LinearVehicleIndex(DistanceMetric.HAVERSINE, positions, remaining);
+        VehicleIndex actual = new KdTreeVehicleIndex(positions, remaining);
+
+        GeoPoints query = new GeoPoints(1);
+        for (int i = 0; i < 5_000; i++) {
+            query.set(0, -60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360);
+            double weight = 1 + random.nextDouble() * 20;
+
+            int best = expected.findNearest(query, 0, weight);
+            assertEquals(best, actual.findNearest(query, 0, weight), "Query " + i + " disagreed");
+
+            if (best >= 0) {
+                remaining[best] -= weight;
+                expected.update(best, query, 0, remaining[best]);
+                actual.update(best, query, 0, remaining[best]);
+            }
+        }
+    }
+
+    @Test
+    void shouldAgreeWithBruteForceAsVehiclesRetire() {
+        // Vehicles fill up while the lightest order still to come keeps getting heavier.
+        Random random = new Random(7);
+        int vehicles = 300;
+        double[] latitudes = new double[vehicles];
+        double[] longitudes = new double[vehicles];
+        double[] remaining = new double[vehicles];
+        for (int v = 0; v < vehicles; v++) {
+            latitudes[v] = -60 + random.nextDouble() * 120;
+            longitudes[v] = -180 + random.nextDouble() * 360;
+            remaining[v] = 20 + random.nextDouble() * 80;
+        }
+
+        GeoPoints positions = GeoPoints.of(latitudes, longitudes);
+        VehicleIndex expected = new LinearVehicleIndex(DistanceMetric.SQUARED_CHORD, positions, remaining);
+        VehicleIndex actual = new KdTreeVehicleIndex(positions, remaining);
+
+        GeoPoints query = new GeoPoints(1);
+        for (int i = 0; i < 3_000; i++) {
+            double lightest = 1 + i / 200.0;
+            expected.retire(lightest);
+            actual.retire(lightest);
+
+            query.set(0, -60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360);
+            double weight = lightest + random.nextDouble() * 10;
+
+            int best = expected.findNearest(query, 0, weight);
+            assertEquals(best, actual.findNearest(query, 0, weight), "Query " + i + " disagreed");
+
+            if (best >= 0) {
+                assertTrue(remaining[best] >= lightest, "A retired vehicle was offered an order");
+                remaining[best] -= weight;
+                expected.update(best, query, 0, remaining[best]);
+                actual.update(best, query, 0, remaining[best]);
+            }
+        }
+        assertEquals(-1, expected.findNearest(query, 0, 16), "Every vehicle should have retired by now");
+    }
+}
@@ -0,0 +1,123 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingAssignerTest {
+
+    private static Order order(String id, double weight, Priority priority, double lat, double lon) {
+        Order order = new Order();
+        order.setOrderId(id);
+        order.setPackageWeight(weight);
+        order.setPriority(priority);
+        order.setLatitude(lat);
+        order.setLongitude(lon);
+        return order;
+    }
+
+    private static Vehicle vehicle(String id, double capacity, double lat, double lon) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVehicleId(id);
+        vehicle.setCapacity(capacity);
+        vehicle.setCurrentLatitude(lat);
+        vehicle.setCurrentLongitude(lon);
+        return vehicle;
+    }
+
+    private static MatchingAssigner matching() {
+        return new MatchingAssigner(VehicleIndexType.KD_TREE, DistanceMetric.SQUARED_CHORD, 128, 8, 0.25,
+                PlanningProgress.untracked());
+    }
+
+    private static double totalDistance(PlanningState state) {
+        double total = 0;
+        for (int v = 0; v < state.problem().vehicleCount(); v++) {
+            total += state.distanceKm(v);
+        }
+        return total;
+    }
+
+    @Test
+    void shouldNotStrandAVehicleTheWayGreedyDoes() {
+        // --- ARRANGE ---
+        // Along the equator: V1 at 0, V2 at 2.2, orders at 1.2 and 3.2, room for one order each.
+        // Greedy gives the first order to V2 (1 away), leaving V1 to drive 3.2 to the second.
+        List<Order> orders = List.of(order("A", 10, Priority.HIGH, 0, 1.2), order("B", 10, Priority.HIGH, 0, 3.2));
+        List<Vehicle> vehicles = List.of(vehicle("V1", 10, 0, 0), vehicle("V2", 10, 0, 2.2));
+        PlanningProblem problem = PlanningProblem.from(orders, vehicles);
+        PlanningState greedy = new PlanningState(problem);
+        new GreedyAssigner(VehicleIndexType.KD_TREE, DistanceMetric.SQUARED_CHORD).assign(greedy, new int[] { 0, 1 });
+
+        // --- ACT ---
+        PlanningState matched = new PlanningState(problem);
+        int[] unassigned = matching().assign(matched, new int[] { 0, 1 });
+
+        // --- ASSERT ---
+        assertEquals(0, unassigned.length);
+        assertArrayEquals(new int[] { 0 }, matched.route(0));
+        assertArrayEquals(new int[] { 1 }, matched.route(1));
+        assertTrue(totalDistance(matched) < totalDistance(greedy) * 0.7,
+                "Matching should drive 2.2 units where greedy drives 4.2");
+    }
+
+    @Test
+    void shouldRespectCapacityAndPriorityOnARandomFleet() {
+        // --- ARRANGE ---
+        Random random = new Random(7);
+        Priority[] priorities = Priority.values();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            orders.add(order("O" + i, 1 + random.nextInt(20), priorities[random.nextInt(3)],
+                    random.nextDouble(), random.nextDouble()));
+        }
+        // Planning sequence: HIGH first, then MEDIUM, then LOW.
+        orders.sort(Comparator.comparing(Order::getPriority));
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int v = 0; v < 25; v++) {
+            vehicles.add(vehicle("V" + v, 200, random.nextDouble(), random.nextDouble()));
+        }
+        PlanningProblem problem = PlanningProblem.from(orders, vehicles);
+        PlanningState state = new PlanningState(problem);
+        int[] all = new int[orders.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+
+        // --- ACT ---
+        int[] unassigned = matching().assign(state, all);
+
+        // --- ASSERT ---
+        Set<Integer> seen = new HashSet<>();
+        for (int o : unassigned) {
+            assertTrue(seen.add(o));
+            assertEquals(-1, state.assignedVehicle(o));
+        }
+        for (int v = 0; v < vehicles.size(); v++) {
+            int[] route = state.route(v);
+            double load = 0;
+            for (int i = 0; i < route.length; i++) {
+                assertTrue(seen.add(route[i]), "An order was assigned twice");
+                load += orders.get(route[i]).getPackageWeight();
+                if (i > 0) {
+                    assertTrue(orders.get(route[i - 1]).getPriority().compareTo(orders.get(route[i]).getPriority()) <= 0,
+                            "Higher priorities are dropped off first");
+                }
+            }
+            assertTrue(load <= 200, "Vehicle " + v + " is overloaded");
+        }
+        assertEquals(orders.size(), seen.size(), "Every order is either routed or reported unassigned");
+        assertTrue(unassigned.length < orders.size() / 3, "Fleet capacity covers most of the orders");
+    }
+}
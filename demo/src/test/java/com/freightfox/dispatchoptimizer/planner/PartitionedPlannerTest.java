@@ -0,0 +1,83 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedPlannerTest {
+
+    private DispatchProperties properties;
+    private PartitionedPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DispatchProperties();
+        properties.getPlanner().getParallel().setParallelism(4);
+        properties.getPlanner().getParallel().setMaxVehiclesPerPartition(8);
+        planner = new PartitionedPlanner(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        planner.shutdown();
+    }
+
+    @Test
+    void shouldAssignEveryOrderExactlyOnceWithinCapacity() {
+        // --- ARRANGE ---
+        // 100 vehicles spread over a region, with comfortably more total capacity than needed.
+        Random random = new Random(7);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int v = 0; v < 100; v++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleId("VEH" + v);
+            vehicle.setCapacity(100.0);
+            vehicle.setCurrentLatitude(10 + random.nextDouble() * 10);
+            vehicle.setCurrentLongitude(70 + random.nextDouble() * 10);
+            vehicles.add(vehicle);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int o = 0; o < 1_000; o++) {
+            Order order = new Order();
+            order.setOrderId("ORD" + o);
+            order.setPackageWeight(1 + random.nextDouble() * 5);
+            order.setPriority(Priority.values()[random.nextInt(3)]);
+            order.setLatitude(10 + random.nextDouble() * 10);
+            order.setLongitude(70 + random.nextDouble() * 10);
+            orders.add(order);
+        }
+        orders.sort(Comparator.comparing(Order::getPriority));
+        PlanningProblem problem = PlanningProblem.from(orders, vehicles);
+        PlanningState state = new PlanningState(problem);
+        int[] sequence = IntStream.range(0, orders.size()).toArray();
+
+        // --- ACT ---
+        int[] unassigned = planner.assign(state, sequence);
+
+        // --- ASSERT ---
+        assertEquals(0, unassigned.length, "The rebalancing pass should place every order");
+        Set<Integer> seen = new HashSet<>();
+        for (int v = 0; v < problem.vehicleCount(); v++) {
+            assertTrue(state.load(v) <= vehicles.get(v).getCapacity(), "Capacity exceeded on vehicle " + v);
+            for (int order : state.route(v)) {
+                assertTrue(seen.add(order), "Order " + order + " was assigned twice");
+                assertEquals(v, state.assignedVehicle(order));
+            }
+        }
+        assertEquals(orders.size(), seen.size());
+    }
+}
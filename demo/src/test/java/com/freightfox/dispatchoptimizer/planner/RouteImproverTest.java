@@ -0,0 +1,164 @@
+package com.freightfox.dispatchoptimizer.planner;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.util.DistanceCalculator;
+import com.freightfox.dispatchoptimizer.util.DistanceMetric;
+import com.freightfox.dispatchoptimizer.util.TravelMatrix;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteImproverTest {
+
+    private static Order order(String id, double weight, Priority priority, double lat, double lon) {
+        Order order = new Order();
+        order.setOrderId(id);
+        order.setPackageWeight(weight);
+        order.setPriority(priority);
+        order.setLatitude(lat);
+        order.setLongitude(lon);
+        return order;
+    }
+
+    private static Vehicle vehicle(String id, double capacity, double lat, double lon) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVehicleId(id);
+        vehicle.setCapacity(capacity);
+        vehicle.setCurrentLatitude(lat);
+        vehicle.setCurrentLongitude(lon);
+        return vehicle;
+    }
+
+    private static double totalDistance(PlanningState state) {
+        double total = 0;
+        for (int v = 0; v < state.problem().vehicleCount(); v++) {
+            total += state.distanceKm(v);
+        }
+        return total;
+    }
+
+    @Test
+    void twoOptShouldUndoABacktrackingRoute() {
+        // --- ARRANGE ---
+        // Stops along a line, visited out of sequence: 0 -> 2 -> 1 -> 3.
+        PlanningProblem problem = PlanningProblem.from(List.of(
+                order("A", 1, Priority.MEDIUM, 0, 2),
+                order("B", 1, Priority.MEDIUM, 0, 1),
+                order("C", 1, Priority.MEDIUM, 0, 3)), List.of(vehicle("V", 10, 0, 0)));
+        PlanningState state = new PlanningState(problem);
+        state.assign(0, 0);
+        state.assign(1, 0);
+        state.assign(2, 0);
+        double before = state.distanceKm(0);
+
+        // --- ACT ---
+        new RouteImprover(0, 0, 4, PlanningProgress.untracked()).improve(state);
+
+        // --- ASSERT ---
+        assertArrayEquals(new int[] { 1, 0, 2 }, state.route(0));
+        assertTrue(state.distanceKm(0) < before);
+        assertEquals(0, state.latitude(0), 1e-9);
+        assertEquals(3, state.longitude(0), 1e-9, "The vehicle should end at the last drop-off");
+    }
+
+    @Test
+    void shouldNeverPutALowerPriorityDropOffFirst() {
+        // --- ARRANGE ---
+        // Delivering the nearby LOW order first would be shorter, but HIGH goes first.
+        PlanningProblem problem = PlanningProblem.from(List.of(
+                order("HIGH", 1, Priority.HIGH, 0, 2),
+                order("LOW", 1, Priority.LOW, 0, 1)), List.of(vehicle("V", 10, 0, 0)));
+        PlanningState state = new PlanningState(problem);
+        state.assign(0, 0);
+        state.assign(1, 0);
+
+        // --- ACT ---
+        new RouteImprover(0, 0, 4, PlanningProgress.untracked()).improve(state);
+
+        // --- ASSERT ---
+        assertArrayEquals(new int[] { 0, 1 }, state.route(0));
+    }
+
+    @Test
+    void shouldShortenGreedyPlansWithinCapacityAndPriorityOrder() {
+        // --- ARRANGE ---
+        Random random = new Random(11);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int v = 0; v < 20; v++) {
+            vehicles.add(vehicle("VEH" + v, 60, 12 + random.nextDouble(), 77 + random.nextDouble()));
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int o = 0; o < 500; o++) {
+            orders.add(order("ORD" + o, 1 + random.nextDouble() * 3, Priority.values()[random.nextInt(3)],
+                    12 + random.nextDouble(), 77 + random.nextDouble()));
+        }
+        orders.sort(Comparator.comparing(Order::getPriority));
+        PlanningProblem problem = PlanningProblem.from(orders, vehicles);
+        PlanningState state = new PlanningState(problem);
+        new GreedyAssigner(VehicleIndexType.KD_TREE, DistanceMetric.SQUARED_CHORD)
+                .assign(state, IntStream.range(0, orders.size()).toArray());
+        double greedyDistance = totalDistance(state);
+        int greedyAssigned = countAssigned(state);
+
+        // --- ACT ---
+        new RouteImprover(0, 50, 8, PlanningProgress.untracked()).improve(state);
+
+        // --- ASSERT ---
+        assertTrue(totalDistance(state) < greedyDistance, "Local search should shorten the greedy plan");
+        assertEquals(greedyAssigned, countAssigned(state), "No order should be dropped or duplicated");
+        for (int v = 0; v < vehicles.size(); v++) {
+            assertTrue(state.load(v) <= 60 + 1e-9, "Capacity exceeded on vehicle " + v);
+            int[] route = state.route(v);
+            for (int k = 1; k < route.length; k++) {
+                assertTrue(problem.orderPriority[route[k - 1]] <= problem.orderPriority[route[k]],
+                        "Route of vehicle " + v + " is out of priority order");
+            }
+        }
+    }
+
+    @Test
+    void shouldNeverLengthenARouteOnAOneWayRoadMatrix() {
+        // --- ARRANGE ---
+        // Driving south costs four times the straight line, as if only northbound roads were direct.
+        TravelMatrix oneWay = (from, i, to, j) -> DistanceCalculator.calculate(from, i, to, j)
+                * (to.latitude[j] >= from.latitude[i] ? 1 : 4);
+        // Out east and back is the longer way in a straight line, but it is all northbound.
+        PlanningProblem problem = PlanningProblem.from(List.of(
+                order("EAST", 1, Priority.MEDIUM, 0.1, 0.5),
+                order("NORTH", 1, Priority.MEDIUM, 0.2, 0)), List.of(vehicle("V", 10, 0, 0)),
+                new TravelModel(oneWay, LocalTime.of(8, 0), 30));
+        PlanningState state = new PlanningState(problem);
+        state.assign(0, 0);
+        state.assign(1, 0);
+        double before = state.distanceKm(0);
+
+        // --- ACT ---
+        new RouteImprover(0, 0, 4, PlanningProgress.untracked()).improve(state);
+
+        // --- ASSERT ---
+        assertArrayEquals(new int[] { 0, 1 }, state.route(0), "Reversing would drive the long leg southbound");
+        assertTrue(state.distanceKm(0) <= before);
+    }
+
+    private static int countAssigned(PlanningState state) {
+        Set<Integer> seen = new HashSet<>();
+        for (int v = 0; v < state.problem().vehicleCount(); v++) {
+            for (int order : state.route(v)) {
+                assertTrue(seen.add(order), "Order " + order + " is on two routes");
+                assertEquals(v, state.assignedVehicle(order));
+            }
+        }
+        return seen.size();
+    }
+}
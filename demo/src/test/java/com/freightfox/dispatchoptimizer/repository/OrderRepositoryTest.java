@@ -0,0 +1,85 @@
+package com.freightfox.dispatchoptimizer.repository;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the native upserts against the in-memory H2 schema Hibernate generates.
+// The upserts validate their entities, so the slice needs the Validator too.
+@DataJpaTest
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Test
+    void upsertShouldInsertNewOrdersAndOverwriteKnownOnes() {
+        // --- ARRANGE ---
+        orderRepository.upsertAll(List.of(
+                new Order("ORD1", 12.9, 77.5, "A", 5.0, Priority.LOW, "north", null, null),
+                new Order("ORD2", 13.0, 77.6, "B", 7.0, Priority.HIGH, "north", null, null)));
+
+        // --- ACT ---
+        // Re-uploading ORD1 with a new weight and a delivery window, along with a new order.
+        orderRepository.upsertAll(List.of(
+                new Order("ORD1", 12.9, 77.5, "A", 9.0, Priority.MEDIUM, "north", LocalTime.of(9, 0),
+                        LocalTime.of(12, 30)),
+                new Order("ORD3", 13.1, 77.7, "C", 3.0, Priority.LOW, "south", null, null)));
+        List<Order> stored = orderRepository.findAllForPlanning();
+
+        // --- ASSERT ---
+        assertEquals(3, stored.size());
+        Order updated = stored.stream().filter(o -> o.getOrderId().equals("ORD1")).findFirst().orElseThrow();
+        assertEquals(9.0, updated.getPackageWeight());
+        assertEquals(Priority.MEDIUM, updated.getPriority());
+        assertEquals(LocalTime.of(12, 30), updated.getWindowEnd());
+        assertEquals(List.of("ORD3"), orderRepository.findByRegionForPlanning("south").stream()
+                .map(Order::getOrderId).toList());
+    }
+
+    @Test
+    void upsertShouldBeIdempotentForVehicles() {
+        // --- ARRANGE ---
+        List<Vehicle> fleet = List.of(new Vehicle("VEH1", 100.0, 12.9, 77.5, "Depot", "north", 40.0));
+
+        // --- ACT ---
+        vehicleRepository.upsertAll(fleet);
+        vehicleRepository.upsertAll(fleet);
+
+        // --- ASSERT ---
+        // The planning read leaves the address out.
+        assertEquals(List.of(new Vehicle("VEH1", 100.0, 12.9, 77.5, "north", 40.0)),
+                vehicleRepository.findAllForPlanning());
+    }
+
+    @Test
+    void shouldLeaveAddressesOutOfThePlanningReadAndLookThemUpById() {
+        // --- ARRANGE ---
+        orderRepository.upsertAll(List.of(
+                new Order("ORD1", 12.9, 77.5, "MG Road", 5.0, Priority.LOW, "north", null, null),
+                new Order("ORD2", 13.0, 77.6, "Brigade Road", 7.0, Priority.HIGH, "north", null, null)));
+
+        // --- ACT ---
+        List<Order> planned = orderRepository.findAllForPlanning();
+        Map<String, String> addresses = orderRepository.findAddresses(List.of("ORD2", "ORD9"));
+
+        // --- ASSERT ---
+        assertTrue(planned.stream().allMatch(o -> o.getAddress() == null));
+        assertEquals(Map.of("ORD2", "Brigade Road"), addresses);
+    }
+}
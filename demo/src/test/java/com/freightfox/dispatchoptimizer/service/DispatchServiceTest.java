@@ -1,23 +1,46 @@
 package com.freightfox.dispatchoptimizer.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
 import com.freightfox.dispatchoptimizer.dto.DispatchPlanDto;
+import com.freightfox.dispatchoptimizer.dto.PlanView;
 import com.freightfox.dispatchoptimizer.model.Order;
 import com.freightfox.dispatchoptimizer.model.Priority;
 import com.freightfox.dispatchoptimizer.model.Vehicle;
+import com.freightfox.dispatchoptimizer.model.VehiclePosition;
+import com.freightfox.dispatchoptimizer.planner.OrderSequence;
+import com.freightfox.dispatchoptimizer.planner.PartitionedPlanner;
+import com.freightfox.dispatchoptimizer.planner.PlanningProgress;
+import com.freightfox.dispatchoptimizer.planner.Solver;
+import com.freightfox.dispatchoptimizer.planner.VehicleIndexType;
 import com.freightfox.dispatchoptimizer.repository.OrderRepository;
 import com.freightfox.dispatchoptimizer.repository.VehicleRepository;
 import com.freightfox.dispatchoptimizer.service.DispatchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 // This tells JUnit 5 to enable Mockito support
@@ -32,6 +55,43 @@ class DispatchServiceTest {
     @Mock
     private VehicleRepository vehicleRepository;
 
+    // @Spy wraps a real object, so the service sees the default configuration
+    // unless a test changes it.
+    @Spy
+    private DispatchProperties properties = new DispatchProperties();
+
+    @Spy
+    private PartitionedPlanner partitionedPlanner = new PartitionedPlanner(properties);
+
+    @Spy
+    private IncrementalPlanner incrementalPlanner = new IncrementalPlanner(properties);
+
+    @Spy
+    private PlanCache planCache = new PlanCache(properties, new ObjectMapper());
+
+    @Spy
+    private OrderQueue orderQueue = new OrderQueue(properties);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PlanMetrics metrics = new PlanMetrics(meterRegistry);
+
+    @Spy
+    private PlanSnapshotStore snapshotStore = new PlanSnapshotStore(properties);
+
+    @Spy
+    private TravelMatrixProvider travelMatrixProvider = new TravelMatrixProvider(properties);
+
+    @Spy
+    private FleetStore fleetStore = new FleetStore();
+
+    @Spy
+    private VehiclePositions vehiclePositions = new VehiclePositions();
+
+    @Spy
+    private OffHeapOrderStore offHeapOrders = new OffHeapOrderStore(properties);
+
     // @InjectMocks creates a real instance of DispatchService, but it
     // injects our fake @Mock objects into it.
     @InjectMocks
@@ -67,10 +127,10 @@ class DispatchServiceTest {
         Vehicle closeVehicle = createVehicle("VEH-CLOSE", 100, 2.0, 2.0);
 
         // 2. Define the behavior of our mocks
-        // When the service calls orderRepository.findAll(), return our single order.
-        when(orderRepository.findAll()).thenReturn(List.of(order));
-        // When the service calls vehicleRepository.findAll(), return our two vehicles.
-        when(vehicleRepository.findAll()).thenReturn(List.of(farVehicle, closeVehicle));
+        // When the service calls orderRepository.findAllForPlanning(), return our single order.
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order));
+        // When the service calls vehicleRepository.findAllForPlanning(), return our two vehicles.
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(farVehicle, closeVehicle));
 
         // --- ACT ---
         // 3. Call the method we are testing
@@ -111,8 +171,8 @@ class DispatchServiceTest {
         Order heavyOrder = createOrder("ORD-HEAVY", 101, Priority.HIGH, 1.0, 1.0);
         Vehicle vehicle = createVehicle("VEH1", 100, 2.0, 2.0);
 
-        when(orderRepository.findAll()).thenReturn(List.of(heavyOrder));
-        when(vehicleRepository.findAll()).thenReturn(List.of(vehicle));
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(heavyOrder));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
 
         // --- ACT ---
         List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
@@ -143,8 +203,8 @@ class DispatchServiceTest {
 
         // NOTE: The order of this list matters for proving the sort works.
         // We put MEDIUM first to ensure our service has to correctly re-sort it.
-        when(orderRepository.findAll()).thenReturn(List.of(mediumPriorityOrder, highPriorityOrder));
-        when(vehicleRepository.findAll()).thenReturn(List.of(vehicle));
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(mediumPriorityOrder, highPriorityOrder));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
 
         // --- ACT ---
         List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
@@ -167,9 +227,9 @@ class DispatchServiceTest {
         // --- ARRANGE ---
         Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order));
         // We tell the mock to return an empty list for vehicles.
-        when(vehicleRepository.findAll()).thenReturn(Collections.emptyList());
+        when(vehicleRepository.findAllForPlanning()).thenReturn(Collections.emptyList());
 
         // --- ACT ---
         List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
@@ -178,4 +238,441 @@ class DispatchServiceTest {
         assertNotNull(dispatchPlan);
         assertTrue(dispatchPlan.isEmpty(), "The dispatch plan should be empty when there are no vehicles");
     }
-}
\ No newline at end of file
+
+    @Test
+    void bruteForceAndKdTreeLookupsShouldProduceTheSamePlan() {
+        // --- ARRANGE ---
+        List<Order> orders = List.of(
+                createOrder("ORD1", 30, Priority.LOW, 12.97, 77.59),
+                createOrder("ORD2", 40, Priority.HIGH, 13.08, 80.27),
+                createOrder("ORD3", 25, Priority.MEDIUM, 19.07, 72.87),
+                createOrder("ORD4", 50, Priority.HIGH, 28.61, 77.20),
+                createOrder("ORD5", 20, Priority.MEDIUM, 17.38, 78.48));
+        List<Vehicle> vehicles = List.of(
+                createVehicle("VEH1", 60, 12.90, 77.60),
+                createVehicle("VEH2", 80, 28.70, 77.10),
+                createVehicle("VEH3", 70, 18.90, 72.80));
+
+        when(orderRepository.findAllForPlanning()).thenReturn(orders);
+        when(vehicleRepository.findAllForPlanning()).thenReturn(vehicles);
+
+        // --- ACT ---
+        properties.getPlanner().setVehicleIndex(VehicleIndexType.BRUTE_FORCE);
+        List<DispatchPlanDto> bruteForcePlan = dispatchService.generateDispatchPlan();
+        properties.getPlanner().setVehicleIndex(VehicleIndexType.KD_TREE);
+        List<DispatchPlanDto> kdTreePlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertEquals(bruteForcePlan.size(), kdTreePlan.size());
+        for (int i = 0; i < bruteForcePlan.size(); i++) {
+            assertEquals(bruteForcePlan.get(i).getVehicleId(), kdTreePlan.get(i).getVehicleId());
+            assertEquals(bruteForcePlan.get(i).getAssignedOrders(), kdTreePlan.get(i).getAssignedOrders());
+            assertEquals(bruteForcePlan.get(i).getTotalDistance(), kdTreePlan.get(i).getTotalDistance());
+        }
+    }
+
+    @Test
+    void incrementalPlannerShouldAddNewOrdersWithoutReloadingEverything() {
+        // --- ARRANGE ---
+        properties.getPlanner().getIncremental().setEnabled(true);
+        Order firstOrder = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        Vehicle vehicle = createVehicle("VEH1", 50, 1.0, 1.0);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(firstOrder));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
+
+        // --- ACT ---
+        dispatchService.generateDispatchPlan(); // The first plan is a full solve.
+        dispatchService.saveOrders(List.of(createOrder("ORD2", 15, Priority.LOW, 2.0, 2.0)));
+        List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        DispatchPlanDto vehiclePlan = dispatchPlan.get(0);
+        assertEquals(2, vehiclePlan.getAssignedOrders().size(), "The new order should be added to the route");
+        assertEquals("ORD2", vehiclePlan.getAssignedOrders().get(1).getOrderId());
+        assertEquals(25.0, vehiclePlan.getTotalLoad());
+        // The repositories were read once, for the initial full solve only.
+        verify(orderRepository, times(1)).findAllForPlanning();
+        verify(vehicleRepository, times(1)).findAllForPlanning();
+    }
+
+    @Test
+    void incrementalPlannerShouldGiveUnassignedOrdersToNewVehicles() {
+        // --- ARRANGE ---
+        properties.getPlanner().getIncremental().setEnabled(true);
+        Order heavyOrder = createOrder("ORD-HEAVY", 80, Priority.HIGH, 1.0, 1.0);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(heavyOrder));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(createVehicle("VEH-SMALL", 50, 1.0, 1.0)));
+
+        // --- ACT ---
+        dispatchService.generateDispatchPlan();
+        dispatchService.saveVehicles(List.of(createVehicle("VEH-BIG", 100, 5.0, 5.0)));
+        List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertEquals(2, dispatchPlan.size());
+        assertTrue(dispatchPlan.get(0).getAssignedOrders().isEmpty());
+        assertEquals("ORD-HEAVY", dispatchPlan.get(1).getAssignedOrders().get(0).getOrderId(),
+                "The new, bigger vehicle should pick up the order nobody could carry");
+    }
+
+    @Test
+    void cancelledRunShouldKeepOrdersUnassigned() {
+        // --- ARRANGE ---
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0)));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(createVehicle("VEH1", 50, 1.0, 1.0)));
+        PlanningProgress progress = new PlanningProgress(0);
+        progress.cancel();
+
+        // --- ACT ---
+        List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan(progress);
+
+        // --- ASSERT ---
+        // The solver checks in before its first order, so nothing is assigned.
+        assertTrue(dispatchPlan.get(0).getAssignedOrders().isEmpty());
+        assertEquals(1, progress.totalOrders());
+        assertEquals(0, progress.assignedOrders());
+    }
+
+    @Test
+    void orderQueueShouldKeepOrdersInPrioritySequenceWithoutReloading() {
+        // --- ARRANGE ---
+        properties.getPlanner().setOrderQueue(true);
+        Order lowOrder = createOrder("ORD-LOW", 10, Priority.LOW, 1.0, 1.0);
+        Vehicle vehicle = createVehicle("VEH1", 100, 1.0, 1.0);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(lowOrder));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
+
+        // --- ACT ---
+        dispatchService.generateDispatchPlan(); // Loads the queue.
+        dispatchService.saveOrders(List.of(createOrder("ORD-HIGH", 10, Priority.HIGH, 5.0, 5.0)));
+        List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        List<Order> route = dispatchPlan.get(0).getAssignedOrders();
+        assertEquals("ORD-HIGH", route.get(0).getOrderId(), "The saved HIGH order should be planned first");
+        assertEquals("ORD-LOW", route.get(1).getOrderId());
+        verify(orderRepository, times(1)).findAllForPlanning();
+    }
+
+    @Test
+    void geohashSequenceShouldGroupNearbyOrdersWithinEachPriority() {
+        // --- ARRANGE ---
+        // Two clusters, far apart, saved alternately.
+        List<Order> orders = List.of(
+                createOrder("A1", 1, Priority.MEDIUM, 12.97, 77.59),
+                createOrder("B1", 1, Priority.MEDIUM, 28.61, 77.20),
+                createOrder("H", 1, Priority.HIGH, 19.07, 72.87),
+                createOrder("A2", 1, Priority.MEDIUM, 12.98, 77.60),
+                createOrder("B2", 1, Priority.MEDIUM, 28.62, 77.21));
+
+        // --- ACT ---
+        List<Order> sequenced = OrderQueue.inPlanningSequence(orders, OrderSequence.GEOHASH);
+
+        // --- ASSERT ---
+        assertEquals(List.of("H", "A1", "A2", "B1", "B2"), sequenced.stream().map(Order::getOrderId).toList());
+    }
+
+    @Test
+    void shouldRecordPlanMetrics() {
+        // --- ARRANGE ---
+        // The small vehicle cannot take the first order, and neither can take the last.
+        Order first = createOrder("ORD1", 30, Priority.HIGH, 1.0, 1.0);
+        Order second = createOrder("ORD2", 10, Priority.MEDIUM, 1.0, 1.0);
+        Order heavyOrder = createOrder("ORD-HEAVY", 101, Priority.LOW, 1.0, 1.0);
+        properties.getPlanner().setVehicleIndex(VehicleIndexType.BRUTE_FORCE);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(first, second, heavyOrder));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(
+                List.of(createVehicle("VEH1", 100, 2.0, 2.0), createVehicle("VEH2", 20, 3.0, 3.0)));
+
+        // --- ACT ---
+        dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertEquals(1, meterRegistry.get("dispatch.plan").timer().count());
+        assertEquals(1, meterRegistry.get("dispatch.plan.phase").tag("phase", "assign").timer().count());
+        assertEquals(2, meterRegistry.get("dispatch.plan.orders").tag("outcome", "assigned").counter().count());
+        assertEquals(1, meterRegistry.get("dispatch.plan.orders").tag("outcome", "unassigned").counter().count());
+        // Both vehicles retire before the heavy order, so it is never scored against them.
+        assertEquals(4, meterRegistry.get("dispatch.plan.distance.evaluations").counter().count());
+        assertEquals(1, meterRegistry.get("dispatch.plan.capacity.rejections").counter().count());
+    }
+
+    @Test
+    void shouldOnlyAssignOrdersToVehiclesOfTheSameRegion() {
+        // --- ARRANGE ---
+        // The order sits right next to the north vehicle, but belongs to the south depot.
+        Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        order.setRegion("south");
+        Vehicle north = createVehicle("VEH-NORTH", 100, 1.0, 1.0);
+        north.setRegion("north");
+        Vehicle south = createVehicle("VEH-SOUTH", 100, 5.0, 5.0);
+        south.setRegion("south");
+        properties.getPlanner().getImprovement().setEnabled(true);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(north, south));
+
+        // --- ACT ---
+        List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertTrue(dispatchPlan.get(0).getAssignedOrders().isEmpty(), "The north vehicle must not cross depots");
+        assertEquals(List.of(order), dispatchPlan.get(1).getAssignedOrders());
+    }
+
+    @Test
+    void shouldLoadOnlyTheRequestedRegion() {
+        // --- ARRANGE ---
+        Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        order.setRegion("north");
+        Vehicle vehicle = createVehicle("VEH1", 100, 2.0, 2.0);
+        vehicle.setRegion("north");
+
+        when(orderRepository.findByRegionForPlanning("north")).thenReturn(List.of(order));
+        when(vehicleRepository.findByRegionForPlanning("north")).thenReturn(List.of(vehicle));
+
+        // --- ACT ---
+        List<DispatchPlanDto> dispatchPlan = dispatchService.getCachedDispatchPlan("north").plan();
+
+        // --- ASSERT ---
+        assertEquals(1, dispatchPlan.size());
+        assertEquals(List.of(order), dispatchPlan.get(0).getAssignedOrders());
+        verify(orderRepository, times(0)).findAllForPlanning();
+        verify(vehicleRepository, times(0)).findAllForPlanning();
+    }
+
+    @Test
+    void shouldPlanFromTheFleetStoreOnceLoaded() {
+        // --- ARRANGE ---
+        properties.getPlanner().setFleetStore(true);
+        Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        Order newOrder = createOrder("ORD2", 10, Priority.LOW, 2.0, 2.0);
+        Vehicle vehicle = createVehicle("VEH1", 100, 1.0, 1.0);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
+
+        // --- ACT ---
+        List<DispatchPlanDto> firstPlan = dispatchService.generateDispatchPlan();
+        dispatchService.saveOrders(List.of(newOrder));
+        List<DispatchPlanDto> secondPlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertEquals(List.of(order), firstPlan.get(0).getAssignedOrders());
+        assertEquals(List.of(order, newOrder), secondPlan.get(0).getAssignedOrders(),
+                "Saved orders are published to the store");
+        verify(orderRepository, times(1)).findAllForPlanning();
+        verify(vehicleRepository, times(1)).findAllForPlanning();
+    }
+
+    @Test
+    void shouldPlanFromTheOffHeapStore(@TempDir Path storeDir) {
+        // --- ARRANGE ---
+        properties.getPlanner().getOffHeap().setEnabled(true);
+        properties.getPlanner().getOffHeap().setDirectory(storeDir.toString());
+        Order order = createOrder("ORD1", 10, Priority.LOW, 1.0, 1.0);
+        Order newOrder = createOrder("ORD2", 10, Priority.HIGH, 2.0, 2.0);
+        Vehicle vehicle = createVehicle("VEH1", 100, 1.0, 1.0);
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<Order>>getArgument(0).accept(order);
+            return null;
+        }).when(orderRepository).forEachForPlanning(any());
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
+
+        // --- ACT ---
+        List<DispatchPlanDto> firstPlan = dispatchService.generateDispatchPlan();
+        dispatchService.saveOrders(List.of(newOrder));
+        List<DispatchPlanDto> secondPlan = dispatchService.generateDispatchPlan();
+        offHeapOrders.close();
+
+        // --- ASSERT ---
+        assertEquals(List.of(order), firstPlan.get(0).getAssignedOrders());
+        assertEquals(List.of(newOrder, order), secondPlan.get(0).getAssignedOrders(),
+                "Saved orders are written to the store and planned in priority order");
+        verify(orderRepository, times(1)).forEachForPlanning(any());
+        verify(orderRepository, times(0)).findAllForPlanning();
+    }
+
+    @Test
+    void shouldSolveAStreamedOffHeapPlanOncePerDataVersion(@TempDir Path storeDir) {
+        // --- ARRANGE ---
+        properties.getPlanner().getOffHeap().setEnabled(true);
+        properties.getPlanner().getOffHeap().setDirectory(storeDir.toString());
+        Order order = createOrder("ORD1", 10, Priority.LOW, 1.0, 1.0);
+        Vehicle vehicle = createVehicle("VEH1", 100, 1.0, 1.0);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Order>>getArgument(0).accept(order);
+            return null;
+        }).when(orderRepository).forEachForPlanning(any());
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
+
+        // --- ACT ---
+        DispatchService.StreamedPlan first = dispatchService.getStreamedDispatchPlan(null, null, PlanView.FULL);
+        DispatchService.StreamedPlan again = dispatchService.getStreamedDispatchPlan(null, null, PlanView.FULL);
+        List<DispatchPlanDto> streamed = new ArrayList<>();
+        again.forEach(streamed::add);
+        planCache.invalidate();
+        DispatchService.StreamedPlan afterChange = dispatchService.getStreamedDispatchPlan(null, null, PlanView.FULL);
+        offHeapOrders.close();
+
+        // --- ASSERT ---
+        assertEquals(first.etag(), again.etag());
+        assertEquals(List.of(order), streamed.get(0).getAssignedOrders());
+        assertEquals(dispatchService.currentPlanETag(), afterChange.etag());
+        verify(vehicleRepository, times(2)).findAllForPlanning();
+        assertEquals(2, meterRegistry.get("dispatch.plan").timer().count(), "Each solve is timed as a plan");
+    }
+
+    @Test
+    void shouldLookUpStreamedAddressesOncePerChunkAndNotAtAllForTheCompactView(@TempDir Path storeDir) {
+        // --- ARRANGE ---
+        properties.getPlanner().getOffHeap().setEnabled(true);
+        properties.getPlanner().getOffHeap().setDirectory(storeDir.toString());
+        Order orderA = createOrder("ORD-A", 10, Priority.LOW, 1.0, 1.0);
+        Order orderB = createOrder("ORD-B", 10, Priority.LOW, 5.0, 5.0);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Order>>getArgument(0).accept(orderA);
+            invocation.<Consumer<Order>>getArgument(0).accept(orderB);
+            return null;
+        }).when(orderRepository).forEachForPlanning(any());
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(
+                createVehicle("VEH-A", 10, 1.0, 1.0), createVehicle("VEH-B", 10, 5.0, 5.0)));
+        when(orderRepository.findAddresses(any())).thenReturn(Map.of("ORD-A", "Address A", "ORD-B", "Address B"));
+
+        // --- ACT ---
+        List<DispatchPlanDto> compact = new ArrayList<>();
+        dispatchService.getStreamedDispatchPlan(null, null, PlanView.COMPACT).forEach(compact::add);
+        verify(orderRepository, never()).findAddresses(any());
+        List<DispatchPlanDto> full = new ArrayList<>();
+        dispatchService.getStreamedDispatchPlan(null, null, PlanView.FULL).forEach(full::add);
+        offHeapOrders.close();
+
+        // --- ASSERT ---
+        assertEquals(2, compact.size());
+        assertNull(compact.get(0).getAssignedOrders().get(0).getAddress(), "The store keeps no addresses");
+        assertEquals("Address A", full.get(0).getAssignedOrders().get(0).getAddress());
+        assertEquals("Address B", full.get(1).getAssignedOrders().get(0).getAddress());
+        verify(orderRepository, times(1)).findAddresses(any());
+    }
+
+    @Test
+    void shouldPlanFromTheLatestTrackerPosition() {
+        // --- ARRANGE ---
+        // VEH-A is stored closer to the order, but has since reported a position far away.
+        Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        Vehicle vehicleA = createVehicle("VEH-A", 100, 1.1, 1.1);
+        Vehicle vehicleB = createVehicle("VEH-B", 100, 2.0, 2.0);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicleA, vehicleB));
+        vehiclePositions.report(List.of(new VehiclePosition("VEH-A", 9.0, 9.0, Instant.parse("2026-01-01T10:00:00Z")),
+                new VehiclePosition("VEH-A", 1.1, 1.1, Instant.parse("2026-01-01T09:59:00Z"))));
+
+        // --- ACT ---
+        List<DispatchPlanDto> dispatchPlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertTrue(dispatchPlan.get(0).getAssignedOrders().isEmpty(), "The older ping must not win");
+        assertEquals(List.of(order), dispatchPlan.get(1).getAssignedOrders());
+        assertEquals(1.1, vehicleA.getCurrentLatitude(), "Loaded vehicles are not changed");
+    }
+
+    @Test
+    void shouldUseTheSolverTheRequestAsksFor() {
+        // --- ARRANGE ---
+        // Greedy hands ORD1 to the vehicle nearest to it, stranding ORD2 with the far one.
+        Order first = createOrder("ORD1", 10, Priority.HIGH, 0.0, 1.2);
+        Order second = createOrder("ORD2", 10, Priority.HIGH, 0.0, 3.2);
+        Vehicle west = createVehicle("VEH-W", 10, 0.0, 0.0);
+        Vehicle east = createVehicle("VEH-E", 10, 0.0, 2.2);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(first, second));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(west, east));
+
+        // --- ACT ---
+        List<DispatchPlanDto> greedyPlan = dispatchService.getCachedDispatchPlan(null, null).plan();
+        List<DispatchPlanDto> matchedPlan = dispatchService.getCachedDispatchPlan(null, Solver.MATCHING).plan();
+
+        // --- ASSERT ---
+        assertEquals(List.of(second), greedyPlan.get(0).getAssignedOrders());
+        assertEquals(List.of(first), matchedPlan.get(0).getAssignedOrders());
+        assertEquals(List.of(second), matchedPlan.get(1).getAssignedOrders());
+    }
+
+    @Test
+    void shouldWarmStartFromTheLastSnapshot(@TempDir Path snapshotDir) {
+        // --- ARRANGE ---
+        // The previous run put ORD1 on the far vehicle, and also planned an order
+        // that has since been deleted.
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setPath(snapshotDir.resolve("plan.bin").toString());
+        new PlanSnapshotStore(properties).save(Map.of("VEH-FAR", List.of("ORD-GONE", "ORD1")));
+
+        Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        Order newOrder = createOrder("ORD2", 10, Priority.LOW, 1.0, 1.0);
+        Vehicle near = createVehicle("VEH-NEAR", 100, 1.0, 1.0);
+        Vehicle far = createVehicle("VEH-FAR", 100, 5.0, 5.0);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order, newOrder));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(near, far));
+
+        // --- ACT ---
+        List<DispatchPlanDto> warmPlan = dispatchService.generateDispatchPlan();
+        List<DispatchPlanDto> nextPlan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertEquals(List.of(order), warmPlan.get(1).getAssignedOrders(), "ORD1 should stay where it was");
+        assertEquals(List.of(newOrder), warmPlan.get(0).getAssignedOrders(), "New orders are planned as usual");
+        assertEquals(List.of(order, newOrder), nextPlan.get(0).getAssignedOrders(),
+                "Only the first plan after startup is warm-started");
+    }
+
+    @Test
+    void shouldNotSnapshotAPlanThatWasStoppedEarly(@TempDir Path snapshotDir) {
+        // --- ARRANGE ---
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setPath(snapshotDir.resolve("plan.bin").toString());
+        Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        Vehicle vehicle = createVehicle("VEH1", 100, 1.0, 1.0);
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(vehicle));
+        PlanningProgress cancelled = new PlanningProgress(0);
+        cancelled.cancel();
+
+        // --- ACT ---
+        dispatchService.generateDispatchPlan(cancelled);
+
+        // --- ASSERT ---
+        verify(snapshotStore, never()).save(any());
+        assertFalse(new PlanSnapshotStore(properties).hasWarmStart(), "The last complete plan stays the warm start");
+    }
+
+    @Test
+    void shouldSkipVehiclesThatWouldMissTheDeliveryWindow() {
+        // --- ARRANGE ---
+        // Shifts start at 08:00. The near vehicle is about 22 km out at the default
+        // 30 km/h (44 minutes); the far one is about 56 km out at 120 km/h (28 minutes).
+        Order order = createOrder("ORD1", 10, Priority.HIGH, 1.0, 1.0);
+        order.setWindowEnd(LocalTime.of(8, 30));
+        Order tooSoon = createOrder("ORD2", 10, Priority.LOW, 1.0, 1.0);
+        tooSoon.setWindowEnd(LocalTime.of(8, 5));
+        Vehicle near = createVehicle("VEH-NEAR", 100, 1.2, 1.0);
+        Vehicle far = createVehicle("VEH-FAR", 100, 1.5, 1.0);
+        far.setSpeedKmh(120.0);
+
+        when(orderRepository.findAllForPlanning()).thenReturn(List.of(order, tooSoon));
+        when(vehicleRepository.findAllForPlanning()).thenReturn(List.of(near, far));
+
+        // --- ACT ---
+        List<DispatchPlanDto> plan = dispatchService.generateDispatchPlan();
+
+        // --- ASSERT ---
+        assertTrue(plan.get(0).getAssignedOrders().isEmpty(), "The near vehicle would arrive too late");
+        assertEquals(List.of(order), plan.get(1).getAssignedOrders(), "No vehicle reaches ORD2 by 08:05");
+    }
+}
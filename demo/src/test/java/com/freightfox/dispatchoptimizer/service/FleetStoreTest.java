@@ -0,0 +1,85 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetStoreTest {
+
+    private static Order order(String id, double weight) {
+        Order order = new Order();
+        order.setOrderId(id);
+        order.setPackageWeight(weight);
+        return order;
+    }
+
+    @Test
+    void shouldLeaveTakenSnapshotsUnchangedByLaterBatches() {
+        // --- ARRANGE ---
+        FleetStore store = new FleetStore();
+        Order first = order("ORD1", 10);
+        Order second = order("ORD2", 10);
+        FleetStore.Snapshot before = store.snapshot(() -> List.of(first, second), List::<Vehicle>of);
+
+        // --- ACT ---
+        Order resaved = order("ORD1", 20);
+        Order added = order("ORD3", 10);
+        store.ordersSaved(List.of(resaved, added));
+        FleetStore.Snapshot after = store.snapshot(() -> fail("Already loaded"), () -> fail("Already loaded"));
+
+        // --- ASSERT ---
+        assertEquals(List.of(first, second), before.orders(), "A taken snapshot never changes");
+        assertEquals(List.of(resaved, second, added), after.orders(), "A re-saved order keeps its place");
+        assertEquals(before.version() + 1, after.version());
+    }
+
+    @Test
+    void shouldKeepSavedEntitiesOutOfReachOfTheirCallers() {
+        // --- ARRANGE ---
+        FleetStore store = new FleetStore();
+        store.snapshot(List::<Order>of, List::<Vehicle>of);
+        Order order = order("ORD1", 10);
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVehicleId("VEH1");
+        vehicle.setCapacity(100.0);
+        store.ordersSaved(List.of(order));
+        store.vehiclesSaved(List.of(vehicle));
+        FleetStore.Snapshot snapshot = store.snapshot(List::of, List::of);
+
+        // --- ACT ---
+        // As a later request or a managed entity might, after the batch was published.
+        order.setPackageWeight(99.0);
+        vehicle.setCapacity(1.0);
+
+        // --- ASSERT ---
+        assertEquals(10.0, snapshot.orders().get(0).getPackageWeight());
+        assertEquals(100.0, snapshot.vehicles().get(0).getCapacity());
+    }
+
+    @Test
+    void shouldKeepEveryRecordWhenBatchesAreCompacted() {
+        // --- ARRANGE ---
+        FleetStore store = new FleetStore();
+        store.snapshot(List::<Order>of, List::<Vehicle>of);
+        List<Order> expected = new ArrayList<>();
+
+        // --- ACT ---
+        // Enough small batches to fold them into the base several times over.
+        for (int batch = 0; batch < 50; batch++) {
+            int first = batch * 500;
+            List<Order> orders = IntStream.range(first, first + 500).mapToObj(i -> order("ORD" + i, 1)).toList();
+            expected.addAll(orders);
+            store.ordersSaved(orders);
+        }
+        List<Order> orders = store.snapshot(List::of, List::of).orders();
+
+        // --- ASSERT ---
+        assertEquals(expected, orders);
+    }
+}
@@ -0,0 +1,133 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.model.Order;
+import com.freightfox.dispatchoptimizer.model.Priority;
+import com.freightfox.dispatchoptimizer.planner.OrderSequence;
+import com.freightfox.dispatchoptimizer.planner.OrderTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private OffHeapOrderStore store;
+
+    @BeforeEach
+    void setUp() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getPlanner().getOffHeap().setDirectory(dir.toString());
+        store = new OffHeapOrderStore(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private static Order order(String id, Priority priority, String region) {
+        return new Order(id, 12.97, 77.59, 5.0, priority, region, null, null);
+    }
+
+    private static List<Order> ordersOf(OrderTable table) {
+        return IntStream.range(0, table.size()).mapToObj(table::order).toList();
+    }
+
+    @Test
+    void shouldReadBackEveryFieldAndOverwriteResavedOrdersInPlace() {
+        // --- ARRANGE ---
+        Order first = new Order("ORD1", 12.97, 77.59, 5.0, Priority.HIGH, "north", LocalTime.of(9, 0),
+                LocalTime.of(12, 30, 15));
+        Order second = order("ORD2", Priority.HIGH, "north");
+        store.orders(load -> List.of(first, second).forEach(load), null, OrderSequence.ARRIVAL);
+
+        // --- ACT ---
+        Order resaved = new Order("ORD1", 13.0, 77.6, 7.5, Priority.HIGH, "north", null, LocalTime.of(18, 0));
+        Order added = order("ORD3", Priority.HIGH, "south");
+        Order savedWithAddress = new Order(added);
+        savedWithAddress.setAddress("Tower B, 12 MG Road");
+        store.ordersSaved(List.of(resaved, savedWithAddress));
+        OrderTable table = store.orders(load -> fail("Already loaded"), null, OrderSequence.ARRIVAL);
+
+        // --- ASSERT ---
+        assertEquals(List.of(resaved, second, added), ordersOf(table),
+                "A re-saved order keeps its place, and addresses are not stored");
+        assertEquals(3, store.size());
+        assertEquals(2, table.indexOf("ORD3"));
+        assertEquals(-1, table.indexOf("ORD4"));
+    }
+
+    @Test
+    void shouldSequenceByPriorityAndPlanOneRegion() {
+        // --- ARRANGE ---
+        Order low = order("ORD1", Priority.LOW, "north");
+        Order high = order("ORD2", Priority.HIGH, "north");
+        Order medium = order("ORD3", Priority.MEDIUM, "north");
+        Order otherRegion = order("ORD4", Priority.HIGH, "south");
+        Order secondHigh = order("ORD5", Priority.HIGH, "north");
+        List<Order> orders = List.of(low, high, medium, otherRegion, secondHigh);
+
+        // --- ACT ---
+        OrderTable all = store.orders(load -> orders.forEach(load), null, OrderSequence.ARRIVAL);
+        OrderTable north = store.orders(load -> fail("Already loaded"), "north", OrderSequence.ARRIVAL);
+        OrderTable unknown = store.orders(load -> fail("Already loaded"), "east", OrderSequence.ARRIVAL);
+
+        // --- ASSERT ---
+        assertEquals(List.of(high, otherRegion, secondHigh, medium, low), ordersOf(all),
+                "HIGH first, in arrival order within a priority");
+        assertEquals(List.of(high, secondHigh, medium, low), ordersOf(north));
+        assertEquals(0, unknown.size());
+    }
+
+    @Test
+    void shouldRefuseReadsFromATableOnceTheStoreIsClosed() {
+        // --- ARRANGE ---
+        Order order = order("ORD1", Priority.HIGH, "north");
+        OrderTable table = store.orders(load -> load.accept(order), null, OrderSequence.ARRIVAL);
+
+        // --- ACT ---
+        store.close();
+        // Reloading fills the store again, but the old table still points at the closed files.
+        OrderTable reloaded = store.orders(load -> load.accept(order), null, OrderSequence.ARRIVAL);
+
+        // --- ASSERT ---
+        assertThrows(IllegalStateException.class, () -> table.order(0));
+        assertThrows(IllegalStateException.class, () -> table.latitude(0));
+        assertThrows(IllegalStateException.class, () -> table.indexOf("ORD1"));
+        assertEquals(order, reloaded.order(0));
+    }
+
+    @Test
+    void shouldFindEveryOrderOnceTheIndexHasGrown() {
+        // --- ARRANGE ---
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            orders.add(order("ORD" + i, Priority.values()[i % 3], "north"));
+        }
+
+        // --- ACT ---
+        store.orders(load -> {
+        }, null, OrderSequence.ARRIVAL);
+        store.ordersSaved(orders);
+        OrderTable table = store.orders(load -> fail("Already loaded"), null, OrderSequence.GEOHASH);
+
+        // --- ASSERT ---
+        assertEquals(orders.size(), table.size());
+        for (Order order : orders) {
+            int o = table.indexOf(order.getOrderId());
+            assertEquals(order.getOrderId(), table.orderId(o));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlanSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldHandTheSavedRoutesToTheNextRunOnce() {
+        // --- ARRANGE ---
+        DispatchProperties properties = snapshotsIn(dir.resolve("nested/plan.bin"));
+        Map<String, List<String>> routes = Map.of("VEH1", List.of("ORD1", "ORD2"), "VEH2", List.of("ORD3"));
+        new PlanSnapshotStore(properties).save(routes);
+
+        // --- ACT ---
+        PlanSnapshotStore restarted = new PlanSnapshotStore(properties);
+        boolean available = restarted.hasWarmStart();
+        Map<String, List<String>> restored = restarted.takeWarmStart();
+
+        // --- ASSERT ---
+        assertTrue(available);
+        assertEquals(routes, restored);
+        assertNull(restarted.takeWarmStart(), "A snapshot is only used once");
+        assertFalse(restarted.hasWarmStart());
+    }
+
+    @Test
+    void shouldIgnoreAFileThatIsNotASnapshot() throws IOException {
+        // --- ARRANGE ---
+        Path file = dir.resolve("plan.bin");
+        Files.writeString(file, "not a snapshot");
+
+        // --- ACT ---
+        Map<String, List<String>> restored = new PlanSnapshotStore(snapshotsIn(file)).takeWarmStart();
+
+        // --- ASSERT ---
+        assertNull(restored);
+    }
+
+    private static DispatchProperties snapshotsIn(Path file) {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setPath(file.toString());
+        return properties;
+    }
+}
@@ -0,0 +1,67 @@
+package com.freightfox.dispatchoptimizer.service;
+
+import com.freightfox.dispatchoptimizer.config.DispatchProperties;
+import com.freightfox.dispatchoptimizer.model.VehiclePosition;
+import com.freightfox.dispatchoptimizer.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryServiceTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private PlanCache planCache;
+
+    @Mock
+    private IncrementalPlanner incrementalPlanner;
+
+    private TelemetryService telemetryService;
+
+    @BeforeEach
+    void setUp() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getTelemetry().setReplanDistanceKm(1.0);
+        telemetryService = new TelemetryService(new VehiclePositions(), vehicleRepository, planCache,
+                incrementalPlanner, properties);
+        when(vehicleRepository.updatePositions(anyList())).thenReturn(new boolean[] { true });
+    }
+
+    private void ping(double latitude, double longitude, String at) {
+        telemetryService.report(List.of(new VehiclePosition("VEH1", latitude, longitude, Instant.parse(at))));
+    }
+
+    @Test
+    void shouldDropTheCachedPlanOnlyOnceAVehicleHasMovedFarEnough() {
+        // --- ARRANGE ---
+        ping(12.9700, 77.5900, "2026-01-01T10:00:00Z");
+        telemetryService.flush(); // First seen since startup, so the plan is dropped.
+        clearInvocations(planCache, incrementalPlanner);
+
+        // --- ACT / ASSERT ---
+        // About 300 m, then another 300 m: still within 1 km of where the plan was dropped.
+        ping(12.9727, 77.5900, "2026-01-01T10:00:05Z");
+        assertEquals(1, telemetryService.flush());
+        ping(12.9754, 77.5900, "2026-01-01T10:00:10Z");
+        assertEquals(1, telemetryService.flush());
+        verifyNoInteractions(planCache, incrementalPlanner);
+
+        // Past 1 km in total, so the plan is dropped after all.
+        ping(12.9800, 77.5900, "2026-01-01T10:00:15Z");
+        telemetryService.flush();
+        verify(incrementalPlanner).invalidate();
+        verify(planCache).invalidate();
+    }
+}
@@ -0,0 +1,64 @@
+package com.freightfox.dispatchoptimizer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceCalculatorTest {
+
+    @Test
+    void cachedHaversineShouldMatchTheDegreeBasedFormula() {
+        // Bengaluru -> Delhi is roughly 1,740 km.
+        GeoPoints points = GeoPoints.of(new double[] { 12.97, 28.61 }, new double[] { 77.59, 77.20 });
+
+        double expected = DistanceCalculator.calculate(12.97, 77.59, 28.61, 77.20);
+        assertEquals(expected, DistanceCalculator.calculate(points, 0, points, 1), 1e-9);
+        assertEquals(expected, DistanceCalculator.fromChord(points, 0, points, 1), 1e-6);
+        assertEquals(1740, expected, 10);
+    }
+
+    @Test
+    void squaredChordShouldRankCandidatesExactlyLikeHaversine() {
+        Random random = new Random(1);
+        int n = 1_000;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = -80 + random.nextDouble() * 160;
+            longitudes[i] = -180 + random.nextDouble() * 360;
+        }
+        GeoPoints candidates = GeoPoints.of(latitudes, longitudes);
+        GeoPoints query = GeoPoints.of(new double[] { 12.97 }, new double[] { 77.59 });
+
+        double[] haversine = new double[n];
+        double[] chord = new double[n];
+        DistanceCalculator.score(DistanceMetric.HAVERSINE, candidates, n, query, 0, haversine);
+        DistanceCalculator.score(DistanceMetric.SQUARED_CHORD, candidates, n, query, 0, chord);
+
+        assertEquals(argMin(haversine), argMin(chord));
+    }
+
+    @Test
+    void equirectangularShouldTakeTheShortWayAcrossTheAntimeridian() {
+        // Both candidates are one degree of longitude away, on opposite sides of +/-180.
+        GeoPoints candidates = GeoPoints.of(new double[] { 0, 0 }, new double[] { 178.0, -180.0 });
+        GeoPoints query = GeoPoints.of(new double[] { 0 }, new double[] { 179.0 });
+        double[] scores = new double[2];
+
+        DistanceCalculator.score(DistanceMetric.EQUIRECTANGULAR, candidates, 2, query, 0, scores);
+
+        assertEquals(scores[0], scores[1], 1e-12);
+    }
+
+    private static int argMin(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,61 @@
+package com.freightfox.dispatchoptimizer.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadDistanceMatrixTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldUseTheTableAndFallBackToTheStraightLine() throws IOException {
+        // --- ARRANGE ---
+        // Two points about 5.6 km apart. The road one way is 9 km; the way back is
+        // not in the table, and a leg shorter than the straight line is not possible.
+        Path table = dir.resolve("roads.csv");
+        Files.writeString(table, """
+                # fromLatitude,fromLongitude,toLatitude,toLongitude,distanceKm
+                12.90000,77.50000,12.95,77.5,9.0
+                12.95,77.5,12.95,77.6,0.1
+                """);
+        GeoPoints points = GeoPoints.of(new double[] { 12.9, 12.95, 12.95 }, new double[] { 77.5, 77.5, 77.6 });
+        double straightLine = DistanceCalculator.calculate(points, 0, points, 1);
+
+        // --- ACT ---
+        RoadDistanceMatrix matrix = RoadDistanceMatrix.load(table, 1_000);
+
+        // --- ASSERT ---
+        assertEquals(2, matrix.size());
+        assertEquals(9.0, matrix.distanceKm(points, 0, points, 1));
+        assertEquals(straightLine, matrix.distanceKm(points, 1, points, 0), 1e-9);
+        assertEquals(DistanceCalculator.calculate(points, 1, points, 2), matrix.distanceKm(points, 1, points, 2), 1e-9);
+        assertEquals(9.0, matrix.distanceKm(points, 0, points, 1), "Cached legs give the same answer");
+    }
+
+    @Test
+    void shouldKeepTheCacheBounded() throws IOException {
+        // --- ARRANGE ---
+        Path table = dir.resolve("empty.csv");
+        Files.writeString(table, "");
+        RoadDistanceMatrix matrix = RoadDistanceMatrix.load(table, 64);
+        GeoPoints points = new GeoPoints(1_000);
+        for (int i = 0; i < points.size(); i++) {
+            points.set(i, i * 0.001, 0);
+        }
+
+        // --- ACT ---
+        for (int i = 1; i < points.size(); i++) {
+            matrix.distanceKm(points, 0, points, i);
+        }
+
+        // --- ASSERT ---
+        assertTrue(matrix.cachedLegs() <= 64, "Cached " + matrix.cachedLegs() + " legs");
+    }
+}